@@ -1,37 +1,50 @@
 package com.paxovision.rest.actor;
 
 //import com.mlp.raptor.RaptorException;
+import com.paxovision.rest.assertions.JsonAssert;
 import com.paxovision.rest.auth.KerberosAuthenticator;
 import com.paxovision.rest.auth.NTLMAuthenticator;
 import com.paxovision.rest.exception.PaxoRestException;
+import com.paxovision.rest.load.RestLoadGenerator;
+import com.paxovision.rest.policy.AdaptiveConcurrencyLimiter;
+import com.paxovision.rest.policy.CircuitBreaker;
+import com.paxovision.rest.policy.HedgingPolicy;
+import com.paxovision.rest.policy.RequestCoalescer;
+import com.paxovision.rest.policy.RequestRateLimiter;
+import com.paxovision.rest.policy.RetryPolicy;
+import com.paxovision.rest.policy.RetryStats;
+import com.paxovision.rest.request.RestBatchRequestBuilder;
+import com.paxovision.rest.request.RestCallContext;
 import com.paxovision.rest.request.RestDeleteRequestBuilder;
+import com.paxovision.rest.request.RestGenericRequestBuilder;
 import com.paxovision.rest.request.RestGetRequestBuilder;
 import com.paxovision.rest.request.RestHeadRequestBuilder;
 import com.paxovision.rest.request.RestPatchRequestBuilder;
 import com.paxovision.rest.request.RestPostRequestBuilder;
 import com.paxovision.rest.request.RestPutRequestBuilder;
+import com.paxovision.rest.request.StreamingResponse;
+import com.paxovision.rest.response.ReplayableResponseBody;
+import com.paxovision.rest.transport.ResponseCacheStats;
+import com.paxovision.rest.transport.RestTransport;
+import com.paxovision.rest.transport.TransportStats;
 
 import static com.google.common.net.HttpHeaders.AUTHORIZATION;
 import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.RateLimiter;
 import com.jayway.jsonpath.Configuration;
-import com.jayway.jsonpath.Option;
-import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
-import com.jayway.jsonpath.spi.json.JsonProvider;
-import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
-import com.jayway.jsonpath.spi.mapper.MappingProvider;
 import devcsrj.okhttp3.logging.HttpLoggingInterceptor;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
-import java.util.EnumSet;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
+import javax.annotation.Nullable;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
@@ -39,13 +52,20 @@ import javax.net.ssl.X509TrustManager;
 import okhttp3.Credentials;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
 
 /** Raptor actor for REST API testing. */
 public class RestClientActor implements Actor{
 
+    /** Maximum part of the response body read ahead by the logger, larger bodies stay unbuffered */
+    public static final long MAX_LOGGED_BODY_SIZE = 1024 * 1024;
+
     private final OkHttpClient okHttpClient;
+    private final RestCallContext callContext;
+    private final RestTransport transport;
+    private final ResponseCacheStats responseCacheStats;
     private final String baseURL;
 
     /**
@@ -55,29 +75,24 @@ public class RestClientActor implements Actor{
      * @param builder RestClientActor.Builder instance of the builder
      */
     public RestClientActor(Builder builder) {
-        this.okHttpClient = builder.okHttpClientBuilder.build();
+        this.transport = builder.buildTransport();
+        this.responseCacheStats =
+                builder.responseCacheDirectory == null
+                        ? null
+                        : ResponseCacheStats.open(builder.responseCacheDirectory, builder.responseCacheMaxBytes);
+        this.okHttpClient =
+                builder.buildOkHttpClient(transport.applyTo(builder.okHttpClientBuilder, responseCacheStats).build());
+        this.callContext =
+                RestCallContext.newBuilder(okHttpClient)
+                        .withRateLimiter(builder.requestRateLimiter)
+                        .withConcurrencyLimiter(builder.concurrencyLimiter)
+                        .withRetryPolicy(builder.retryPolicy)
+                        .withHedgingPolicy(builder.hedgingPolicy)
+                        .withRequestCoalescer(builder.requestCoalescer)
+                        .withJsonPathConfiguration(builder.jsonPathConfiguration)
+                        .withBodySpillThreshold(builder.bodySpillThreshold)
+                        .build();
         this.baseURL = builder.baseURL;
-        // configure JsonPath
-        Configuration.setDefaults(
-                new Configuration.Defaults() {
-                    private final JsonProvider jsonProvider = new JacksonJsonNodeJsonProvider();
-                    private final MappingProvider mappingProvider = new JacksonMappingProvider();
-
-                    @Override
-                    public JsonProvider jsonProvider() {
-                        return jsonProvider;
-                    }
-
-                    @Override
-                    public MappingProvider mappingProvider() {
-                        return mappingProvider;
-                    }
-
-                    @Override
-                    public Set<Option> options() {
-                        return EnumSet.noneOf(Option.class);
-                    }
-                });
     }
 
     public static final Builder newBuilder() {
@@ -89,6 +104,32 @@ public class RestClientActor implements Actor{
         return this.getClass().getSimpleName();
     }
 
+    /** @return transport (connection pool and dispatcher) used by this actor */
+    public RestTransport getTransport() {
+        return transport;
+    }
+
+    /** @return per-host/per-route rate limiter of this actor or null if not configured */
+    public RequestRateLimiter getRateLimiter() {
+        return callContext.getRateLimiter();
+    }
+
+    /** @return response cache counters or null if response cache is not configured */
+    @Nullable
+    public ResponseCacheStats getResponseCacheStats() {
+        return responseCacheStats;
+    }
+
+    /** @return retry counters and latency added by the retries */
+    public RetryStats getRetryStats() {
+        return callContext.getRetryStats();
+    }
+
+    /** @return live connection pool and dispatcher gauges of this actor's transport */
+    public TransportStats getTransportStats() {
+        return transport.getStats();
+    }
+
     /**
      *	Returns complete URL to perform the request
      *
@@ -110,7 +151,7 @@ public class RestClientActor implements Actor{
     *	@return RestGetRequestBuilder instance
     */
     public RestGetRequestBuilder get(String path) {
-        return new RestGetRequestBuilder(getCompleteURL(baseURL, path), okHttpClient);
+        return new RestGetRequestBuilder(getCompleteURL(baseURL, path), callContext);
     }
 
     /**
@@ -132,7 +173,7 @@ public class RestClientActor implements Actor{
      *	^return RestPostRequestBuilder instance
      */
     public RestPostRequestBuilder post(String path) {
-        return new RestPostRequestBuilder(getCompleteURL(baseURL, path), okHttpClient);
+        return new RestPostRequestBuilder(getCompleteURL(baseURL, path), callContext);
     }
 
     /**
@@ -154,7 +195,7 @@ public class RestClientActor implements Actor{
     *	@return RestPutRequestBuilder instance
     */
     public RestPutRequestBuilder put(String path) {
-        return new RestPutRequestBuilder(getCompleteURL(baseURL, path), okHttpClient);
+        return new RestPutRequestBuilder(getCompleteURL(baseURL, path), callContext);
     }
 
     /**
@@ -176,7 +217,7 @@ public class RestClientActor implements Actor{
      *	^return RestHeadRequestBuilder instance
      */
     public RestHeadRequestBuilder head(String path) {
-        return new RestHeadRequestBuilder(getCompleteURL(baseURL, path), okHttpClient);
+        return new RestHeadRequestBuilder(getCompleteURL(baseURL, path), callContext);
     }
 
     /**
@@ -198,7 +239,7 @@ public class RestClientActor implements Actor{
      *	@return RestPatchRequestBuilder instance
      */
     public RestPatchRequestBuilder patch(String path) {
-        return new RestPatchRequestBuilder(getCompleteURL(baseURL, path), okHttpClient);
+        return new RestPatchRequestBuilder(getCompleteURL(baseURL, path), callContext);
     }
 
     /**
@@ -220,7 +261,7 @@ public class RestClientActor implements Actor{
      *	@return RestDeleteRequestBuilder instance
      */
     public RestDeleteRequestBuilder delete(String path) {
-        return new RestDeleteRequestBuilder(getCompleteURL(baseURL, path), okHttpClient);
+        return new RestDeleteRequestBuilder(getCompleteURL(baseURL, path), callContext);
     }
 
     /**
@@ -235,12 +276,59 @@ public class RestClientActor implements Actor{
         return delete(String.format(template, params));
     }
 
+    /**
+     *	Runs the blocking scenario (i.e. sequence of {@code expect(...)} calls of single simulated
+     *	user) on the executor of the actor's transport. For the actor built with {@link
+     *	Builder#withVirtualThreads()} each scenario gets own virtual thread, so blocking calls of
+     *	thousands of users don't need thousands of platform threads. Calling {@code expect(...)}
+     *	directly blocks the calling thread, whatever its type is.
+     *
+     *	@param scenario blocking calls to be performed
+     *	@return future completed when the scenario ends, exceptionally if it fails
+     */
+    public CompletableFuture<Void> runAsync(Runnable scenario) {
+        return CompletableFuture.runAsync(scenario, transport.getExecutor());
+    }
+
+    /**
+     *	Fluent interface for parallel execution of many requests with bounded number of requests
+     *	in flight
+     *
+     *	@return RestBatchRequestBuilder instance
+     */
+    public RestBatchRequestBuilder batch() {
+        return new RestBatchRequestBuilder();
+    }
+
+    /**
+     *	Fluent interface for open-model load generation: requests created by the template are sent
+     *	at the target arrival rate regardless of the response time
+     *
+     *	@param requestTemplate creates new request for each arrival (i.e. {@code () ->
+     *	actor.get("/path")})
+     *	@return RestLoadGenerator instance
+     */
+    public RestLoadGenerator load(Supplier<? extends RestGenericRequestBuilder<?>> requestTemplate) {
+        return new RestLoadGenerator(requestTemplate);
+    }
+
     /** Builder for the {@link com.paxovision.rest.actor.RestClientActor} */
     public static final class Builder {
 
         final OkHttpClient.Builder okHttpClientBuilder = new OkHttpClient.Builder();
+        final RestTransport.Builder transportBuilder = RestTransport.newBuilder();
         String baseURL;
         String hostName;
+        String transportName;
+        RequestRateLimiter requestRateLimiter;
+        AdaptiveConcurrencyLimiter concurrencyLimiter;
+        RetryPolicy retryPolicy;
+        HedgingPolicy hedgingPolicy;
+        Configuration jsonPathConfiguration = JsonAssert.DEFAULT_CONFIGURATION;
+        long bodySpillThreshold = ReplayableResponseBody.DEFAULT_SPILL_THRESHOLD;
+        Path responseCacheDirectory;
+        long responseCacheMaxBytes;
+        RequestCoalescer requestCoalescer;
         boolean enableLogging = true;
 
         /**
@@ -249,10 +337,34 @@ public class RestClientActor implements Actor{
          * ^return new instance of {@link com.paxovision.rest.actor.RestClientActor}
          */
         public RestClientActor build() {
+            return new RestClientActor(this);
+        }
+
+        // add the actor's own interceptors to the configured client, the builder itself is not
+        // modified, so building it again doesn't install them twice
+        OkHttpClient buildOkHttpClient(OkHttpClient configuredClient) {
+            final OkHttpClient.Builder clientBuilder = configuredClient.newBuilder();
+            if (requestCoalescer != null) {
+                // identical requests are coalesced before passing any other interceptor
+                clientBuilder.interceptors().add(0, requestCoalescer);
+            }
             if (enableLogging) {
-                okHttpClientBuilder.addInterceptor(new HttpLoggingInterceptor());
+                final Interceptor logging = new HttpLoggingInterceptor(MAX_LOGGED_BODY_SIZE);
+                // logger reads the whole body, so streamed responses are passed through
+                clientBuilder.addInterceptor(
+                        chain ->
+                                StreamingResponse.isStreaming(chain.request())
+                                        ? chain.proceed(chain.request())
+                                        : logging.intercept(chain));
             }
-            return new RestClientActor(this);
+            return clientBuilder.build();
+        }
+
+        // create private transport or lookup shared one
+        RestTransport buildTransport() {
+            return transportName == null
+                    ? transportBuilder.build()
+                    : transportBuilder.buildShared(transportName);
         }
 
         /**
@@ -370,6 +482,132 @@ public class RestClientActor implements Actor{
             return withWriteTimeout(duration.toMillis(), TimeUnit.MILLISECONDS);
         }
 
+        /**
+        *	Share connection pool and dispatcher with all the actors built with the same transport
+        *	name. Pool and dispatcher settings are taken from the builder of the first actor using
+        *	the transport, other actors may only set them to the same values, building the actor
+        *	fails with {@link IllegalStateException} otherwise.
+        *
+        *	@param transportName name of the shared transport
+        *	@return self
+        */
+        public RestClientActor.Builder withSharedTransport(String transportName) {
+            this.transportName = Preconditions.checkNotNull(transportName, "Transport name can't be null!");
+            return this;
+        }
+
+        /**
+        *	Sets maximum number of idle connections kept in the connection pool. Default value is 5.
+        *
+        *	@param maxIdleConnections maximum number of idle connections
+        *	@return self
+        */
+        public RestClientActor.Builder withMaxIdleConnections(int maxIdleConnections) {
+            transportBuilder.withMaxIdleConnections(maxIdleConnections);
+            return this;
+        }
+
+        /**
+        *	Sets how long idle connection is kept in the connection pool. Default value is 5 minutes.
+        *
+        *	@param keepAlive keep alive duration
+        *	@return self
+        */
+        public RestClientActor.Builder withKeepAlive(Duration keepAlive) {
+            transportBuilder.withKeepAlive(keepAlive);
+            return this;
+        }
+
+        /**
+        *	Sets maximum number of async requests executed concurrently. Default value is 64.
+        *
+        *	@param maxRequests maximum number of concurrent requests
+        *	@return self
+        */
+        public RestClientActor.Builder withMaxRequests(int maxRequests) {
+            transportBuilder.withMaxRequests(maxRequests);
+            return this;
+        }
+
+        /**
+        *	Sets maximum number of async requests executed concurrently against the same host.
+        *	Default value is 5.
+        *
+        *	@param maxRequestsPerHost maximum number of concurrent requests per host
+        *	@return self
+        */
+        public RestClientActor.Builder withMaxRequestsPerHost(int maxRequestsPerHost) {
+            transportBuilder.withMaxRequestsPerHost(maxRequestsPerHost);
+            return this;
+        }
+
+        /**
+        *	Run async calls of the OkHttp dispatcher on virtual threads instead of platform thread
+        *	pool, when the running JDK supports them (falls back to platform threads otherwise).
+        *	Blocking {@code expect(...)} calls run on the calling thread, use {@link
+        *	RestClientActor#runAsync(Runnable)} to run them on virtual threads.
+        *
+        *	@return self
+        */
+        public RestClientActor.Builder withVirtualThreads() {
+            transportBuilder.withVirtualThreads();
+            return this;
+        }
+
+        /**
+        *	Sets protocols offered to the servers, in order of preference (see
+        *	{@link RestTransport.Builder#withProtocols(Protocol...)}).
+        *
+        *	@param protocols protocols to be used
+        *	@return self
+        */
+        public RestClientActor.Builder withProtocols(Protocol... protocols) {
+            transportBuilder.withProtocols(protocols);
+            return this;
+        }
+
+        /**
+        *	Use cleartext HTTP/2 without upgrade (h2c prior knowledge), so the concurrent calls to
+        *	the host are multiplexed over single connection. Raise the per-host limit (see
+        *	{@link #withMaxRequestsPerHost(int)}) to allow more concurrent streams.
+        *
+        *	@return self
+        */
+        public RestClientActor.Builder withH2PriorKnowledge() {
+            transportBuilder.withH2PriorKnowledge();
+            return this;
+        }
+
+        /**
+        *	Sets interval of HTTP/2 pings keeping the multiplexed connections alive
+        *
+        *	@param pingInterval ping interval
+        *	@return self
+        */
+        public RestClientActor.Builder withPingInterval(Duration pingInterval) {
+            transportBuilder.withPingInterval(pingInterval);
+            return this;
+        }
+
+        /**
+        *	Stores cacheable responses on disk according to the server's caching headers. Stale
+        *	responses with validators are revalidated using {@code If-None-Match} and
+        *	{@code If-Modified-Since} headers. Directory must not be shared with other actors,
+        *	building the actor fails with {@link IllegalStateException} while another cache uses
+        *	it. The cache is closed when the actor's transport is shut down.
+        *
+        *	@param directory cache directory
+        *	@param maxBytes maximum size of the cache on disk
+        *	@return self
+        */
+        public RestClientActor.Builder withResponseCache(Path directory, long maxBytes) {
+            Preconditions.checkNotNull(directory, "Cache directory can't be null!");
+            Preconditions.checkArgument(maxBytes > 0, "Cache size must be positive!");
+            this.responseCacheDirectory = directory;
+            this.responseCacheMaxBytes = maxBytes;
+            return this;
+        }
+
         /**
         *	Sets the rate limit for this instance of the REST client in messages-per-second. If acto
         *	will try to send more faster, than the defined value, rate will be limited to the given
@@ -394,6 +632,69 @@ public class RestClientActor implements Actor{
             return this;
         }
 
+        /**
+        *	Sets per-host and per-route token bucket rate limits (see {@link RequestRateLimiter}).
+        *	Unlike {@link #withRateLimit(int)}, permit is acquired once per request (redirects and
+        *	authentication retries are not counted) and waiting doesn't block OkHttp threads: sync
+        *	requests wait in the calling thread, async requests are enqueued when the permit is
+        *	available.
+        *
+        *	@param rateLimiter rate limits to be applied
+        *	@return self
+        */
+        public RestClientActor.Builder withRateLimit(RequestRateLimiter rateLimiter) {
+            this.requestRateLimiter = Preconditions.checkNotNull(rateLimiter, "Rate limiter can't be null!");
+            return this;
+        }
+
+        /**
+        *	Limits the number of requests in flight, the limit is adjusted automatically from the
+        *	observed latency and 429/503/Retry-After responses (see {@link
+        *	AdaptiveConcurrencyLimiter}). Async requests wait for the slot without blocking any
+        *	thread, the slot is held till the response body is closed. Keep the reference to the
+        *	limiter to read its metrics.
+        *
+        *	@param concurrencyLimiter adaptive concurrency limiter
+        *	@return self
+        */
+        public RestClientActor.Builder withAdaptiveConcurrencyLimit(
+                AdaptiveConcurrencyLimiter concurrencyLimiter) {
+            this.concurrencyLimiter =
+                    Preconditions.checkNotNull(concurrencyLimiter, "Concurrency limiter can't be null!");
+            okHttpClientBuilder.addInterceptor(concurrencyLimiter);
+            return this;
+        }
+
+        /**
+        *	Fails requests fast with {@link PaxoRestException} while the host's failure or slow
+        *	call rate is above the threshold, instead of waiting for connect and read timeouts (see
+        *	{@link CircuitBreaker}). Each retry attempt is counted, rejected attempts are not
+        *	retried. Keep the reference to the breaker to read its state.
+        *
+        *	@param circuitBreaker per-host circuit breaker
+        *	@return self
+        */
+        public RestClientActor.Builder withCircuitBreaker(CircuitBreaker circuitBreaker) {
+            okHttpClientBuilder.addInterceptor(
+                    Preconditions.checkNotNull(circuitBreaker, "Circuit breaker can't be null!"));
+            return this;
+        }
+
+        /**
+        *	Sends identical concurrent GET requests only once and shares the response with all the
+        *	callers, which arrived while it was in flight, each caller applies own assertions (see
+        *	{@link RequestCoalescer}). Streamed responses (event streams and requests sent {@code
+        *	withStreamingResponse()}, i.e. downloads) are never coalesced. Keep the reference to the
+        *	coalescer to read its metrics.
+        *
+        *	@param requestCoalescer request coalescer
+        *	@return self
+        */
+        public RestClientActor.Builder withRequestCoalescing(RequestCoalescer requestCoalescer) {
+            this.requestCoalescer = Preconditions.checkNotNull(requestCoalescer, "Request coalescer can't be null!");
+            return this;
+        }
+
         /**
         *	Sets the default header name/value, which will be added to every request sent by this
         *	instance of {@link com.paxovision.rest.actor.RestClientActor} unless header with same name
@@ -467,25 +768,50 @@ public class RestClientActor implements Actor{
         *	(©return self
         */
         public RestClientActor.Builder withNTLMAuth(String userid, String secret) {
-            okHttpClientBuilder.authenticator(new NTLMAuthenticator(userid, secret));
+            return withNTLMAuth(new NTLMAuthenticator(userid, secret));
+        }
+
+        /**
+        *	Sets the NTLM authenticator, the handshake is performed once per connection. Keep the
+        *	reference to the authenticator to read its handshake counters.
+        *
+        *	@param authenticator NTLM authenticator
+        *	@return self
+        */
+        public RestClientActor.Builder withNTLMAuth(NTLMAuthenticator authenticator) {
+            Preconditions.checkNotNull(authenticator, "NTLM authenticator can't be null!");
+            okHttpClientBuilder.authenticator(authenticator);
+            okHttpClientBuilder.addNetworkInterceptor(authenticator.networkInterceptor());
             return this;
         }
 
         /**
-        *	Sets the options for Kerberos authentication
+        *	Sets the options for Kerberos authentication. The login is performed on the first
+        *	request and reused by all the requests of this client.
         *
         *	@param krbOptions Kerberos authentication options
         *	@return self
         */
         public RestClientActor.Builder withKerberosAuth(Map<String, String> krbOptions) {
+            return withKerberosAuth(new KerberosAuthenticator(krbOptions));
+        }
+
+        /**
+        *	Sets the Kerberos authenticator, which may be shared by several clients (i.e. to reuse
+        *	the negotiated tokens, see {@link KerberosAuthenticator#KerberosAuthenticator(Map,
+        *	Duration)})
+        *
+        *	@param authenticator Kerberos authenticator
+        *	@return self
+        */
+        public RestClientActor.Builder withKerberosAuth(KerberosAuthenticator authenticator) {
             Preconditions.checkNotNull(
                     baseURL, "baseURL must be defined for Kerberos authentication!");
+            Preconditions.checkNotNull(authenticator, "Kerberos authenticator can't be null!");
+            final String serverPrincipalName = "HTTP/" + hostName;
             return withDefaultHeader(
                     AUTHORIZATION,
-                    () ->
-                        "Negotiate "
-                                + new KerberosAuthenticator(krbOptions)
-                                    .buildAuthorizationHeader("HTTP/" + hostName));
+                    () -> "Negotiate " + authenticator.buildAuthorizationHeader(serverPrincipalName));
         }
 
 
@@ -515,6 +841,63 @@ public class RestClientActor implements Actor{
         }
 
 
+        /**
+        *	Sets the default retry policy for the requests of this actor (see {@link RetryPolicy}).
+        *	Can be overridden for the single request. Unlike {@link
+        *	#setRetryOnConnectionFailure(boolean)} it covers retryable response status codes,
+        *	applies backoff delays and limits retries by the budget. Backoff delays of async
+        *	requests are scheduled, so no thread is blocked while waiting for the next attempt.
+        *
+        *	@param retryPolicy default retry policy
+        *	@return self
+        */
+        public RestClientActor.Builder withRetryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = Preconditions.checkNotNull(retryPolicy, "Retry policy can't be null!");
+            return this;
+        }
+
+        /**
+        *	Sets the default hedging policy for GET and HEAD requests of this actor (see {@link
+        *	HedgingPolicy}). Can be overridden for the single request. Keep the reference to the
+        *	policy to read hedge and win counts.
+        *
+        *	@param hedgingPolicy default hedging policy
+        *	@return self
+        */
+        public RestClientActor.Builder withHedging(HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = Preconditions.checkNotNull(hedgingPolicy, "Hedging policy can't be null!");
+            return this;
+        }
+
+        /**
+        *	Sets the JsonPath configuration (JSON and mapping providers, options) used by the JSON
+        *	assertions of this actor's responses. Configuration is immutable and isn't shared with
+        *	other actors, default is {@link JsonAssert#DEFAULT_CONFIGURATION}.
+        *
+        *	@param jsonPathConfiguration JsonPath configuration
+        *	@return self
+        */
+        public RestClientActor.Builder withJsonPathConfiguration(Configuration jsonPathConfiguration) {
+            this.jsonPathConfiguration =
+                    Preconditions.checkNotNull(jsonPathConfiguration, "JsonPath configuration can't be null!");
+            return this;
+        }
+
+        /**
+        *	Sets the size of the response body kept on heap by the assertions. The body is read once
+        *	and shared by all the body assertions of the response, larger bodies are written to a
+        *	memory-mapped temp file.
+        *
+        *	@param bodySpillThreshold size in bytes, default is {@link
+        *	ReplayableResponseBody#DEFAULT_SPILL_THRESHOLD}
+        *	@return self
+        */
+        public RestClientActor.Builder withBodySpillThreshold(long bodySpillThreshold) {
+            Preconditions.checkArgument(bodySpillThreshold >= 0, "Body spill threshold can't be negative!");
+            this.bodySpillThreshold = bodySpillThreshold;
+            return this;
+        }
+
         /**
         *	Configure this client to retry or not when a connectivity problem is encountered.By
         *	default, this client silently recovers from the following problems:
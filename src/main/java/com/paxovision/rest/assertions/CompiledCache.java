@@ -0,0 +1,52 @@
+package com.paxovision.rest.assertions;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ *	LRU cache of the compiled values (selectors, paths, schemas), which are immutable and shared by
+ *	all the threads. Compilation errors are rethrown as is.
+ *
+ *	@param <K> key of the compiled value, i.e. expression text
+ *	@param <V> compiled value
+ */
+final class CompiledCache<K, V> {
+
+    private final Cache<K, V> cache;
+
+    CompiledCache(int maximumSize) {
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     *	Returns compiled value, compiling it on the first use
+     *
+     *	@param key key of the value
+     *	@param compiler compiles the value on cache miss
+     *	@return compiled value
+     */
+    V get(K key, Callable<? extends V> compiler) {
+        try {
+            return cache.get(key, compiler);
+        } catch (ExecutionException | UncheckedExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /** @return hit/miss statistics of the cache */
+    CacheStats stats() {
+        return cache.stats();
+    }
+
+    /** @return number of the compiled values in the cache */
+    long size() {
+        return cache.size();
+    }
+}
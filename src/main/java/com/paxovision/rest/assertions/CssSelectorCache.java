@@ -0,0 +1,40 @@
+package com.paxovision.rest.assertions;
+
+import com.google.common.cache.CacheStats;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+/**
+ *	LRU cache of the compiled CSS selectors ({@link Evaluator}s) shared by all the {@link
+ *	HtmlAssert} instances. Evaluators are stateless, so they're shared by all the threads.
+ */
+public final class CssSelectorCache {
+
+    /** Maximum number of the compiled selectors kept in the cache */
+    public static final int MAXIMUM_SIZE = 1024;
+
+    private static final CompiledCache<String, Evaluator> CACHE = new CompiledCache<>(MAXIMUM_SIZE);
+
+    private CssSelectorCache() {
+    }
+
+    /**
+     *	Returns compiled selector, compiling it on the first use
+     *
+     *	@param css CSS selector
+     *	@return compiled selector
+     */
+    public static Evaluator compile(String css) {
+        return CACHE.get(css, () -> QueryParser.parse(css));
+    }
+
+    /** @return hit/miss statistics of the cache */
+    public static CacheStats stats() {
+        return CACHE.stats();
+    }
+
+    /** @return number of the compiled selectors in the cache */
+    public static long size() {
+        return CACHE.size();
+    }
+}
@@ -0,0 +1,187 @@
+package com.paxovision.rest.assertions;
+
+import com.google.common.io.BaseEncoding;
+import com.paxovision.rest.exception.PaxoRestException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.assertj.core.api.DoubleAssert;
+import org.assertj.core.api.LongAssert;
+import org.assertj.core.api.StringAssert;
+
+/**
+ *	Assertions on the response body downloaded to file. Assertions are registered first, then the
+ *	body is transferred from the source to the file channel through single direct buffer, so it's
+ *	never held in heap. Digests of the registered algorithms and the size are computed during the
+ *	transfer.
+ */
+public class DownloadAssert {
+
+    /**
+     *	Size of the buffer filled from the source before it's digested and written to the file, the
+     *	source returns smaller segments per read
+     */
+    public static final int TRANSFER_SIZE = 256 * 1024;
+
+    private static final String SHA_256 = "SHA-256";
+    private static final String MD5 = "MD5";
+
+    private final RestClientSoftAssertions softAssertions;
+    // digests to compute during the transfer, by algorithm name
+    private final Map<String, MessageDigest> digests = new LinkedHashMap<>();
+    private final List<Consumer<Transfer>> verifiers = new ArrayList<>();
+
+    DownloadAssert(RestClientSoftAssertions softAssertions) {
+        this.softAssertions = softAssertions;
+    }
+
+    /**
+     *	Verifies the number of the downloaded bytes
+     *
+     *	@param expected expected size in bytes
+     *	@return self
+     */
+    public DownloadAssert hasSize(long expected) {
+        return size(size -> size.isEqualTo(expected));
+    }
+
+    /**
+     *	Applies the assertion to the number of the downloaded bytes
+     *
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public DownloadAssert size(Consumer<LongAssert> assertion) {
+        verifiers.add(transfer -> assertion.accept(softAssertions.assertThat(transfer.size)));
+        return this;
+    }
+
+    /**
+     *	Verifies SHA-256 digest of the downloaded file
+     *
+     *	@param expectedHex expected digest as hex string (case-insensitive)
+     *	@return self
+     */
+    public DownloadAssert hasSha256(String expectedHex) {
+        return digest(SHA_256, digest -> digest.isEqualToIgnoringCase(expectedHex));
+    }
+
+    /**
+     *	Verifies MD5 digest of the downloaded file
+     *
+     *	@param expectedHex expected digest as hex string (case-insensitive)
+     *	@return self
+     */
+    public DownloadAssert hasMd5(String expectedHex) {
+        return digest(MD5, digest -> digest.isEqualToIgnoringCase(expectedHex));
+    }
+
+    /**
+     *	Computes digest of the downloaded file and wrap its lower-case hex string in a {@link
+     *	StringAssert}
+     *
+     *	@param algorithm digest algorithm, i.e.: {@code SHA-256}, {@code MD5}, {@code SHA-1}
+     *	@param assertion to be applied
+     *	@return self
+     *	@throws IllegalArgumentException if the algorithm is not supported
+     */
+    public DownloadAssert digest(String algorithm, Consumer<StringAssert> assertion) {
+        if (!digests.containsKey(algorithm)) {
+            try {
+                digests.put(algorithm, MessageDigest.getInstance(algorithm));
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalArgumentException("Digest algorithm '" + algorithm + "' is not supported!", ex);
+            }
+        }
+        verifiers.add(transfer -> assertion.accept(softAssertions.assertThat(transfer.digests.get(algorithm))));
+        return this;
+    }
+
+    /**
+     *	Applies the assertion to the transfer rate in bytes per second, measured from the first
+     *	read of the body till the file is written
+     *
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public DownloadAssert throughput(Consumer<DoubleAssert> assertion) {
+        verifiers.add(transfer -> assertion.accept(softAssertions.assertThat(transfer.throughput())));
+        return this;
+    }
+
+    /**
+     *	Transfers the body to the file and applies all the registered assertions
+     *
+     *	@param body body source, closed when transferred
+     *	@param file target file, created or truncated
+     */
+    void evaluate(ReadableByteChannel body, Path file) {
+        final Transfer transfer;
+        try (ReadableByteChannel source = body;
+                FileChannel channel =
+                        FileChannel.open(
+                                file,
+                                StandardOpenOption.CREATE,
+                                StandardOpenOption.WRITE,
+                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            transfer = transfer(source, channel);
+        } catch (IOException ex) {
+            throw new PaxoRestException("Failed to download response body to " + file + ": ", ex);
+        }
+        verifiers.forEach(verifier -> verifier.accept(transfer));
+    }
+
+    private Transfer transfer(ReadableByteChannel source, FileChannel channel) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(TRANSFER_SIZE);
+        final long start = System.nanoTime();
+        long size = 0;
+        boolean eof = false;
+        while (!eof) {
+            // fill the buffer, so the digests and the file are updated in large blocks
+            while (buffer.hasRemaining() && !eof) {
+                eof = source.read(buffer) == -1;
+            }
+            buffer.flip();
+            for (MessageDigest digest : digests.values()) {
+                digest.update(buffer.duplicate());
+            }
+            size += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        final Map<String, String> hexDigests = new LinkedHashMap<>();
+        digests.forEach((algorithm, digest) -> hexDigests.put(algorithm, BaseEncoding.base16().lowerCase().encode(digest.digest())));
+        return new Transfer(size, Duration.ofNanos(System.nanoTime() - start), hexDigests);
+    }
+
+    // result of the transfer
+    private static final class Transfer {
+
+        private final long size;
+        private final Duration duration;
+        private final Map<String, String> digests;
+
+        Transfer(long size, Duration duration, Map<String, String> digests) {
+            this.size = size;
+            this.duration = duration;
+            this.digests = digests;
+        }
+
+        double throughput() {
+            return duration.isZero() ? 0 : size / (duration.toNanos() / 1e9);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.paxovision.rest.assertions;
+
+import com.google.common.base.Preconditions;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.InvalidJsonException;
+import com.jayway.jsonpath.JsonPath;
+import com.paxovision.rest.exception.PaxoRestException;
+import com.paxovision.rest.response.EventStreamReader;
+import com.paxovision.rest.response.EventStreamReport;
+import com.paxovision.rest.response.ResponseExtractor;
+import com.paxovision.rest.response.StreamEvent;
+import com.paxovision.rest.response.StreamFormat;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import okhttp3.Call;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.assertj.core.api.IntegerAssert;
+import org.assertj.core.api.StringAssert;
+
+/**
+ *	Incremental assertions over Server-Sent Events and NDJSON streaming responses. Assertions are
+ *	registered first, then each event is checked as soon as it's received, so the streams which
+ *	never end can be tested by limiting the number of events or the time to read.
+ */
+public class EventStreamAssert implements Asserter<RestClientSoftAssertions> {
+
+    private final RestClientSoftAssertions softly;
+    private final List<Consumer<Response>> responseChecks = new ArrayList<>();
+    private final List<Consumer<StreamEvent>> eventChecks = new ArrayList<>();
+    private final List<Consumer<EventStreamReport>> reportChecks = new ArrayList<>();
+    @Nullable private StreamFormat format;
+    private int limit;
+    @Nullable private Duration deadline;
+
+    public EventStreamAssert(Configuration jsonPathConfiguration) {
+        this.softly = new RestClientSoftAssertions(jsonPathConfiguration);
+    }
+
+    /**
+     *	Sets the framing of the events, by default it's detected from the Content-Type of the
+     *	response
+     *
+     *	@param format stream format
+     *	@return self
+     */
+    public EventStreamAssert format(StreamFormat format) {
+        this.format = Preconditions.checkNotNull(format, "Stream format can't be null!");
+        return this;
+    }
+
+    /**
+     *	Stops reading after the given number of events
+     *
+     *	@param events number of the events to read
+     *	@return self
+     */
+    public EventStreamAssert limit(int events) {
+        Preconditions.checkArgument(events > 0, "Event limit must be positive!");
+        this.limit = events;
+        return this;
+    }
+
+    /**
+     *	Stops reading when the deadline is reached, the call is cancelled then. Without deadline or
+     *	limit the stream is read till the server closes it.
+     *
+     *	@param deadline time from sending the request
+     *	@return self
+     */
+    public EventStreamAssert within(Duration deadline) {
+        Preconditions.checkArgument(
+                deadline != null && !deadline.isNegative() && !deadline.isZero(), "Deadline must be positive!");
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+    *	Verifies that the status code is in [200..300)
+    *	@return self
+    */
+    public EventStreamAssert accepted() {
+        responseChecks.add(response -> softly.assertThat(response.isSuccessful()).isTrue());
+        return this;
+    }
+
+    /**
+    *	Verifies that the status code is equal to the expected one
+    *	@param responseCode expected response status code
+    *	@return self
+    */
+    public EventStreamAssert statusCode(int responseCode) {
+        responseChecks.add(response -> softly.assertThat(response.code()).isEqualTo(responseCode));
+        return this;
+    }
+
+    /**
+     *	Applies the JSON assertions to the data of each event as it's received
+     *
+     *	@param assertions to be applied
+     *	@return self
+     */
+    @SafeVarargs
+    public final EventStreamAssert eachEvent(Consumer<JsonAssert>... assertions) {
+        eventChecks.add(event -> applyJson(event, assertions));
+        return this;
+    }
+
+    /**
+     *	Applies the JSON assertions to the data of the event at the given position
+     *
+     *	@param index 0-based position of the event
+     *	@param assertions to be applied
+     *	@return self
+     */
+    @SafeVarargs
+    public final EventStreamAssert event(int index, Consumer<JsonAssert>... assertions) {
+        Preconditions.checkArgument(index >= 0, "Event index can't be negative!");
+        eventChecks.add(
+                event -> {
+                    if (event.getIndex() == index) {
+                        applyJson(event, assertions);
+                    }
+                });
+        reportChecks.add(
+                report -> {
+                    if (report.getEventCount() <= index) {
+                        softly.fail("[Event stream] Event #" + index + " was not received, " + report);
+                    }
+                });
+        return this;
+    }
+
+    /**
+     *	Applies the assertions to the raw data of each event as it's received
+     *
+     *	@param assertions to be applied
+     *	@return self
+     */
+    @SafeVarargs
+    public final EventStreamAssert eachEventData(Consumer<StringAssert>... assertions) {
+        eventChecks.add(
+                event -> Arrays.stream(assertions).forEach(assertion -> assertion.accept(softly.assertThat(event.getData()))));
+        return this;
+    }
+
+    /**
+     *	Applies the assertion to the number of the received events once reading stops
+     *
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public EventStreamAssert eventCount(Consumer<IntegerAssert> assertion) {
+        reportChecks.add(report -> assertion.accept(softly.assertThat(report.getEventCount())));
+        return this;
+    }
+
+    /** @return deadline of reading or null if not set */
+    @Nullable
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    /**
+     *	Reads the events and applies the registered assertions to each of them as it arrives.
+     *	Reading stops at the end of the stream, after the event limit or when the call is
+     *	cancelled by the deadline.
+     *
+     *	@param call call of the response, cancelled call means the deadline is reached
+     *	@param response streaming response
+     *	@param startNanos {@link System#nanoTime()} when the request was sent
+     *	@return timing of the received events
+     */
+    public EventStreamReport evaluate(Call call, Response response, long startNanos) {
+        responseChecks.forEach(check -> check.accept(response));
+        final ResponseBody body = response.body();
+        final StreamFormat streamFormat = format != null ? format : StreamFormat.of(body == null ? null : body.contentType());
+        if (body == null || streamFormat == null) {
+            softly.fail(
+                    "[Event stream] Response is not an event stream, Content-Type: "
+                            + response.header("Content-Type") + ", set the format explicitly if needed");
+            // nothing is read, so the event assertions aren't applied
+            return new EventStreamReader(new Buffer(), streamFormat, startNanos)
+                    .report(EventStreamReport.StopReason.END_OF_STREAM);
+        }
+        final EventStreamReader reader = new EventStreamReader(body.source(), streamFormat, startNanos);
+        EventStreamReport.StopReason stopReason;
+        try {
+            stopReason = read(reader);
+        } catch (IOException ex) {
+            if (!call.isCanceled()) {
+                throw new PaxoRestException("Failed to read event stream: ", ex);
+            }
+            stopReason = EventStreamReport.StopReason.DEADLINE;
+        }
+        final EventStreamReport report = reader.report(stopReason);
+        reportChecks.forEach(check -> check.accept(report));
+        return report;
+    }
+
+    private EventStreamReport.StopReason read(EventStreamReader reader) throws IOException {
+        StreamEvent event;
+        while ((event = reader.next()) != null) {
+            final StreamEvent received = event;
+            eventChecks.forEach(check -> check.accept(received));
+            if (limit > 0 && event.getIndex() + 1 >= limit) {
+                return EventStreamReport.StopReason.EVENT_LIMIT;
+            }
+        }
+        return EventStreamReport.StopReason.END_OF_STREAM;
+    }
+
+    private void applyJson(StreamEvent event, Consumer<JsonAssert>[] assertions) {
+        final DocumentContext json;
+        try {
+            json = JsonPath.using(softly.getJsonPathConfiguration()).parse(event.getData());
+        } catch (InvalidJsonException ex) {
+            softly.fail("[Event stream] Event #" + event.getIndex() + " is not a valid JSON: " + event.getData());
+            return;
+        }
+        final JsonAssert jsonAssert = softly.assertJsonPath(json, new AtomicReference<ResponseExtractor>());
+        Arrays.stream(assertions).forEach(assertion -> assertion.accept(jsonAssert));
+    }
+
+    @Override
+    public RestClientSoftAssertions getAssertions() {
+        return softly;
+    }
+}
@@ -17,7 +17,11 @@ import org.jsoup.nodes.Document;
 /** HTML assertions implementation */
 public class HtmlAssert {
 
-    private static final NumberFormat NUMBER_FORMAT = NumberFormat.getInstance(Locale.US);
+    // NumberFormat isn't thread-safe, so each thread parses with its own instance
+    private static final ThreadLocal<NumberFormat> NUMBER_FORMAT =
+            ThreadLocal.withInitial(() -> NumberFormat.getInstance(Locale.US));
+    // longer plain integers may overflow long, they're parsed by the NumberFormat
+    private static final int MAX_PLAIN_DIGITS = 18;
     private final Document actual;
     private final RestClientSoftAssertions softAssertions;
     private final AtomicReference<ResponseExtractor> responseExtractor;
@@ -26,7 +30,15 @@ public class HtmlAssert {
                String html,
                AtomicReference<ResponseExtractor> responseExtractor) {
 
-        this.actual = Jsoup.parse(html);
+        this(softAssertions, Jsoup.parse(html), responseExtractor);
+    }
+
+    // assertions on the already parsed document, shared by all the consumers of the response
+    HtmlAssert(RestClientSoftAssertions softAssertions,
+               Document actual,
+               AtomicReference<ResponseExtractor> responseExtractor) {
+
+        this.actual = actual;
         this.softAssertions = softAssertions;
         this.responseExtractor = responseExtractor;
     }
@@ -60,7 +72,7 @@ public class HtmlAssert {
      */
     public LongAssert cssSelectorAsLong(String css) {
         return softAssertions.assertThat(
-                extract(stringAsNumber(NUMBER_FORMAT, getValueUsingSelector(css)).longValue()));
+                extract(stringAsNumber(getValueUsingSelector(css)).longValue()));
     }
 
     /**
@@ -71,23 +83,51 @@ public class HtmlAssert {
      */
     public DoubleAssert cssSelectorAsDouble(String css) {
         return softAssertions.assertThat(
-                extract(stringAsNumber(NUMBER_FORMAT, getValueUsingSelector(css)).doubleValue()) );
+                extract(stringAsNumber(getValueUsingSelector(css)).doubleValue()) );
     }
 
     // use the css to get the control and extract text from it
     private String getValueUsingSelector(String css) {
-        return actual.selectFirst(css).text();
+        return actual.selectFirst(CssSelectorCache.compile(css)).text();
     }
 
-    // apply CSS selector and convert result to Number if possible
+    // convert value to Number using the default (US) format
+    private static Number stringAsNumber(String value) {
+        final Number plain = plainNumber(value);
+        return plain != null ? plain : stringAsNumber(NUMBER_FORMAT.get(), value);
+    }
+
+    // convert value to Number using given format, caller's format may be shared between threads
     private static Number stringAsNumber(NumberFormat numberFormat, String value) {
         try {
-            return numberFormat.parse(value);
+            synchronized (numberFormat) {
+                return numberFormat.parse(value);
+            }
         } catch (ParseException ex) {
             throw new PaxoRestException("Parsing failed: ", ex);
         }
     }
 
+    // fast path for the plain numbers ("-123", "12.50"), null for anything else (grouping,
+    // exponent, trailing text...)
+    private static Number plainNumber(String value) {
+        final int length = value.length();
+        final int start = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+        int dot = -1;
+        for (int i = start; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c == '.' && dot < 0) {
+                dot = i;
+            } else if (c < '0' || c > '9') {
+                return null;
+            }
+        }
+        if (dot < 0) {
+            return length > start && length - start <= MAX_PLAIN_DIGITS ? Long.parseLong(value) : null;
+        }
+        return dot > start && dot < length - 1 ? Double.parseDouble(value) : null;
+    }
+
     /** (©return HTML value extractor */
     public HtmlAssert extract() {
         responseExtractor.getAndSet(new ResponseExtractor());
@@ -123,7 +163,7 @@ public class HtmlAssert {
          */
         public LongAssert asLong() {
             return softAssertions.assertThat(
-                    extract(stringAsNumber(NUMBER_FORMAT, rawValue).longValue()));
+                    extract(stringAsNumber(rawValue).longValue()));
         }
 
         /**
@@ -138,7 +178,7 @@ public class HtmlAssert {
         /** (©return value as Double of throws the exception if parsing fails */
         public DoubleAssert asDouble() {
             return softAssertions.assertThat(
-                    extract(stringAsNumber(NUMBER_FORMAT, rawValue).doubleValue()));
+                    extract(stringAsNumber(rawValue).doubleValue()));
         }
 
         /**
@@ -1,12 +1,18 @@
 package com.paxovision.rest.assertions;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.PathNotFoundException;
 import com.jayway.jsonpath.TypeRef;
+import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 import com.paxovision.rest.response.ResponseExtractor;
 import java.math.BigDecimal;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -19,13 +25,21 @@ import org.assertj.core.api.ProxyableObjectAssert;
 import org.assertj.core.api.StringAssert;
 import org.everit.json.schema.Schema;
 import org.everit.json.schema.ValidationException;
-import org.everit.json.schema.loader.SchemaLoader;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.springframework.boot.test.json.JsonContentAssert;
 
 
 /** JSON assertions bindings for AssertJ */
 public class JsonAssert {
+
+    /** JsonPath configuration used unless the actor specifies its own: Jackson tree, no options */
+    public static final Configuration DEFAULT_CONFIGURATION =
+            Configuration.builder()
+                    .jsonProvider(new JacksonJsonNodeJsonProvider())
+                    .mappingProvider(new JacksonMappingProvider())
+                    .build();
+
     private final DocumentContext actual;
     private final RestClientSoftAssertions softAssertions;
     private final AtomicReference<ResponseExtractor> responseExtractor;
@@ -33,7 +47,15 @@ public class JsonAssert {
                String json,
                AtomicReference<ResponseExtractor> responseExtractor) {
 
-        this.actual = JsonPath.parse(json);
+        this(softAssertions, JsonPath.using(softAssertions.getJsonPathConfiguration()).parse(json), responseExtractor);
+    }
+
+    // assertions on the already parsed document, shared by all the consumers of the response
+    JsonAssert(RestClientSoftAssertions softAssertions,
+               DocumentContext actual,
+               AtomicReference<ResponseExtractor> responseExtractor) {
+
+        this.actual = actual;
         this.softAssertions = softAssertions;
         this.responseExtractor = responseExtractor;
     }
@@ -52,7 +74,7 @@ public class JsonAssert {
 
     public StringAssert jsonPathAsString(String path) {
 
-        return softAssertions.assertThat(extract(actual.read(path, String.class)));
+        return softAssertions.assertThat(extract(actual.read(JsonPathCache.compile(path), String.class)));
     }
 
     /**
@@ -66,7 +88,7 @@ public class JsonAssert {
 
         boolean present = true;
         try {
-            actual.read(path);
+            actual.read(JsonPathCache.compile(path));
         } catch (PathNotFoundException e) {
             present = false;
         }
@@ -80,7 +102,7 @@ public class JsonAssert {
      *	(©return an instance of {(©link IntegerAssert}
      */
     public IntegerAssert jsonPathAsInteger(String path) {
-        return softAssertions.assertThat(extract(actual.read(path, Integer.class)));
+        return softAssertions.assertThat(extract(actual.read(JsonPathCache.compile(path), Integer.class)));
     }
 
     /**
@@ -97,7 +119,7 @@ public class JsonAssert {
 
     public BigDecimalAssert jsonPathAsBigDecimal(String path) {
 
-        return softAssertions.assertThat(extract(actual.read(path, BigDecimal.class)));
+        return softAssertions.assertThat(extract(actual.read(JsonPathCache.compile(path), BigDecimal.class)));
     }
 
     /**
@@ -113,7 +135,7 @@ public class JsonAssert {
      */
 
     public BooleanAssert jsonPathAsBoolean(String path) {
-        return softAssertions.assertThat(extract(actual.read(path, Boolean.class)));
+        return softAssertions.assertThat(extract(actual.read(JsonPathCache.compile(path), Boolean.class)));
     }
 
     /**
@@ -126,7 +148,7 @@ public class JsonAssert {
     *	@return an instance of {@link ObjectAssert}
     */
     public <T> ProxyableObjectAssert<Object> jsonPathAs(String path, Class<T> type) {
-        return softAssertions.assertThat(extract(actual.read(path, new TypeRef<T>() {})));
+        return softAssertions.assertThat(extract(actual.read(JsonPathCache.compile(path), new TypeRef<T>() {})));
     }
 
     /**
@@ -159,7 +181,7 @@ public class JsonAssert {
     *	(©return an instance of {(©link ListAssert}
     */
     public <T> ProxyableListAssert<T> jsonPathAsListOf(String path, Class<T> type) {
-        return softAssertions.assertThat(extract(actual.read(path, new TypeRef<List<T>>() {})));
+        return softAssertions.assertThat(extract(actual.read(JsonPathCache.compile(path), new TypeRef<List<T>>() {})));
     }
 
     /**
@@ -182,27 +204,42 @@ public class JsonAssert {
     *	^return an instance of {@link org.springframework.boot.test.json.JsonContentAssert}
     */
     public JsonContentAssert jsonPathAsJSON(String path, Consumer<JsonAssert>... assertions) {
-        final String json = extract(actual.read(path).toString());
-        Stream.of(assertions)
-                .forEach(
-                        assertion ->
-                                assertion.accept(
-                                        softAssertions.assertJsonPath(json, responseExtractor)));
+        final Object value = actual.read(JsonPathCache.compile(path));
+        final String json = extract(value.toString());
+        if (assertions.length > 0) {
+            // selected node is wrapped without serializing and parsing it again
+            final JsonAssert nested =
+                    softAssertions.assertJsonPath(
+                            JsonPath.using(actual.configuration()).parse(value), responseExtractor);
+            Stream.of(assertions).forEach(assertion -> assertion.accept(nested));
+        }
         return softAssertions.assertJsonBody(json);
     }
 
     /**
      *	Extract JSON path as separate JSON object and validate against provided JSON schema
      *
-     *	@param jsonSchema for JSON validation
+     *	@param jsonSchema for JSON validation, compiled schemas are cached (see {@link
+     *	JsonSchemaCache})
      *	(©return self
      */
     public JsonAssert validateSchema(String jsonSchema) {
+        return validateSchema(JsonSchemaCache.compile(jsonSchema));
+    }
 
-        Schema schema = SchemaLoader.load(new JSONObject(jsonSchema));
-
+    /**
+     *	Validate the JSON against precompiled JSON schema
+     *
+     *	@param schema for JSON validation, i.e. {@link JsonSchemaCache#compile(String)} result
+     *	@return self
+     */
+    public JsonAssert validateSchema(Schema schema) {
+        if (responseExtractor.get() != null) {
+            extract(actual.jsonString());
+        }
         try {
-            schema.validate(new JSONObject(extract(actual.jsonString())));
+            // parsed document is converted to the org.json values directly, without the JSON text
+            schema.validate(toSchemaSubject(actual.json()));
         } catch (ValidationException ex) {
             softAssertions.fail("[JSON Schema] " + ex.getMessage());
         }
@@ -215,6 +252,38 @@ public class JsonAssert {
         return this;
     }
 
+    // converts Jackson tree (or Map/List of other JSON providers) to the org.json values
+    private static Object toSchemaSubject(Object value) {
+        if (!(value instanceof JsonNode)) {
+            return JSONObject.wrap(value);
+        }
+        final JsonNode node = (JsonNode) value;
+        if (node.isObject()) {
+            final JSONObject object = new JSONObject();
+            final Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                final Map.Entry<String, JsonNode> field = fields.next();
+                object.put(field.getKey(), toSchemaSubject(field.getValue()));
+            }
+            return object;
+        }
+        if (node.isArray()) {
+            final JSONArray array = new JSONArray();
+            node.forEach(element -> array.put(toSchemaSubject(element)));
+            return array;
+        }
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        if (node.isNull() || node.isMissingNode()) {
+            return JSONObject.NULL;
+        }
+        return node.asText();
+    }
+
     private <T> T extract(T value) {
         final ResponseExtractor extractor = responseExtractor.get();
         if (extractor != null) {
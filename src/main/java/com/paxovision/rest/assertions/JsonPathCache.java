@@ -0,0 +1,40 @@
+package com.paxovision.rest.assertions;
+
+import com.google.common.cache.CacheStats;
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ *	LRU cache of the compiled {@link JsonPath} expressions shared by all the {@link JsonAssert}
+ *	instances. Compiled path doesn't depend on the JsonPath configuration, so it's shared by all
+ *	the actors.
+ */
+public final class JsonPathCache {
+
+    /** Maximum number of the compiled paths kept in the cache */
+    public static final int MAXIMUM_SIZE = 1024;
+
+    private static final CompiledCache<String, JsonPath> CACHE = new CompiledCache<>(MAXIMUM_SIZE);
+
+    private JsonPathCache() {
+    }
+
+    /**
+     *	Returns compiled path, compiling it on the first use
+     *
+     *	@param path JsonPath expression
+     *	@return compiled JsonPath
+     */
+    public static JsonPath compile(String path) {
+        return CACHE.get(path, () -> JsonPath.compile(path));
+    }
+
+    /** @return hit/miss statistics of the cache */
+    public static CacheStats stats() {
+        return CACHE.stats();
+    }
+
+    /** @return number of the compiled paths in the cache */
+    public static long size() {
+        return CACHE.size();
+    }
+}
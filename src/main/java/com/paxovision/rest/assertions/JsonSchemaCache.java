@@ -0,0 +1,48 @@
+package com.paxovision.rest.assertions;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.loader.SchemaLoader;
+import org.json.JSONObject;
+
+/**
+ *	LRU cache of the compiled JSON schemas used by {@link JsonAssert#validateSchema(String)}, keyed
+ *	by SHA-256 hash of the schema text. Compiled {@link Schema} is immutable and may be shared by
+ *	all the actors and threads.
+ */
+public final class JsonSchemaCache {
+
+    /** Maximum number of the compiled schemas kept in the cache */
+    public static final int MAXIMUM_SIZE = 256;
+
+    private static final CompiledCache<HashCode, Schema> CACHE = new CompiledCache<>(MAXIMUM_SIZE);
+
+    private JsonSchemaCache() {
+    }
+
+    /**
+     *	Returns compiled schema, compiling it on the first use. The result may be kept and passed to
+     *	{@link JsonAssert#validateSchema(Schema)} to skip hashing of the schema text.
+     *
+     *	@param jsonSchema JSON schema text
+     *	@return compiled schema
+     */
+    public static Schema compile(String jsonSchema) {
+        return CACHE.get(
+                Hashing.sha256().hashString(jsonSchema, StandardCharsets.UTF_8),
+                () -> SchemaLoader.load(new JSONObject(jsonSchema)));
+    }
+
+    /** @return hit/miss statistics of the cache */
+    public static CacheStats stats() {
+        return CACHE.stats();
+    }
+
+    /** @return number of the compiled schemas in the cache */
+    public static long size() {
+        return CACHE.size();
+    }
+}
@@ -0,0 +1,340 @@
+package com.paxovision.rest.assertions;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.google.common.collect.ImmutableList;
+import com.paxovision.rest.exception.PaxoRestException;
+import com.paxovision.rest.response.ResponseExtractor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.assertj.core.api.BigDecimalAssert;
+import org.assertj.core.api.BooleanAssert;
+import org.assertj.core.api.IntegerAssert;
+import org.assertj.core.api.ProxyableListAssert;
+import org.assertj.core.api.ProxyableObjectAssert;
+import org.assertj.core.api.StringAssert;
+
+/**
+ *	Streaming JSON assertions for large bodies. Assertions are registered first, then the body is
+ *	read once by the Jackson streaming parser directly from the response source: only the values
+ *	selected by the registered paths are materialized, all the other elements are skipped. Paths
+ *	are limited to fields, array indices and wildcards (see {@link JsonStreamPath}).
+ */
+public class JsonStreamAssert {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final RestClientSoftAssertions softAssertions;
+    private final AtomicReference<ResponseExtractor> responseExtractor;
+    private final List<Expectation> expectations = new ArrayList<>();
+    // value of the next registered path is extracted
+    private boolean extractNext;
+
+    JsonStreamAssert(RestClientSoftAssertions softAssertions, AtomicReference<ResponseExtractor> responseExtractor) {
+        this.softAssertions = softAssertions;
+        this.responseExtractor = responseExtractor;
+    }
+
+    /**
+     *	Extracts a JSON text using a definite path and wrap it in a {@link StringAssert}
+     *
+     *	@param path JsonPath to extract the string
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public JsonStreamAssert jsonPathAsString(String path, Consumer<StringAssert> assertion) {
+        return expectValue(path, String.class, value -> assertion.accept(softAssertions.assertThat(value)));
+    }
+
+    /**
+     *	Extracts a JSON number using a definite path and wrap it in an {@link IntegerAssert}
+     *
+     *	@param path JsonPath to extract the number
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public JsonStreamAssert jsonPathAsInteger(String path, Consumer<IntegerAssert> assertion) {
+        return expectValue(path, Integer.class, value -> assertion.accept(softAssertions.assertThat(value)));
+    }
+
+    /**
+     *	Extracts a JSON number using a definite path and wrap it in a {@link BigDecimalAssert}
+     *
+     *	@param path JsonPath to extract the number
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public JsonStreamAssert jsonPathAsBigDecimal(String path, Consumer<BigDecimalAssert> assertion) {
+        return expectValue(path, BigDecimal.class, value -> assertion.accept(softAssertions.assertThat(value)));
+    }
+
+    /**
+     *	Extracts a JSON Boolean using a definite path and wrap it in a {@link BooleanAssert}
+     *
+     *	@param path JsonPath to extract the Boolean
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public JsonStreamAssert jsonPathAsBoolean(String path, Consumer<BooleanAssert> assertion) {
+        return expectValue(path, Boolean.class, value -> assertion.accept(softAssertions.assertThat(value)));
+    }
+
+    /**
+     *	Extracts any JSON type using a definite path and wrap it in a {@link ProxyableObjectAssert}
+     *
+     *	@param <T> the type to convert the value to
+     *	@param path JsonPath to extract the value
+     *	@param type the type to convert the value to, i.e.: {@link String}, {@link Map}
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public <T> JsonStreamAssert jsonPathAs(
+            String path, Class<T> type, Consumer<ProxyableObjectAssert<T>> assertion) {
+        return expectValue(path, type, value -> assertion.accept(softAssertions.assertThat(value)));
+    }
+
+    /**
+     *	Extracts a list using a JsonPath and wrap it in a {@link ProxyableListAssert}. Definite path
+     *	must select JSON array, path with wildcards selects all the matching values.
+     *
+     *	@param <T> the type of the list elements
+     *	@param path JsonPath to extract the list
+     *	@param type the type to convert the elements to, i.e.: {@link String}, {@link Integer}
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public <T> JsonStreamAssert jsonPathAsListOf(
+            String path, Class<T> type, Consumer<ProxyableListAssert<T>> assertion) {
+        final JsonStreamPath streamPath = JsonStreamPath.parse(path);
+        expectations.add(
+                new Expectation(
+                        streamPath,
+                        false,
+                        expectation -> {
+                            final List<T> values;
+                            if (streamPath.isDefinite()) {
+                                if (expectation.values.isEmpty()) {
+                                    notFound(streamPath);
+                                    return;
+                                }
+                                values =
+                                        MAPPER.convertValue(
+                                                expectation.values.get(0),
+                                                MAPPER.getTypeFactory().constructCollectionType(List.class, type));
+                            } else {
+                                values =
+                                        expectation.values.stream()
+                                                .map(node -> MAPPER.convertValue(node, type))
+                                                .collect(Collectors.toList());
+                            }
+                            assertion.accept(softAssertions.assertThat(expectation.extract(values)));
+                        }));
+        return this;
+    }
+
+    /**
+     *	Counts the values selected by the JsonPath and wrap the count in an {@link IntegerAssert}.
+     *	Counted values are skipped without being materialized.
+     *
+     *	@param path JsonPath to count, i.e.: {@code $.items[*]}
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public JsonStreamAssert jsonPathCount(String path, Consumer<IntegerAssert> assertion) {
+        expectations.add(
+                new Expectation(
+                        JsonStreamPath.parse(path),
+                        true,
+                        expectation ->
+                                assertion.accept(softAssertions.assertThat(expectation.extract((int) expectation.count)))));
+        return this;
+    }
+
+    /**
+     *	Checks the JsonPath for existence and wrap the result in a {@link BooleanAssert}
+     *
+     *	@param path JsonPath to check for existence
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public JsonStreamAssert jsonPathPresent(String path, Consumer<BooleanAssert> assertion) {
+        expectations.add(
+                new Expectation(
+                        JsonStreamPath.parse(path),
+                        true,
+                        expectation ->
+                                assertion.accept(
+                                        softAssertions
+                                                .assertThat(expectation.extract(expectation.count > 0))
+                                                .as("JSON path '" + path + "' is present"))));
+        return this;
+    }
+
+    /** @return JSON value extractor, value of the next registered path is extracted */
+    public JsonStreamAssert extract() {
+        responseExtractor.getAndSet(new ResponseExtractor());
+        extractNext = true;
+        return this;
+    }
+
+    /**
+     *	Reads the body and applies all the registered assertions
+     *
+     *	@param body JSON body stream, closed when read
+     */
+    void evaluate(InputStream body) {
+        try (JsonParser parser = MAPPER.getFactory().createParser(body)) {
+            if (parser.nextToken() != null) {
+                readValue(parser, expectations, 0);
+            }
+        } catch (IOException ex) {
+            throw new PaxoRestException("Failed to read response body as JSON stream: ", ex);
+        }
+        expectations.forEach(expectation -> expectation.verifier.accept(expectation));
+    }
+
+    private <T> JsonStreamAssert expectValue(String path, Class<T> type, Consumer<T> verifier) {
+        final JsonStreamPath streamPath = JsonStreamPath.parse(path);
+        if (!streamPath.isDefinite()) {
+            throw new IllegalArgumentException(
+                    "JSON path '" + path + "' selects multiple values, use jsonPathAsListOf instead!");
+        }
+        expectations.add(
+                new Expectation(
+                        streamPath,
+                        false,
+                        expectation -> {
+                            if (expectation.values.isEmpty()) {
+                                notFound(streamPath);
+                            } else {
+                                verifier.accept(expectation.extract(MAPPER.convertValue(expectation.values.get(0), type)));
+                            }
+                        }));
+        return this;
+    }
+
+    private void notFound(JsonStreamPath path) {
+        softAssertions.fail("[JSON stream] No results for path: " + path);
+    }
+
+    // parser is at the first token of the value, candidates match the location of the value
+    private static void readValue(JsonParser parser, List<Expectation> candidates, int depth) throws IOException {
+        final List<Expectation> complete = new ArrayList<>();
+        final List<Expectation> deeper = new ArrayList<>();
+        for (Expectation candidate : candidates) {
+            if (candidate.path.depth() != depth) {
+                deeper.add(candidate);
+            } else if (candidate.countOnly) {
+                // value itself is not needed, deeper paths keep streaming
+                candidate.count++;
+            } else {
+                complete.add(candidate);
+            }
+        }
+
+        if (!complete.isEmpty()) {
+            final JsonNode tree = parser.readValueAsTree();
+            final JsonNode node = tree == null ? NullNode.getInstance() : tree;
+            complete.forEach(expectation -> expectation.add(node));
+            // selected value is consumed, deeper paths are evaluated on its tree
+            deeper.forEach(expectation -> collect(node, expectation, depth));
+            return;
+        }
+
+        final JsonToken token = parser.currentToken();
+        if (deeper.isEmpty() || !token.isStructStart()) {
+            parser.skipChildren();
+        } else if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                parser.nextToken();
+                readValue(parser, matching(deeper, depth, name), depth + 1);
+            }
+        } else {
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                readValue(parser, matching(deeper, depth, index++), depth + 1);
+            }
+        }
+    }
+
+    private static List<Expectation> matching(List<Expectation> candidates, int depth, Object key) {
+        List<Expectation> matching = ImmutableList.of();
+        for (Expectation candidate : candidates) {
+            if (candidate.path.matches(depth, key)) {
+                if (matching.isEmpty()) {
+                    matching = new ArrayList<>(candidates.size());
+                }
+                matching.add(candidate);
+            }
+        }
+        return matching;
+    }
+
+    // evaluates rest of the path on the materialized value
+    private static void collect(JsonNode node, Expectation expectation, int depth) {
+        if (depth == expectation.path.depth()) {
+            expectation.add(node);
+        } else if (node.isObject()) {
+            final Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                final Map.Entry<String, JsonNode> field = fields.next();
+                if (expectation.path.matches(depth, field.getKey())) {
+                    collect(field.getValue(), expectation, depth + 1);
+                }
+            }
+        } else if (node.isArray()) {
+            for (int index = 0; index < node.size(); index++) {
+                if (expectation.path.matches(depth, index)) {
+                    collect(node.get(index), expectation, depth + 1);
+                }
+            }
+        }
+    }
+
+    // path registered by an assertion and the values selected by it
+    private final class Expectation {
+
+        private final JsonStreamPath path;
+        // only the count is needed, values are not materialized
+        private final boolean countOnly;
+        private final Consumer<Expectation> verifier;
+        private final boolean extracting;
+        private final List<JsonNode> values = new ArrayList<>();
+        private long count;
+
+        Expectation(JsonStreamPath path, boolean countOnly, Consumer<Expectation> verifier) {
+            this.path = path;
+            this.countOnly = countOnly;
+            this.verifier = verifier;
+            this.extracting = extractNext;
+            extractNext = false;
+        }
+
+        void add(JsonNode node) {
+            count++;
+            if (!countOnly) {
+                values.add(node);
+            }
+        }
+
+        <T> T extract(T value) {
+            final ResponseExtractor extractor = responseExtractor.get();
+            if (extracting && extractor != null) {
+                extractor.setValue(value);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.paxovision.rest.assertions;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+
+/**
+ *	Subset of the JsonPath syntax evaluated by {@link JsonStreamAssert} in single pass over the
+ *	streaming parser: root ({@code $}), fields ({@code .name}, {@code ['name']}), array indices
+ *	({@code [0]}) and wildcards ({@code .*}, {@code [*]}). Deep scan, filters, slices and unions
+ *	are not supported.
+ */
+final class JsonStreamPath {
+
+    // wildcard segment, matches any field or array element
+    private static final Object WILDCARD = new Object();
+
+    private final String path;
+    // field names (String), array indices (Integer) or WILDCARD
+    private final List<Object> segments;
+    private final boolean definite;
+
+    private JsonStreamPath(String path, List<Object> segments) {
+        this.path = path;
+        this.segments = segments;
+        this.definite = !segments.contains(WILDCARD);
+    }
+
+    /**
+     *	@param path JsonPath expression
+     *	@return parsed path
+     *	@throws IllegalArgumentException if the path uses syntax not supported in streaming mode
+     */
+    static JsonStreamPath parse(String path) {
+        if (path == null || !path.startsWith("$")) {
+            throw unsupported(path);
+        }
+        final ImmutableList.Builder<Object> segments = ImmutableList.builder();
+        int position = 1;
+        while (position < path.length()) {
+            final char c = path.charAt(position);
+            if (c == '.') {
+                int end = position + 1;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                final String name = path.substring(position + 1, end);
+                if (name.isEmpty()) {
+                    // deep scan
+                    throw unsupported(path);
+                }
+                segments.add("*".equals(name) ? WILDCARD : name);
+                position = end;
+            } else if (c == '[') {
+                final int end = path.indexOf(']', position);
+                if (end < 0) {
+                    throw unsupported(path);
+                }
+                segments.add(parseBracket(path, path.substring(position + 1, end).trim()));
+                position = end + 1;
+            } else {
+                throw unsupported(path);
+            }
+        }
+        return new JsonStreamPath(path, segments.build());
+    }
+
+    private static Object parseBracket(String path, String content) {
+        if ("*".equals(content)) {
+            return WILDCARD;
+        }
+        if (content.length() >= 2
+                && (content.charAt(0) == '\'' || content.charAt(0) == '"')
+                && content.charAt(content.length() - 1) == content.charAt(0)) {
+            return content.substring(1, content.length() - 1);
+        }
+        try {
+            final int index = Integer.parseInt(content);
+            if (index >= 0) {
+                return index;
+            }
+        } catch (NumberFormatException ex) {
+            // filters, slices and unions
+        }
+        throw unsupported(path);
+    }
+
+    private static IllegalArgumentException unsupported(String path) {
+        return new IllegalArgumentException(
+                "JSON path '" + path + "' is not supported in streaming mode, only fields, array indices and "
+                        + "wildcards are!");
+    }
+
+    /** @return number of segments after the root */
+    int depth() {
+        return segments.size();
+    }
+
+    /** @return true if the path selects at most one value (no wildcards) */
+    boolean isDefinite() {
+        return definite;
+    }
+
+    /**
+     *	@param depth segment number
+     *	@param key field name (String) or array index (Integer) at the given depth
+     *	@return true if the segment matches the key
+     */
+    boolean matches(int depth, Object key) {
+        final Object segment = segments.get(depth);
+        return segment == WILDCARD || segment.equals(key);
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
@@ -1,15 +1,37 @@
 package com.paxovision.rest.assertions;
 
+import com.google.common.base.Preconditions;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
 import com.paxovision.rest.response.ResponseExtractor;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 import org.assertj.core.api.SoftAssertions;
+import org.jsoup.nodes.Document;
+import org.w3c.dom.Node;
 import org.springframework.boot.test.json.JsonContentAssert;
 import org.xmlunit.assertj.XMLAssert;
 
 /** AssertJ Soft Assertions for {@link com.paxovision.rest.actor.RestClientActor} */
 public class RestClientSoftAssertions extends SoftAssertions {
 
+    private final Configuration jsonPathConfiguration;
+
+    public RestClientSoftAssertions() {
+        this(JsonAssert.DEFAULT_CONFIGURATION);
+    }
+
+    /** @param jsonPathConfiguration configuration of the JsonPath used by {@link JsonAssert} */
+    public RestClientSoftAssertions(Configuration jsonPathConfiguration) {
+        this.jsonPathConfiguration =
+                Preconditions.checkNotNull(jsonPathConfiguration, "JsonPath configuration can't be null!");
+    }
+
+    /** @return configuration of the JsonPath used by {@link JsonAssert} */
+    public Configuration getJsonPathConfiguration() {
+        return jsonPathConfiguration;
+    }
+
     /**
      *	Returns {@link HeaderAssert} assertions for the Map value
      *
@@ -33,6 +55,17 @@ public class RestClientSoftAssertions extends SoftAssertions {
         return new HtmlAssert(this, htmlBody, responseExtractor);
     }
 
+    /**
+     *	Returns {@link com.paxovision.rest.assertions.HtmlAssert} assertions for the parsed document
+     *
+     *	@param htmlDocument parsed HTML document
+     *	@param responseExtractor response extractor
+     *	@return {@link com.paxovision.rest.assertions.HtmlAssert}
+     */
+    public HtmlAssert assertHtml(Document htmlDocument, AtomicReference<ResponseExtractor> responseExtractor) {
+        return new HtmlAssert(this, htmlDocument, responseExtractor);
+    }
+
     /**
     *	Returns {@link org.xmlunit.assertj.XMLAssert} assertions for the String value
     *
@@ -43,6 +76,16 @@ public class RestClientSoftAssertions extends SoftAssertions {
         return proxy(XMLAssert.class, Object.class, xmlBody);
     }
 
+    /**
+    *	Returns {@link org.xmlunit.assertj.XMLAssert} assertions for the parsed DOM
+    *
+    *	@param xmlNode parsed XML document or node
+    *	@return {@link org.xmlunit.assertj.XMLAssert} assertions proxy
+    */
+    public XMLAssert assertXPath(Node xmlNode) {
+        return proxy(XMLAssert.class, Object.class, xmlNode);
+    }
+
     /**
     *	Returns {@link com.paxovision.rest.assertions.JsonAssert} assertions for the String value
     *
@@ -54,6 +97,49 @@ public class RestClientSoftAssertions extends SoftAssertions {
         return new JsonAssert(this, jsonBody, responseExtractor);
     }
 
+    /**
+    *	Returns {@link com.paxovision.rest.assertions.JsonAssert} assertions for the parsed document
+    *
+    *	@param jsonDocument parsed JSON document
+    *	@param responseExtractor response extractor
+    *	@return {@link com.paxovision.rest.assertions.JsonAssert} assertions
+    */
+    public JsonAssert assertJsonPath(DocumentContext jsonDocument, AtomicReference<ResponseExtractor> responseExtractor) {
+        return new JsonAssert(this, jsonDocument, responseExtractor);
+    }
+
+    /**
+    *	Returns {@link com.paxovision.rest.assertions.JsonStreamAssert} assertions, which are applied
+    *	when the JSON body is read
+    *
+    *	@param responseExtractor response extractor
+    *	@return {@link com.paxovision.rest.assertions.JsonStreamAssert} assertions
+    */
+    public JsonStreamAssert assertJsonStream(AtomicReference<ResponseExtractor> responseExtractor) {
+        return new JsonStreamAssert(this, responseExtractor);
+    }
+
+    /**
+    *	Returns {@link com.paxovision.rest.assertions.XmlStreamAssert} assertions, which are applied
+    *	when the XML body is read
+    *
+    *	@param responseExtractor response extractor
+    *	@return {@link com.paxovision.rest.assertions.XmlStreamAssert} assertions
+    */
+    public XmlStreamAssert assertXmlStream(AtomicReference<ResponseExtractor> responseExtractor) {
+        return new XmlStreamAssert(this, responseExtractor);
+    }
+
+    /**
+    *	Returns {@link com.paxovision.rest.assertions.DownloadAssert} assertions, which are applied
+    *	when the body is downloaded
+    *
+    *	@return {@link com.paxovision.rest.assertions.DownloadAssert} assertions
+    */
+    public DownloadAssert assertDownload() {
+        return new DownloadAssert(this);
+    }
+
     /**
     *	Returns {@link org.springframework.boot.test.json.JsonContentAssert} assertions for the String value
     *
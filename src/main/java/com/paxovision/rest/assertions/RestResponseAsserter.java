@@ -2,17 +2,24 @@ package com.paxovision.rest.assertions;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.jayway.jsonpath.Configuration;
 import com.paxovision.rest.exception.PaxoRestException;
+import com.paxovision.rest.response.ReplayableResponseBody;
 import com.paxovision.rest.response.ResponseExtractor;
 //import com.mlp.raptor.asserter.Asserter;
 import org.xmlunit.assertj.XMLAssert;
 
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import org.w3c.dom.Node;
 
 
 import java.util.Map;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -30,13 +37,40 @@ public class RestResponseAsserter implements Asserter<RestClientSoftAssertions>
 
     private final Response response;
     private final AtomicReference<ResponseExtractor> responseExtractor;
-    private final RestClientSoftAssertions softly = new RestClientSoftAssertions();
+    private final RestClientSoftAssertions softly;
     private final ResponseBody responseBody;
+    private final long bodySpillThreshold;
+    // body and its parsed forms are read once and shared by all the consumers of the response
+    private ReplayableResponseBody bufferedBody;
+    // file the body was streamed to, if it was downloaded before being buffered
+    private Path downloadedFile;
+    // true if the body was streamed to the stream assertions before being buffered
+    private boolean bodyStreamed;
+    private JsonAssert jsonAssert;
+    private HtmlAssert htmlAssert;
+    private Object xmlDocument;
 
     public RestResponseAsserter( Response response, AtomicReference<ResponseExtractor> responseExtractor) {
+        this(response, responseExtractor, JsonAssert.DEFAULT_CONFIGURATION);
+    }
+
+    public RestResponseAsserter(
+            Response response,
+            AtomicReference<ResponseExtractor> responseExtractor,
+            Configuration jsonPathConfiguration) {
+        this(response, responseExtractor, jsonPathConfiguration, ReplayableResponseBody.DEFAULT_SPILL_THRESHOLD);
+    }
+
+    public RestResponseAsserter(
+            Response response,
+            AtomicReference<ResponseExtractor> responseExtractor,
+            Configuration jsonPathConfiguration,
+            long bodySpillThreshold) {
         this.response = response;
         this.responseBody = response.body();
         this.responseExtractor = responseExtractor;
+        this.softly = new RestClientSoftAssertions(jsonPathConfiguration);
+        this.bodySpillThreshold = bodySpillThreshold;
     }
 
     /**
@@ -171,11 +205,35 @@ public class RestResponseAsserter implements Asserter<RestClientSoftAssertions>
         return assertStringBody(
                 bodyStr -> {
                     extract(bodyStr);
+                    final Object xml = xmlDocument(bodyStr);
                     Stream.of(assertions)
-                            .forEach(assertion -> assertion.accept(softly.assertXPath(bodyStr)));
+                            .forEach(
+                                    assertion ->
+                                            assertion.accept(
+                                                    xml instanceof Node
+                                                            ? softly.assertXPath((Node) xml)
+                                                            : softly.assertXPath(bodyStr)));
                 });
     }
 
+    /**
+    * Apply streaming assertions for large XML body. The body is read by StAX without building
+    * DOM, straight from the network unless it was read by other body assertions before, so it
+    * can't be asserted again afterwards.
+    *	@param assertions to be registered, they are applied once the body is read
+    *	@return self
+    */
+    @SafeVarargs
+    public final RestResponseAsserter bodyAsXMLStream(Consumer<XmlStreamAssert>... assertions) {
+        softly.assertThat(responseBody).isNotNull();
+        if (responseBody != null) {
+            final XmlStreamAssert streamAssert = softly.assertXmlStream(responseExtractor);
+            Stream.of(assertions).forEach(assertion -> assertion.accept(streamAssert));
+            streamAssert.evaluate(bodyStream());
+        }
+        return this;
+    }
+
     /**
     * Apply custom assertions for body as DSON
     *	@param assertions to be applied
@@ -186,15 +244,28 @@ public class RestResponseAsserter implements Asserter<RestClientSoftAssertions>
         return assertStringBody(
                 bodyStr -> {
                     extract(bodyStr);
-                    Stream.of(assertions)
-                            .forEach(
-                                    assertion ->
-                                            assertion.accept(
-                                                    softly.assertJsonPath(
-                                                            bodyStr, responseExtractor)));
+                    final JsonAssert json = jsonAssert(bodyStr);
+                    Stream.of(assertions).forEach(assertion -> assertion.accept(json));
                 });
+    }
 
-
+    /**
+    * Apply streaming assertions for large JSON body. The body is read without building the tree,
+    * straight from the network unless it was read by other body assertions before, so it can't be
+    * asserted again afterwards. Only the values selected by the assertions' paths are kept in
+    * memory.
+    *	@param assertions to be registered, they are applied once the body is read
+    *	@return self
+    */
+    @SafeVarargs
+    public final RestResponseAsserter bodyAsJSONStream(Consumer<JsonStreamAssert>... assertions) {
+        softly.assertThat(responseBody).isNotNull();
+        if (responseBody != null) {
+            final JsonStreamAssert streamAssert = softly.assertJsonStream(responseExtractor);
+            Stream.of(assertions).forEach(assertion -> assertion.accept(streamAssert));
+            streamAssert.evaluate(bodyStream());
+        }
+        return this;
     }
 
     /**
@@ -208,13 +279,8 @@ public class RestResponseAsserter implements Asserter<RestClientSoftAssertions>
         return assertStringBody(
                 bodyStr -> {
                     extract(bodyStr);
-                    Stream.of(assertions)
-                            .forEach(
-                                    assertion ->
-                                            assertion.accept(
-                                                    softly.assertHtml(bodyStr, responseExtractor)));
-
-
+                    final HtmlAssert html = htmlAssert(bodyStr);
+                    Stream.of(assertions).forEach(assertion -> assertion.accept(html));
                 });
     }
 
@@ -238,6 +304,32 @@ public class RestResponseAsserter implements Asserter<RestClientSoftAssertions>
                 });
     }
 
+    /**
+    * Streams the body to the file and applies the assertions on the download. The body is
+    * transferred in large chunks without loading it into heap, digest and size are computed on the
+    * way. Other body assertions of the response map the file. Send the request {@code
+    * withStreamingResponse()}, so the body is neither logged nor shared by the request coalescer.
+    *	@param file target file, created or truncated
+    *	@param assertions to be registered, they are applied once the body is downloaded
+    *	@return self
+    */
+    @SafeVarargs
+    public final RestResponseAsserter downloadTo(Path file, Consumer<DownloadAssert>... assertions) {
+        softly.assertThat(responseBody).isNotNull();
+        if (responseBody != null) {
+            final DownloadAssert download = softly.assertDownload();
+            Stream.of(assertions).forEach(assertion -> assertion.accept(download));
+            if (bufferedBody != null || downloadedFile != null) {
+                download.evaluate(Channels.newChannel(body().inputStream()), file);
+            } else {
+                download.evaluate(responseBody.source(), file);
+                downloadedFile = file;
+            }
+            extract(file);
+        }
+        return this;
+    }
+
     /**
      * Converts byte[] body to the requested type using given factory function
      *	@param <T> type of the object to convert byte[] body into
@@ -252,25 +344,78 @@ public class RestResponseAsserter implements Asserter<RestClientSoftAssertions>
     }
 
 
+    // body read from the source on the first use and replayed by all the body assertions
+    private ReplayableResponseBody body() {
+        if (bodyStreamed) {
+            throw new PaxoRestException("Response body was streamed and can't be read again, assert it before streaming");
+        }
+        if (bufferedBody == null) {
+            try {
+                bufferedBody =
+                        downloadedFile == null
+                                ? ReplayableResponseBody.read(responseBody, bodySpillThreshold)
+                                : ReplayableResponseBody.map(downloadedFile, responseBody.contentType());
+            } catch (IOException ex) {
+                throw new PaxoRestException("Failed to read response body: ", ex);
+            }
+        }
+        return bufferedBody;
+    }
+
+    // body stream read straight from the network or the downloaded file unless the body is
+    // buffered already
+    private InputStream bodyStream() {
+        if (bufferedBody != null || bodyStreamed) {
+            return body().inputStream();
+        }
+        if (downloadedFile != null) {
+            try {
+                return Files.newInputStream(downloadedFile);
+            } catch (IOException ex) {
+                throw new PaxoRestException("Failed to read downloaded response body: ", ex);
+            }
+        }
+        bodyStreamed = true;
+        return responseBody.byteStream();
+    }
+
     /** @return response body as String */
     private String bodyAsString() {
+        return responseBody == null ? null : body().string();
+    }
 
-        try {
-            return responseBody.string();
-        } catch (IOException ex) {
-            throw new PaxoRestException("Failed to retrieve response body as string: ", ex);
+    // JSON body parsed on the first use
+    private JsonAssert jsonAssert(String body) {
+        if (jsonAssert == null) {
+            jsonAssert = softly.assertJsonPath(body, responseExtractor);
         }
+        return jsonAssert;
     }
 
-    /** @return response body as byte[] */
-
-    private byte[] bodyAsByteArray() {
-        try {
-            return responseBody.bytes();
+    // HTML body parsed on the first use
+    private HtmlAssert htmlAssert(String body) {
+        if (htmlAssert == null) {
+            htmlAssert = softly.assertHtml(body, responseExtractor);
+        }
+        return htmlAssert;
+    }
 
-        } catch (IOException ex) {
-            throw new PaxoRestException("Failed to retrieve response body as byte[]: ", ex);
+    // XML body parsed to DOM on the first use, malformed body is kept as String so the assertions
+    // report the parsing error
+    private Object xmlDocument(String body) {
+        if (xmlDocument == null) {
+            try {
+                xmlDocument = XmlSupport.parse(body);
+            } catch (PaxoRestException ex) {
+                xmlDocument = body;
+            }
         }
+        return xmlDocument;
+    }
+
+    /** @return response body as byte[] */
+    private byte[] bodyAsByteArray() {
+        return responseBody == null ? null : body().bytes();
     }
 
     /** @return JSON value extractor */
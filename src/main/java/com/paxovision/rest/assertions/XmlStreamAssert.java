@@ -0,0 +1,337 @@
+package com.paxovision.rest.assertions;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.paxovision.rest.exception.PaxoRestException;
+import com.paxovision.rest.response.ResponseExtractor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.assertj.core.api.IntegerAssert;
+import org.assertj.core.api.ProxyableListAssert;
+import org.assertj.core.api.StringAssert;
+
+/**
+ *	Streaming XML assertions for large bodies. Assertions are registered first, then the body is
+ *	read once by the StAX reader directly from the response source, without building DOM: only the
+ *	values selected by the registered paths are kept, counted paths keep nothing. Paths are limited
+ *	to absolute child steps (see {@link XmlStreamPath}).
+ */
+public class XmlStreamAssert {
+
+    // configured factory is thread-safe, external entities and DTDs are disabled
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private final RestClientSoftAssertions softAssertions;
+    private final AtomicReference<ResponseExtractor> responseExtractor;
+    private final List<Registration> registrations = new ArrayList<>();
+    private Map<String, String> prefix2Uri = ImmutableMap.of();
+    // value of the next registered path is extracted
+    private boolean extractNext;
+
+    XmlStreamAssert(RestClientSoftAssertions softAssertions, AtomicReference<ResponseExtractor> responseExtractor) {
+        this.softAssertions = softAssertions;
+        this.responseExtractor = responseExtractor;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     *	@param prefix2Uri namespace prefixes used in the paths, applies to all the paths
+     *	@return self
+     */
+    public XmlStreamAssert withNamespaceContext(Map<String, String> prefix2Uri) {
+        this.prefix2Uri = ImmutableMap.copyOf(prefix2Uri);
+        return this;
+    }
+
+    /**
+     *	Extracts the text of the first element (or attribute value) selected by the XPath and wrap
+     *	it in a {@link StringAssert}
+     *
+     *	@param xPath XPath to extract the value
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public XmlStreamAssert valueByXPath(String xPath, Consumer<StringAssert> assertion) {
+        registrations.add(
+                new Registration(
+                        xPath,
+                        false,
+                        expectation -> {
+                            if (expectation.values.isEmpty()) {
+                                softAssertions.fail("[XML stream] No results for XPath: " + xPath);
+                            } else {
+                                assertion.accept(
+                                        softAssertions.assertThat(expectation.extract(expectation.values.get(0))));
+                            }
+                        }));
+        return this;
+    }
+
+    /**
+     *	Extracts the texts of all the elements (or attribute values) selected by the XPath and wrap
+     *	them in a {@link ProxyableListAssert}
+     *
+     *	@param xPath XPath to extract the values
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public XmlStreamAssert valuesByXPath(String xPath, Consumer<ProxyableListAssert<String>> assertion) {
+        registrations.add(
+                new Registration(
+                        xPath,
+                        false,
+                        expectation -> assertion.accept(softAssertions.assertThat(expectation.extract(expectation.values)))));
+        return this;
+    }
+
+    /**
+     *	Counts the elements (or attributes) selected by the XPath and wrap the count in an {@link
+     *	IntegerAssert}. Counted elements are not kept in memory.
+     *
+     *	@param xPath XPath to count, i.e.: {@code /feed/entry}
+     *	@param assertion to be applied
+     *	@return self
+     */
+    public XmlStreamAssert countByXPath(String xPath, Consumer<IntegerAssert> assertion) {
+        registrations.add(
+                new Registration(
+                        xPath,
+                        true,
+                        expectation ->
+                                assertion.accept(softAssertions.assertThat(expectation.extract((int) expectation.count)))));
+        return this;
+    }
+
+    /**
+     *	Verifies that the XPath selects at least one element (or attribute)
+     *
+     *	@param xPath XPath to check for existence
+     *	@return self
+     */
+    public XmlStreamAssert hasXPath(String xPath) {
+        registrations.add(
+                new Registration(
+                        xPath,
+                        true,
+                        expectation ->
+                                softAssertions
+                                        .assertThat(expectation.count > 0)
+                                        .as("XPath '" + xPath + "' is present")
+                                        .isTrue()));
+        return this;
+    }
+
+    /**
+     *	Verifies that the XPath selects nothing
+     *
+     *	@param xPath XPath to check for absence
+     *	@return self
+     */
+    public XmlStreamAssert doesNotHaveXPath(String xPath) {
+        registrations.add(
+                new Registration(
+                        xPath,
+                        true,
+                        expectation ->
+                                softAssertions
+                                        .assertThat(expectation.count > 0)
+                                        .as("XPath '" + xPath + "' is present")
+                                        .isFalse()));
+        return this;
+    }
+
+    /** @return XML value extractor, value of the next registered XPath is extracted */
+    public XmlStreamAssert extract() {
+        responseExtractor.getAndSet(new ResponseExtractor());
+        extractNext = true;
+        return this;
+    }
+
+    /**
+     *	Reads the body and applies all the registered assertions
+     *
+     *	@param body XML body stream, closed when read
+     */
+    void evaluate(InputStream body) {
+        // paths are parsed now, so the namespaces may be set after the assertions
+        final List<Expectation> expectations = new ArrayList<>(registrations.size());
+        for (Registration registration : registrations) {
+            expectations.add(new Expectation(registration, XmlStreamPath.parse(registration.xPath, prefix2Uri)));
+        }
+        try (InputStream input = body) {
+            final XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(input);
+            try {
+                read(reader, expectations);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | IOException ex) {
+            throw new PaxoRestException("Failed to read response body as XML stream: ", ex);
+        }
+        expectations.forEach(expectation -> expectation.registration.verifier.accept(expectation));
+    }
+
+    private static void read(XMLStreamReader reader, List<Expectation> expectations) throws XMLStreamException {
+        final Deque<Frame> frames = new ArrayDeque<>();
+        frames.push(new Frame(expectations));
+        // elements which text is being collected
+        final List<Collector> collectors = new ArrayList<>();
+        int depth = 0;
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    frames.push(startElement(reader, frames.peek(), depth, collectors));
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    frames.pop();
+                    while (!collectors.isEmpty() && collectors.get(collectors.size() - 1).depth == depth) {
+                        collectors.remove(collectors.size() - 1).finish();
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    for (Collector collector : collectors) {
+                        collector.text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    // matches the element against the candidates of its parent, returns frame of the element
+    private static Frame startElement(XMLStreamReader reader, Frame parent, int depth, List<Collector> collectors) {
+        if (parent.candidates.isEmpty()) {
+            return Frame.EMPTY;
+        }
+        final QName name = reader.getName();
+        final int namePosition = parent.childCounts.merge(name, 1, Integer::sum);
+        final int position = ++parent.childCount;
+
+        List<Expectation> candidates = ImmutableList.of();
+        for (Expectation expectation : parent.candidates) {
+            if (!expectation.path.matches(depth, name, namePosition, position)) {
+                continue;
+            }
+            if (expectation.path.depth() > depth + 1) {
+                if (candidates.isEmpty()) {
+                    candidates = new ArrayList<>(parent.candidates.size());
+                }
+                candidates.add(expectation);
+            } else if (expectation.path.getAttribute() != null) {
+                final QName attribute = expectation.path.getAttribute();
+                final String value = reader.getAttributeValue(attribute.getNamespaceURI(), attribute.getLocalPart());
+                if (value != null) {
+                    expectation.add(value);
+                }
+            } else if (expectation.registration.countOnly) {
+                expectation.count++;
+            } else {
+                collectors.add(new Collector(expectation, depth));
+            }
+        }
+        return candidates.isEmpty() ? Frame.EMPTY : new Frame(candidates);
+    }
+
+    // assertion registered before the body is read
+    private final class Registration {
+
+        private final String xPath;
+        // only the count is needed, values are not kept
+        private final boolean countOnly;
+        private final Consumer<Expectation> verifier;
+        private final boolean extracting;
+
+        Registration(String xPath, boolean countOnly, Consumer<Expectation> verifier) {
+            this.xPath = xPath;
+            this.countOnly = countOnly;
+            this.verifier = verifier;
+            this.extracting = extractNext;
+            extractNext = false;
+        }
+    }
+
+    // parsed path of the registered assertion and the values selected by it
+    private final class Expectation {
+
+        private final Registration registration;
+        private final XmlStreamPath path;
+        private final List<String> values = new ArrayList<>();
+        private long count;
+
+        Expectation(Registration registration, XmlStreamPath path) {
+            this.registration = registration;
+            this.path = path;
+        }
+
+        void add(String value) {
+            count++;
+            if (!registration.countOnly) {
+                values.add(value);
+            }
+        }
+
+        <T> T extract(T value) {
+            final ResponseExtractor extractor = responseExtractor.get();
+            if (registration.extracting && extractor != null) {
+                extractor.setValue(value);
+            }
+            return value;
+        }
+    }
+
+    // open element: expectations which may match its children and positions of the children
+    private static final class Frame {
+
+        private static final Frame EMPTY = new Frame(ImmutableList.of());
+
+        private final List<Expectation> candidates;
+        private final Map<QName, Integer> childCounts = new HashMap<>();
+        private int childCount;
+
+        Frame(List<Expectation> candidates) {
+            this.candidates = candidates;
+        }
+    }
+
+    // text content of the selected element, including its descendants
+    private static final class Collector {
+
+        private final Expectation expectation;
+        private final int depth;
+        private final StringBuilder text = new StringBuilder();
+
+        Collector(Expectation expectation, int depth) {
+            this.expectation = expectation;
+            this.depth = depth;
+        }
+
+        void finish() {
+            expectation.add(text.toString());
+        }
+    }
+}
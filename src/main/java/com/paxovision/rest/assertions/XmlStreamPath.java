@@ -0,0 +1,142 @@
+package com.paxovision.rest.assertions;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Map;
+import javax.xml.namespace.QName;
+
+/**
+ *	Subset of the XPath syntax evaluated by {@link XmlStreamAssert} in single pass over the StAX
+ *	reader: absolute location path of child steps ({@code /feed/entry}), element wildcards
+ *	({@code *}), positions ({@code entry[2]}), prefixed names resolved by the namespace map and the
+ *	last attribute ({@code @id}) or {@code text()} step. Descendant axis, other axes, functions and
+ *	other predicates are not supported.
+ */
+final class XmlStreamPath {
+
+    private final String path;
+    private final List<Step> steps;
+    // selected attribute of the last element, null for the element value
+    private final QName attribute;
+
+    private XmlStreamPath(String path, List<Step> steps, QName attribute) {
+        this.path = path;
+        this.steps = steps;
+        this.attribute = attribute;
+    }
+
+    /**
+     *	@param path XPath expression
+     *	@param prefix2Uri namespace prefixes used in the path
+     *	@return parsed path
+     *	@throws IllegalArgumentException if the path uses syntax not supported in streaming mode
+     */
+    static XmlStreamPath parse(String path, Map<String, String> prefix2Uri) {
+        if (path == null || !path.startsWith("/") || path.startsWith("//") || path.endsWith("/")) {
+            throw unsupported(path);
+        }
+        final String[] parts = path.substring(1).split("/");
+        final ImmutableList.Builder<Step> steps = ImmutableList.builder();
+        QName attribute = null;
+        for (int i = 0; i < parts.length; i++) {
+            final String part = parts[i];
+            final boolean last = i == parts.length - 1;
+            if (part.startsWith("@") && last && i > 0) {
+                attribute = name(path, part.substring(1), prefix2Uri, false);
+            } else if ("text()".equals(part) && last && i > 0) {
+                // element value is its text content
+                continue;
+            } else {
+                steps.add(step(path, part, prefix2Uri));
+            }
+        }
+        return new XmlStreamPath(path, steps.build(), attribute);
+    }
+
+    private static Step step(String path, String part, Map<String, String> prefix2Uri) {
+        int position = 0;
+        String name = part;
+        final int predicate = part.indexOf('[');
+        if (predicate >= 0) {
+            if (!part.endsWith("]")) {
+                throw unsupported(path);
+            }
+            try {
+                position = Integer.parseInt(part.substring(predicate + 1, part.length() - 1).trim());
+            } catch (NumberFormatException ex) {
+                // functions and other predicates
+                throw unsupported(path);
+            }
+            if (position < 1) {
+                throw unsupported(path);
+            }
+            name = part.substring(0, predicate);
+        }
+        return new Step("*".equals(name) ? null : name(path, name, prefix2Uri, true), position);
+    }
+
+    private static QName name(String path, String name, Map<String, String> prefix2Uri, boolean element) {
+        if (name.isEmpty() || name.startsWith("@") || name.contains("(") || name.contains("::") || "*".equals(name)) {
+            throw unsupported(path);
+        }
+        final int colon = name.indexOf(':');
+        if (colon < 0) {
+            return new QName("", name);
+        }
+        final String uri = prefix2Uri.get(name.substring(0, colon));
+        if (uri == null) {
+            throw new IllegalArgumentException(
+                    "Unknown namespace prefix in " + (element ? "element" : "attribute") + " '" + name
+                            + "' of the XPath '" + path + "'!");
+        }
+        return new QName(uri, name.substring(colon + 1));
+    }
+
+    private static IllegalArgumentException unsupported(String path) {
+        return new IllegalArgumentException(
+                "XPath '" + path + "' is not supported in streaming mode, only absolute child steps, wildcards, "
+                        + "positions and the last attribute are!");
+    }
+
+    /** @return number of element steps */
+    int depth() {
+        return steps.size();
+    }
+
+    /** @return selected attribute or null if the path selects the element */
+    QName getAttribute() {
+        return attribute;
+    }
+
+    /**
+     *	@param depth step number
+     *	@param name element name
+     *	@param namePosition 1-based position of the element among the siblings of the same name
+     *	@param position 1-based position of the element among all the sibling elements
+     *	@return true if the step matches the element
+     */
+    boolean matches(int depth, QName name, int namePosition, int position) {
+        final Step step = steps.get(depth);
+        if (step.name == null) {
+            return step.position == 0 || step.position == position;
+        }
+        return step.name.equals(name) && (step.position == 0 || step.position == namePosition);
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    // child step, null name for the wildcard, 0 position for any
+    private static final class Step {
+
+        private final QName name;
+        private final int position;
+
+        Step(QName name, int position) {
+            this.name = name;
+            this.position = position;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.paxovision.rest.assertions;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.paxovision.rest.exception.PaxoRestException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathFactoryConfigurationException;
+import javax.xml.xpath.XPathFunctionResolver;
+import javax.xml.xpath.XPathVariableResolver;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xmlunit.util.Convert;
+import org.xmlunit.util.DocumentBuilderFactoryConfigurer;
+
+/**
+ *	XML parsing and XPath evaluation shared by the XML assertions. Parser and XPath factories are
+ *	expensive to look up and not thread-safe, so each thread reuses its own instances. Compiled
+ *	XPath expressions aren't thread-safe either, they're cached per thread by expression and
+ *	namespace map.
+ */
+public final class XmlSupport {
+
+    /** Maximum number of the compiled XPath expressions kept per thread */
+    public static final int MAXIMUM_EXPRESSIONS = 256;
+
+    // configured the same way as the XMLUnit's default parser (namespace aware, no external
+    // entities)
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER =
+            ThreadLocal.withInitial(
+                    () -> {
+                        final DocumentBuilderFactory factory =
+                                DocumentBuilderFactoryConfigurer.Default.configure(DocumentBuilderFactory.newInstance());
+                        factory.setNamespaceAware(true);
+                        try {
+                            return factory.newDocumentBuilder();
+                        } catch (ParserConfigurationException ex) {
+                            throw new PaxoRestException("Failed to create XML parser: ", ex);
+                        }
+                    });
+    private static final ThreadLocal<XPathFactory> XPATH_FACTORY = ThreadLocal.withInitial(XPathFactory::newInstance);
+    private static final ThreadLocal<Map<List<Object>, XPathExpression>> EXPRESSIONS =
+            ThreadLocal.withInitial(
+                    () ->
+                            new LinkedHashMap<List<Object>, XPathExpression>(16, 0.75f, true) {
+                                @Override
+                                protected boolean removeEldestEntry(Map.Entry<List<Object>, XPathExpression> eldest) {
+                                    return size() > MAXIMUM_EXPRESSIONS;
+                                }
+                            });
+
+    private XmlSupport() {
+    }
+
+    /**
+     *	Parses XML to DOM using the thread's parser
+     *
+     *	@param xml XML text
+     *	@return parsed document
+     *	@throws PaxoRestException if XML isn't well-formed
+     */
+    public static Document parse(String xml) {
+        final DocumentBuilder builder = DOCUMENT_BUILDER.get();
+        try {
+            return builder.parse(new InputSource(new StringReader(xml)));
+        } catch (SAXException | IOException ex) {
+            throw new PaxoRestException("Failed to parse XML: ", ex);
+        } finally {
+            builder.reset();
+        }
+    }
+
+    /**
+     *	Returns XPath factory evaluating the expressions compiled with given namespaces and cached
+     *	per thread. Namespace context set on its {@link XPath} objects is ignored. Expressions of
+     *	the {@link XPath} with variable or function resolver depend on it, so they're compiled by
+     *	the plain XPath without caching.
+     *
+     *	@param prefix2Uri namespace prefixes used in the expressions (may be null)
+     *	@return XPath factory with compiled expression cache
+     */
+    public static XPathFactory xPathFactory(Map<String, String> prefix2Uri) {
+        return new CachingXPathFactory(prefix2Uri == null ? ImmutableMap.of() : ImmutableMap.copyOf(prefix2Uri));
+    }
+
+    // compiled expression from the thread's cache
+    private static XPathExpression compile(String expression, Map<String, String> prefix2Uri)
+            throws XPathExpressionException {
+        final List<Object> key = ImmutableList.of(expression, prefix2Uri);
+        final Map<List<Object>, XPathExpression> expressions = EXPRESSIONS.get();
+        XPathExpression compiled = expressions.get(key);
+        if (compiled == null) {
+            compiled = newXPath(prefix2Uri).compile(expression);
+            expressions.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    // plain XPath compiling the expressions with given namespaces
+    private static XPath newXPath(Map<String, String> prefix2Uri) {
+        final XPath xpath = XPATH_FACTORY.get().newXPath();
+        if (!prefix2Uri.isEmpty()) {
+            xpath.setNamespaceContext(Convert.toNamespaceContext(prefix2Uri));
+        }
+        return xpath;
+    }
+
+    private static final class CachingXPathFactory extends XPathFactory {
+
+        private final Map<String, String> prefix2Uri;
+        private XPathVariableResolver variableResolver;
+        private XPathFunctionResolver functionResolver;
+
+        CachingXPathFactory(Map<String, String> prefix2Uri) {
+            this.prefix2Uri = prefix2Uri;
+        }
+
+        @Override
+        public boolean isObjectModelSupported(String model) {
+            return DEFAULT_OBJECT_MODEL_URI.equals(model);
+        }
+
+        @Override
+        public void setFeature(String name, boolean value) throws XPathFactoryConfigurationException {
+            throw new XPathFactoryConfigurationException("Features are not supported: " + name);
+        }
+
+        @Override
+        public boolean getFeature(String name) throws XPathFactoryConfigurationException {
+            return XPATH_FACTORY.get().getFeature(name);
+        }
+
+        @Override
+        public void setXPathVariableResolver(XPathVariableResolver resolver) {
+            this.variableResolver = Objects.requireNonNull(resolver, "Variable resolver can't be null!");
+        }
+
+        @Override
+        public void setXPathFunctionResolver(XPathFunctionResolver resolver) {
+            this.functionResolver = Objects.requireNonNull(resolver, "Function resolver can't be null!");
+        }
+
+        @Override
+        public XPath newXPath() {
+            final CachingXPath xpath = new CachingXPath(prefix2Uri);
+            if (variableResolver != null) {
+                xpath.setXPathVariableResolver(variableResolver);
+            }
+            if (functionResolver != null) {
+                xpath.setXPathFunctionResolver(functionResolver);
+            }
+            return xpath;
+        }
+    }
+
+    private static final class CachingXPath implements XPath {
+
+        private final Map<String, String> prefix2Uri;
+        private NamespaceContext namespaceContext;
+        // compiles the expressions once any resolver is set, null till then
+        private XPath resolving;
+
+        CachingXPath(Map<String, String> prefix2Uri) {
+            this.prefix2Uri = prefix2Uri;
+        }
+
+        @Override
+        public void reset() {
+            namespaceContext = null;
+            resolving = null;
+        }
+
+        @Override
+        public void setXPathVariableResolver(XPathVariableResolver resolver) {
+            Objects.requireNonNull(resolver, "Variable resolver can't be null!");
+            resolving().setXPathVariableResolver(resolver);
+        }
+
+        @Override
+        public XPathVariableResolver getXPathVariableResolver() {
+            return resolving == null ? null : resolving.getXPathVariableResolver();
+        }
+
+        @Override
+        public void setXPathFunctionResolver(XPathFunctionResolver resolver) {
+            Objects.requireNonNull(resolver, "Function resolver can't be null!");
+            resolving().setXPathFunctionResolver(resolver);
+        }
+
+        @Override
+        public XPathFunctionResolver getXPathFunctionResolver() {
+            return resolving == null ? null : resolving.getXPathFunctionResolver();
+        }
+
+        private XPath resolving() {
+            if (resolving == null) {
+                resolving = newXPath(prefix2Uri);
+            }
+            return resolving;
+        }
+
+        @Override
+        public void setNamespaceContext(NamespaceContext namespaceContext) {
+            // expressions are compiled with the factory's namespaces
+            this.namespaceContext = namespaceContext;
+        }
+
+        @Override
+        public NamespaceContext getNamespaceContext() {
+            return namespaceContext;
+        }
+
+        @Override
+        public XPathExpression compile(String expression) throws XPathExpressionException {
+            return resolving == null ? XmlSupport.compile(expression, prefix2Uri) : resolving.compile(expression);
+        }
+
+        @Override
+        public Object evaluate(String expression, Object item, QName returnType) throws XPathExpressionException {
+            return compile(expression).evaluate(item, returnType);
+        }
+
+        @Override
+        public String evaluate(String expression, Object item) throws XPathExpressionException {
+            return compile(expression).evaluate(item);
+        }
+
+        @Override
+        public Object evaluate(String expression, InputSource source, QName returnType)
+                throws XPathExpressionException {
+            return compile(expression).evaluate(source, returnType);
+        }
+
+        @Override
+        public String evaluate(String expression, InputSource source) throws XPathExpressionException {
+            return compile(expression).evaluate(source);
+        }
+    }
+}
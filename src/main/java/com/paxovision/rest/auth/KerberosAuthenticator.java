@@ -4,10 +4,14 @@ package com.paxovision.rest.auth;
 
 import java.security.Principal;
 import java.security.PrivilegedAction;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.time.Duration;
 import java.util.Base64;
-import java.util.Date;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import javax.security.auth.Subject;
 import javax.security.auth.callback.Callback;
 import javax.security.auth.callback.PasswordCallback;
@@ -24,22 +28,62 @@ import org.ietf.jgss.GSSException;
 import org.ietf.jgss.GSSManager;
 import org.ietf.jgss.GSSName;
 import org.ietf.jgss.Oid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  *	Kerberos authentication helper used to build the 'Authorization' request header for Kerberos
- *	authentication.
+ *	authentication. The login is performed on the first use and the Subject (with the TGT and
+ *	service tickets obtained) is reused until the TGT is close to its expiry, but at least for the
+ *	minimal login interval. Single instance is meant to be shared by all the requests of the
+ *	client.
  */
 public class KerberosAuthenticator {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(KerberosAuthenticator.class);
+    private static final Oid KRB5_MECHANISM = oid("1.2.840.113554.1.2.2");
+    private static final Oid KRB5_PRINCIPAL_NAME_TYPE = oid("1.2.840.113554.1.2.2.1");
+    // time before the TGT expiry the login is refreshed at, at most the part of the TGT lifetime
+    static final Duration REFRESH_MARGIN = Duration.ofMinutes(5);
+    private static final double MAX_REFRESH_MARGIN_RATIO = 0.2;
+    // minimal time between the logins, the ticket cache may hold the TGT close to its expiry
+    static final Duration MIN_LOGIN_INTERVAL = Duration.ofMinutes(1);
+    private static final int CREDENTIAL_LIFETIME = 8 * 3600;
+    private static final int MIN_CREDENTIAL_LIFETIME = 60;
+
     private final Map<String, String> krbOptions;
+    private final long tokenReuseNanos;
+    private final GSSManager manager = GSSManager.getInstance();
+    private final Map<String, CachedToken> tokens = new ConcurrentHashMap<>();
     private LoginContext loginContext;
+    private long refreshAtMillis;
+    private GSSCredential credential;
+
+    private final LongAdder logins = new LongAdder();
+    private final LongAdder tokensCreated = new LongAdder();
+    private final LongAdder tokensReused = new LongAdder();
 
     public KerberosAuthenticator(Map<String, String> krbOptions) {
+        this(krbOptions, Duration.ZERO);
+    }
+
+    /**
+     *	Creates authenticator reusing the negotiated token for the same service for given time.
+     *	Enable only if the server accepts the replayed tokens (i.e. has replay cache disabled).
+     *
+     *	@param krbOptions options of the Krb5LoginModule
+     *	@param tokenReuse time the token is reused for, zero to create new token for each request
+     */
+    public KerberosAuthenticator(Map<String, String> krbOptions, Duration tokenReuse) {
         this.krbOptions = krbOptions;
+        this.tokenReuseNanos = tokenReuse.toNanos();
+    }
+
+    private static Oid oid(String oid) {
         try {
-            buildSubjectCredentials();
-        } catch (LoginException e) {
-            throw new PaxoRestException(e.getMessage(), e);
+            return new Oid(oid);
+        } catch (GSSException ex) {
+            throw new ExceptionInInitializerError(ex);
         }
     }
 
@@ -108,7 +152,15 @@ public class KerberosAuthenticator {
                                 : new KerberosLoginConfiguration());
 
         lc.login();
+        final LoginContext replaced = loginContext;
         loginContext = lc;
+        if (replaced != null) {
+            try {
+                replaced.logout();
+            } catch (LoginException ex) {
+                LOGGER.warn("Failed to logout replaced Kerberos login context", ex);
+            }
+        }
     }
 
     /**
@@ -137,36 +189,29 @@ public class KerberosAuthenticator {
      * @return the HTTP Authorization header token
      */
     public String buildAuthorizationHeader(String serverPrincipalName) {
-        /*
-         *	Get the principal from the Subject's private credentials and populate the
-         *	client and server principal name for the GSS API
-         */
-        final String clientPrincipal = getClientPrincipalName();
-        final CreateAuthorizationHeaderAction action =
-                new CreateAuthorizationHeaderAction(clientPrincipal, serverPrincipalName);
+        if (tokenReuseNanos > 0) {
+            final CachedToken cached = tokens.get(serverPrincipalName);
+            if (cached != null && System.nanoTime() - cached.createdAt < tokenReuseNanos) {
+                tokensReused.increment();
+                return cached.token;
+            }
+        }
 
-        /*
-         *	Check if the TGT in the Subject's private credentials are valid. If
-         *	valid, then we use the TGT in the Subject's private credentials. If not,
-         *	we build the Subject's private credentials again from valid TGT in the
-         *	Kerberos client cache.
-         */
-        Set<Object> privateCreds = loginContext.getSubject().getPrivateCredentials();
-        for (Object privateCred : privateCreds) {
-            if (privateCred instanceof KerberosTicket) {
-                String serverPrincipalTicketName =
-                        ((KerberosTicket) privateCred).getServer().getName();
-                if ((serverPrincipalTicketName.startsWith("krbtgt"))
-                        && ((KerberosTicket) privateCred).getEndTime().compareTo(new Date()) < 0) {
-                    try {
-                        buildSubjectCredentials();
-                        break;
-                    } catch (LoginException ex) {
-                        throw new PaxoRestException("Kerberos authentication failed: ", ex);
-                    }
-                }
+        final Subject subject;
+        final GSSCredential clientCred;
+        synchronized (this) {
+            /*
+             *	Login if not done yet or if the TGT in the Subject's private credentials is close
+             *	to its expiry, the Subject's private credentials are built again from valid TGT
+             *	in the Kerberos client cache.
+             */
+            if (loginContext == null || System.currentTimeMillis() >= refreshAtMillis) {
+                login();
             }
+            subject = loginContext.getSubject();
+            clientCred = getCredential(subject);
         }
+
         /*
          *	Subject.doAs takes in the Subject context and the action to be run as
          *	arguments. This method executes the action as the Subject given in the
@@ -176,8 +221,99 @@ public class KerberosAuthenticator {
          *	API populates the service ticket in the Subject and reuses it
          *
          */
-        Subject.doAs(loginContext.getSubject(), action);
-        return action.getNegotiateToken();
+        final CreateAuthorizationHeaderAction action =
+                new CreateAuthorizationHeaderAction(manager, clientCred, serverPrincipalName);
+        Subject.doAs(subject, action);
+        final String token = action.getNegotiateToken();
+        tokensCreated.increment();
+        if (tokenReuseNanos > 0) {
+            tokens.put(serverPrincipalName, new CachedToken(token));
+        }
+        return token;
+    }
+
+    // login and schedule the next one before the TGT expiry
+    private void login() {
+        try {
+            buildSubjectCredentials();
+        } catch (LoginException ex) {
+            throw new PaxoRestException("Kerberos authentication failed: ", ex);
+        }
+        logins.increment();
+        credential = null;
+        tokens.clear();
+        final long loginMillis = System.currentTimeMillis();
+        refreshAtMillis = Long.MAX_VALUE;
+        for (KerberosTicket ticket : loginContext.getSubject().getPrivateCredentials(KerberosTicket.class)) {
+            if (ticket.getServer().getName().startsWith("krbtgt")) {
+                refreshAtMillis =
+                        refreshAt(loginMillis, ticket.getStartTime().getTime(), ticket.getEndTime().getTime());
+            }
+        }
+    }
+
+    /**
+     *	@param loginMillis time of the login
+     *	@param startMillis start time of the TGT
+     *	@param endMillis end time of the TGT
+     *	@return time of the next login: refresh margin before the TGT expiry, but not earlier than
+     *	the minimal login interval after the login
+     */
+    static long refreshAt(long loginMillis, long startMillis, long endMillis) {
+        final long margin =
+                Math.min(REFRESH_MARGIN.toMillis(), (long) ((endMillis - startMillis) * MAX_REFRESH_MARGIN_RATIO));
+        return Math.max(loginMillis + MIN_LOGIN_INTERVAL.toMillis(), endMillis - margin);
+    }
+
+    // client credential of the Subject, created again when it's about to expire
+    private GSSCredential getCredential(Subject subject) {
+        try {
+            if (credential == null || credential.getRemainingLifetime() < MIN_CREDENTIAL_LIFETIME) {
+                final String clientPrincipalName = getClientPrincipalName();
+                credential =
+                        Subject.doAs(
+                                subject,
+                                (PrivilegedExceptionAction<GSSCredential>)
+                                        () ->
+                                                manager.createCredential(
+                                                        manager.createName(
+                                                                clientPrincipalName, KRB5_PRINCIPAL_NAME_TYPE),
+                                                        CREDENTIAL_LIFETIME,
+                                                        KRB5_MECHANISM,
+                                                        GSSCredential.INITIATE_ONLY));
+            }
+            return credential;
+        } catch (GSSException ex) {
+            throw new PaxoRestException(ex.getMessage(), ex);
+        } catch (PrivilegedActionException ex) {
+            throw new PaxoRestException(ex.getException().getMessage(), ex.getException());
+        }
+    }
+
+    /** @return number of JAAS logins performed */
+    public long getLogins() {
+        return logins.sum();
+    }
+
+    /** @return number of negotiate tokens created */
+    public long getTokensCreated() {
+        return tokensCreated.sum();
+    }
+
+    /** @return number of negotiate tokens reused */
+    public long getTokensReused() {
+        return tokensReused.sum();
+    }
+
+    // negotiate token with its creation time
+    private static final class CachedToken {
+
+        private final String token;
+        private final long createdAt = System.nanoTime();
+
+        private CachedToken(String token) {
+            this.token = token;
+        }
     }
 
     /**
@@ -187,14 +323,17 @@ public class KerberosAuthenticator {
     */
     private static class CreateAuthorizationHeaderAction implements PrivilegedAction {
 
-        String clientPrincipalName;
-        String serverPrincipalName;
+        final GSSManager manager;
+        final GSSCredential clientCred;
+        final String serverPrincipalName;
 
         private final StringBuilder outputToken = new StringBuilder();
 
-        private CreateAuthorizationHeaderAction(final String clientPrincipalName,
+        private CreateAuthorizationHeaderAction(final GSSManager manager,
+                                                final GSSCredential clientCred,
                                                 final String serverPrincipalName) {
-            this.clientPrincipalName = clientPrincipalName;
+            this.manager = manager;
+            this.clientCred = clientCred;
             this.serverPrincipalName = serverPrincipalName;
         }
 
@@ -216,19 +355,11 @@ public class KerberosAuthenticator {
         @Override
         public Object run() {
             try {
-                Oid krb5Mechanism = new Oid("1.2.840.113554.1.2.2");
-                Oid krb5PrincipalNameType = new Oid("1.2.840.113554.1.2.2.1");
-                final GSSManager manager = GSSManager.getInstance();
-                final GSSName clientName =
-                        manager.createName(clientPrincipalName, krb5PrincipalNameType);
-                final GSSCredential clientCred =
-                        manager.createCredential(
-                                clientName, 8 * 3600, krb5Mechanism, GSSCredential.INITIATE_ONLY);
                 final GSSName serverName =
-                        manager.createName(serverPrincipalName, krb5PrincipalNameType);
+                        manager.createName(serverPrincipalName, KRB5_PRINCIPAL_NAME_TYPE);
                 final GSSContext context =
                         manager.createContext(
-                                serverName, krb5Mechanism, clientCred, GSSContext.DEFAULT_LIFETIME);
+                                serverName, KRB5_MECHANISM, clientCred, GSSContext.DEFAULT_LIFETIME);
                 byte[] inToken = new byte[0];
                 byte[] outToken = context.initSecContext(inToken, 0, inToken.length);
                 context.requestMutualAuth(true);
@@ -243,6 +374,3 @@ public class KerberosAuthenticator {
     }
 
 }
-
-
-
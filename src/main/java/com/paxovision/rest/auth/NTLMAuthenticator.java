@@ -1,8 +1,15 @@
 package com.paxovision.rest.auth;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.google.common.cache.CacheBuilder;
 import com.paxovision.rest.exception.PaxoRestException;
 import jcifs.ntlmssp.NtlmFlags;
 import jcifs.ntlmssp.Type1Message;
@@ -10,11 +17,19 @@ import jcifs.ntlmssp.Type2Message;
 import jcifs.ntlmssp.Type3Message;
 import jcifs.util.Base64;
 import okhttp3.Authenticator;
+import okhttp3.Connection;
+import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.Route;
 
-/** NTLM authenticator for OkHttp */
+/**
+ *	NTLM authenticator for OkHttp. NTLM authenticates the connection, so the handshake is needed
+ *	only once per connection when the {@link #networkInterceptor()} is installed: it tracks the
+ *	authenticated connections, sends requests on them as they are and starts the handshake on the
+ *	new connections right away with the pre-computed Type1 message (saving the anonymous round
+ *	trip).
+ */
 
 public class NTLMAuthenticator implements Authenticator {
     private static final int TYPE_1_FLAGS =
@@ -26,11 +41,22 @@ public class NTLMAuthenticator implements Authenticator {
 
     private static final String AUTH_REQUEST_HEADER = "Authorization";
     private static final String AUTH_RESPONSE_HEADER = "NTLM";
+    private static final byte[] NTLMSSP_SIGNATURE = "NTLMSSP\0".getBytes(StandardCharsets.US_ASCII);
 
     private String login;
     private String password;
     private String domain;
     private String workstation;
+    private final String type1Header;
+
+    // entries are dropped once the connection is garbage collected
+    private final ConcurrentMap<Connection, Long> handshakeStarts =
+            CacheBuilder.newBuilder().weakKeys().<Connection, Long>build().asMap();
+    private final ConcurrentMap<Connection, Boolean> authenticatedConnections =
+            CacheBuilder.newBuilder().weakKeys().<Connection, Boolean>build().asMap();
+    private final LongAdder handshakes = new LongAdder();
+    private final LongAdder handshakeFailures = new LongAdder();
+    private final LongAdder handshakeNanos = new LongAdder();
 
     public NTLMAuthenticator(@Nonnull String login, @Nonnull String password) {
         this(login, password, "","");
@@ -44,6 +70,7 @@ public class NTLMAuthenticator implements Authenticator {
         this.password =password;
         this.domain =domain;
         this.workstation =workstation;
+        this.type1Header = AUTH_RESPONSE_HEADER + " " + generateTypelMsg(domain, workstation);
     }
 
 
@@ -70,6 +97,10 @@ public class NTLMAuthenticator implements Authenticator {
             }
         }
 
+        if (messageType(response.request().header(AUTH_REQUEST_HEADER)) == 3 && ntlmValue == null) {
+            // Type3 message rejected, do not restart the handshake
+            return null;
+        }
         if (negociate && ntlm) {
             return authNegotiateAndNTLM(response);
         }
@@ -80,12 +111,7 @@ public class NTLMAuthenticator implements Authenticator {
     }
 
     private Request authNegotiateAndNTLM(Response response) {
-
-        String typelMsg = generateTypelMsg(domain, workstation);
-
-        String header = AUTH_RESPONSE_HEADER + " " + typelMsg;
-
-        return response.request().newBuilder().header(AUTH_REQUEST_HEADER, header).build();
+        return response.request().newBuilder().header(AUTH_REQUEST_HEADER, type1Header).build();
     }
 
     private Request authNTLMValue(Response response, String ntlmValue) {
@@ -130,4 +156,86 @@ public class NTLMAuthenticator implements Authenticator {
         return Base64.encode(type3Message.toByteArray());
     }
 
+    // type of the NTLM message in the Authorization header value, 0 if it's not NTLM message
+    private static int messageType(@Nullable String authorization) {
+        if (authorization == null || !authorization.startsWith(AUTH_RESPONSE_HEADER + " ")) {
+            return 0;
+        }
+        final byte[] message;
+        try {
+            message = Base64.decode(authorization.substring(AUTH_RESPONSE_HEADER.length() + 1));
+        } catch (RuntimeException ex) {
+            return 0;
+        }
+        if (message.length <= NTLMSSP_SIGNATURE.length
+                || !Arrays.equals(Arrays.copyOf(message, NTLMSSP_SIGNATURE.length), NTLMSSP_SIGNATURE)) {
+            return 0;
+        }
+        return message[NTLMSSP_SIGNATURE.length];
+    }
+
+    /**
+     *	Returns network interceptor tracking the connections authenticated by this authenticator.
+     *	Must be added to the same client as the authenticator.
+     *
+     *	@return network interceptor
+     */
+    public Interceptor networkInterceptor() {
+        return chain -> {
+            Request request = chain.request();
+            final Connection connection = chain.connection();
+            int messageType = messageType(request.header(AUTH_REQUEST_HEADER));
+            if (connection != null && messageType == 0 && !authenticatedConnections.containsKey(connection)) {
+                // new connection, start the handshake right away
+                request = request.newBuilder().header(AUTH_REQUEST_HEADER, type1Header).build();
+                messageType = 1;
+            }
+            if (connection != null && messageType == 1) {
+                handshakeStarts.put(connection, System.nanoTime());
+            }
+
+            final Response response = chain.proceed(request);
+            if (connection == null) {
+                return response;
+            }
+            if (messageType == 3) {
+                final Long start = handshakeStarts.remove(connection);
+                if (response.code() == 401) {
+                    handshakeFailures.increment();
+                } else {
+                    authenticatedConnections.put(connection, Boolean.TRUE);
+                    handshakes.increment();
+                    if (start != null) {
+                        handshakeNanos.add(System.nanoTime() - start);
+                    }
+                }
+            } else if (messageType == 0 && response.code() == 401) {
+                // server requires new handshake on this connection
+                authenticatedConnections.remove(connection);
+            }
+            return response;
+        };
+    }
+
+    /** @return number of completed handshakes */
+    public long getHandshakes() {
+        return handshakes.sum();
+    }
+
+    /** @return number of handshakes rejected by the server */
+    public long getHandshakeFailures() {
+        return handshakeFailures.sum();
+    }
+
+    /** @return average time from the Type1 message sent till the authenticated response */
+    public Duration getAverageHandshakeTime() {
+        final long count = handshakes.sum();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(handshakeNanos.sum() / count);
+    }
+
+    /** @return number of authenticated connections tracked (including closed ones not collected yet) */
+    public int getAuthenticatedConnections() {
+        return authenticatedConnections.size();
+    }
+
 }
@@ -0,0 +1,58 @@
+package com.paxovision.rest.load;
+
+import com.google.common.base.Preconditions;
+import java.time.Duration;
+
+/** Target arrival rate (requests-per-second) of the load as a function of time since start */
+@FunctionalInterface
+public interface ArrivalRate {
+
+    /**
+     *	@param elapsed time elapsed since the start of the load
+     *	@return target number of requests-per-second at the given time
+     */
+    double ratePerSecond(Duration elapsed);
+
+    /**
+     *	@param ratePerSecond number of requests-per-second
+     *	@return constant arrival rate
+     */
+    static ArrivalRate constant(double ratePerSecond) {
+        Preconditions.checkArgument(ratePerSecond > 0, "Rate must be positive value!");
+        return elapsed -> ratePerSecond;
+    }
+
+    /**
+     *	Linear change of the rate from one value to another. After ramp duration the rate stays at
+     *	the target value.
+     *
+     *	@param fromRatePerSecond initial number of requests-per-second
+     *	@param toRatePerSecond target number of requests-per-second
+     *	@param rampDuration time to reach the target rate
+     *	@return ramp arrival rate
+     */
+    static ArrivalRate ramp(double fromRatePerSecond, double toRatePerSecond, Duration rampDuration) {
+        Preconditions.checkArgument(
+                fromRatePerSecond >= 0 && toRatePerSecond >= 0, "Rate can't be negative value!");
+        final double rampNanos = rampDuration.toNanos();
+        return elapsed -> {
+            final double progress = Math.min(1.0, elapsed.toNanos() / rampNanos);
+            return fromRatePerSecond + (toRatePerSecond - fromRatePerSecond) * progress;
+        };
+    }
+
+    /**
+     *	Rate increased by the given value after each step duration
+     *
+     *	@param initialRatePerSecond number of requests-per-second for the first step
+     *	@param stepRatePerSecond rate increment for each next step
+     *	@param stepDuration duration of each step
+     *	@return step arrival rate
+     */
+    static ArrivalRate steps(double initialRatePerSecond, double stepRatePerSecond, Duration stepDuration) {
+        Preconditions.checkArgument(initialRatePerSecond >= 0, "Rate can't be negative value!");
+        final long stepNanos = stepDuration.toNanos();
+        return elapsed ->
+                Math.max(0, initialRatePerSecond + stepRatePerSecond * (elapsed.toNanos() / stepNanos));
+    }
+}
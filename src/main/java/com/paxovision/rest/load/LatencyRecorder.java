@@ -0,0 +1,38 @@
+package com.paxovision.rest.load;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/** Thread-safe recorder of the latency samples (in nanoseconds) */
+class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int size = 0;
+
+    synchronized void record(long latencyNanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = latencyNanos;
+    }
+
+    /** @return sorted copy of all the recorded samples */
+    synchronized long[] snapshot() {
+        final long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     *	@param sorted sorted samples
+     *	@param percentile percentile in [0..100]
+     *	@return latency for the given percentile (nearest rank) or zero if there are no samples
+     */
+    static Duration percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Duration.ZERO;
+        }
+        final int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return Duration.ofNanos(sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))]);
+    }
+}
@@ -0,0 +1,111 @@
+package com.paxovision.rest.load;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *	Result of the load run. Latency of each request is measured from its scheduled send time till
+ *	the response is received (or the request fails), so it includes the time spent waiting in the
+ *	client queues, but not the time of the response checkers.
+ */
+public class LoadReport {
+
+    private final Duration duration;
+    private final long scheduled;
+    private final long succeeded;
+    private final long errors;
+    private final long assertionFailures;
+    private final long incomplete;
+    private final long[] sortedLatencies;
+    private final List<Throwable> failureSamples;
+
+    LoadReport(
+            Duration duration,
+            long scheduled,
+            long succeeded,
+            long errors,
+            long assertionFailures,
+            long[] sortedLatencies,
+            List<Throwable> failureSamples) {
+        this.duration = duration;
+        this.scheduled = scheduled;
+        this.succeeded = succeeded;
+        this.errors = errors;
+        this.assertionFailures = assertionFailures;
+        this.incomplete = scheduled - succeeded - errors - assertionFailures;
+        this.sortedLatencies = sortedLatencies;
+        this.failureSamples = Collections.unmodifiableList(failureSamples);
+    }
+
+    /** @return time from the first scheduled request till the end of the run */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /** @return number of requests scheduled (sent) */
+    public long getScheduled() {
+        return scheduled;
+    }
+
+    /** @return number of requests completed with all the assertions passed */
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    /** @return number of requests failed with the error (i.e. connection failure) */
+    public long getErrors() {
+        return errors;
+    }
+
+    /** @return number of requests with failed assertions */
+    public long getAssertionFailures() {
+        return assertionFailures;
+    }
+
+    /** @return number of requests not completed within drain timeout */
+    public long getIncomplete() {
+        return incomplete;
+    }
+
+    /** @return achieved rate of the scheduled requests (requests-per-second) */
+    public double getThroughput() {
+        return duration.isZero() ? 0 : scheduled / (duration.toNanos() / 1e9);
+    }
+
+    /**
+     *	@param percentile percentile in [0..100]
+     *	@return latency for the given percentile of the completed requests
+     */
+    public Duration getLatencyPercentile(double percentile) {
+        return LatencyRecorder.percentile(sortedLatencies, percentile);
+    }
+
+    /** @return maximal latency of the completed requests */
+    public Duration getMaxLatency() {
+        return LatencyRecorder.percentile(sortedLatencies, 100);
+    }
+
+    /** @return first failures (errors and assertion failures) occurred during the run */
+    public List<Throwable> getFailureSamples() {
+        return failureSamples;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "LoadReport{duration=%s, scheduled=%d, succeeded=%d, errors=%d, assertionFailures=%d, "
+                        + "incomplete=%d, throughput=%.1f/s, p50=%s, p90=%s, p99=%s, max=%s}",
+                duration,
+                scheduled,
+                succeeded,
+                errors,
+                assertionFailures,
+                incomplete,
+                getThroughput(),
+                getLatencyPercentile(50),
+                getLatencyPercentile(90),
+                getLatencyPercentile(99),
+                getMaxLatency());
+    }
+}
@@ -0,0 +1,203 @@
+package com.paxovision.rest.load;
+
+import com.google.common.base.Preconditions;
+import com.paxovision.rest.assertions.RestResponseAsserter;
+import com.paxovision.rest.exception.PaxoRestException;
+import com.paxovision.rest.request.RestGenericRequestBuilder;
+import com.paxovision.rest.response.RestResponseMatchers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ *	Open-model load generator. Requests created from the template are sent at the target arrival
+ *	rate regardless of the response time: each request is sent asynchronously at its scheduled
+ *	time, slow responses don't delay sending of the next requests.
+ */
+public class RestLoadGenerator {
+
+    private static final int MAX_FAILURE_SAMPLES = 10;
+    // sleep interval while the arrival rate is zero
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Supplier<? extends RestGenericRequestBuilder<?>> requestTemplate;
+    private ArrivalRate arrivalRate;
+    private Duration duration;
+    private Duration drainTimeout = Duration.ofSeconds(30);
+
+    public RestLoadGenerator(Supplier<? extends RestGenericRequestBuilder<?>> requestTemplate) {
+        this.requestTemplate = Preconditions.checkNotNull(requestTemplate, "Request template can't be null!");
+    }
+
+    /**
+     *	Sets the target arrival rate of the requests
+     *
+     *	@param arrivalRate arrival rate, see {@link ArrivalRate} factory methods
+     *	@return self
+     */
+    public RestLoadGenerator withArrivalRate(ArrivalRate arrivalRate) {
+        this.arrivalRate = Preconditions.checkNotNull(arrivalRate, "Arrival rate can't be null!");
+        return this;
+    }
+
+    /**
+     *	Sets the constant target arrival rate of the requests
+     *
+     *	@param ratePerSecond number of requests-per-second
+     *	@return self
+     */
+    public RestLoadGenerator withArrivalRate(double ratePerSecond) {
+        return withArrivalRate(ArrivalRate.constant(ratePerSecond));
+    }
+
+    /**
+     *	Sets the duration of the load (time while new requests are sent)
+     *
+     *	@param duration load duration
+     *	@return self
+     */
+    public RestLoadGenerator during(Duration duration) {
+        Preconditions.checkArgument(!duration.isNegative() && !duration.isZero(), "Duration must be positive!");
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     *	Sets how long to wait for the responses of the requests sent before the end of the load.
+     *	Default value is 30 seconds.
+     *
+     *	@param drainTimeout time to wait for the outstanding responses
+     *	@return self
+     */
+    public RestLoadGenerator withDrainTimeout(Duration drainTimeout) {
+        this.drainTimeout = Preconditions.checkNotNull(drainTimeout, "Drain timeout can't be null!");
+        return this;
+    }
+
+    /**
+     *	Runs the load and applies the checkers to each of the responses. Blocks calling thread
+     *	until the load is finished and outstanding responses are received (or drain timeout
+     *	expires).
+     *
+     *	@param checkers to be applied on each response
+     *	@return load report
+     */
+    public LoadReport run(Function<RestResponseMatchers, RestResponseAsserter> checkers) {
+        Preconditions.checkState(arrivalRate != null, "Arrival rate must be defined!");
+        Preconditions.checkState(duration != null, "Load duration must be defined!");
+
+        final LatencyRecorder latencies = new LatencyRecorder();
+        final AtomicLong succeeded = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong assertionFailures = new AtomicLong();
+        final List<Throwable> failureSamples = new ArrayList<>();
+        final Set<CompletableFuture<Object>> outstanding = ConcurrentHashMap.newKeySet();
+
+        final long start = System.nanoTime();
+        final long end = start + duration.toNanos();
+        long scheduled = 0;
+        long nextSendTime = start;
+
+        while (nextSendTime < end) {
+            final double rate = arrivalRate.ratePerSecond(Duration.ofNanos(nextSendTime - start));
+            if (rate <= 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                nextSendTime = Math.max(nextSendTime + IDLE_PARK_NANOS, System.nanoTime());
+                continue;
+            }
+            parkUntil(nextSendTime);
+
+            final long scheduledTime = nextSendTime;
+            scheduled++;
+            // latency is taken when the response arrives, not when the checkers are done
+            final AtomicLong responseTime = new AtomicLong();
+            final Function<RestResponseMatchers, RestResponseAsserter> timedCheckers =
+                    matchers -> {
+                        responseTime.set(System.nanoTime());
+                        return checkers.apply(matchers);
+                    };
+            CompletableFuture<Object> future;
+            try {
+                future = requestTemplate.get().expectAsync(timedCheckers);
+            } catch (RuntimeException ex) {
+                future = CompletableFuture.failedFuture(ex);
+            }
+            final CompletableFuture<Object> completion =
+                    future.whenComplete(
+                            (result, error) -> {
+                                final long received = responseTime.get();
+                                latencies.record((received != 0 ? received : System.nanoTime()) - scheduledTime);
+                                if (error == null) {
+                                    succeeded.incrementAndGet();
+                                    return;
+                                }
+                                final Throwable cause = unwrap(error);
+                                if (cause instanceof AssertionError) {
+                                    assertionFailures.incrementAndGet();
+                                } else {
+                                    errors.incrementAndGet();
+                                }
+                                synchronized (failureSamples) {
+                                    if (failureSamples.size() < MAX_FAILURE_SAMPLES) {
+                                        failureSamples.add(cause);
+                                    }
+                                }
+                            });
+            // completed requests remove themselves, so the sending loop never scans the set
+            outstanding.add(completion);
+            completion.whenComplete((result, error) -> outstanding.remove(completion));
+            nextSendTime += (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        }
+
+        awaitOutstanding(outstanding);
+        final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        synchronized (failureSamples) {
+            return new LoadReport(
+                    elapsed,
+                    scheduled,
+                    succeeded.get(),
+                    errors.get(),
+                    assertionFailures.get(),
+                    latencies.snapshot(),
+                    new ArrayList<>(failureSamples));
+        }
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new PaxoRestException("Load generation interrupted");
+            }
+        }
+    }
+
+    private void awaitOutstanding(Set<CompletableFuture<Object>> outstanding) {
+        try {
+            CompletableFuture.allOf(outstanding.toArray(new CompletableFuture<?>[0]))
+                    .get(drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new PaxoRestException("Load generation interrupted: ", ex);
+        } catch (TimeoutException | ExecutionException ex) {
+            // failures are already accounted, not completed requests are reported as incomplete
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
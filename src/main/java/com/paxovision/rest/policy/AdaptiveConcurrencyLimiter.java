@@ -0,0 +1,513 @@
+package com.paxovision.rest.policy;
+
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nonnull;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *	Interceptor limiting the number of requests in flight. The limit is adjusted automatically
+ *	from the observed round-trip time and overload signals: 429/503 responses, read timeouts and
+ *	'Retry-After' header (new requests are paused for the requested time).
+ *
+ *	<p>Requests above the limit wait for a free slot up to the configured time and are rejected
+ *	with {@link ConcurrencyLimitExceededException} after that. Slots are granted in the order of
+ *	the requests. The slot is held till the response body is closed, round-trip time is measured
+ *	till the response headers are received.
+ *
+ *	<p>Async calls acquire the slot before being enqueued (see {@link #acquireAsync()}) and carry
+ *	it as the request tag, so OkHttp dispatcher threads never wait for the slot. Requests without
+ *	the tag wait in the calling thread.
+ */
+public class AdaptiveConcurrencyLimiter implements Interceptor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    /** Limit adjustment algorithm */
+    public enum Algorithm {
+        /**
+         * Additive increase (by one per limit of successful requests), multiplicative decrease on
+         * overload or latency above the threshold
+         */
+        AIMD,
+        /** Limit follows the ratio of the no-load round-trip time to the current one */
+        GRADIENT
+    }
+
+    private static final double GRADIENT_SMOOTHING = 0.2;
+    private static final double NO_LOAD_RTT_DRIFT = 0.001;
+
+    private final Algorithm algorithm;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final double rttTolerance;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // requests waiting for the slot, in order of arrival
+    private final Deque<Slot> waiters = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long pausedUntil;
+    private double noLoadRttNanos = Double.NaN;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder overloads = new LongAdder();
+
+    private AdaptiveConcurrencyLimiter(Builder builder) {
+        this.algorithm = builder.algorithm;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.backoffRatio = builder.backoffRatio;
+        this.latencyThresholdNanos = builder.latencyThreshold == null ? 0 : builder.latencyThreshold.toNanos();
+        this.rttTolerance = builder.rttTolerance;
+        this.maxWaitNanos = builder.maxWait.toNanos();
+        this.limit = builder.initialLimit;
+        this.pausedUntil = System.nanoTime();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    @Override
+    @Nonnull
+    public Response intercept(@Nonnull Chain chain) throws IOException {
+        if (chain.call().isCanceled()) {
+            // do not take the slot of the requests waiting for it
+            throw new IOException("Canceled");
+        }
+        final Slot taggedSlot = chain.request().tag(Slot.class);
+        // tagged slot covers single pass only, i.e. not the re-sends of the same request
+        final Slot slot = taggedSlot != null && taggedSlot.claim() ? taggedSlot : acquireAsync();
+        await(slot);
+        final long start = System.nanoTime();
+        final Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch (IOException ex) {
+            slot.release(ex instanceof SocketTimeoutException);
+            throw ex;
+        } catch (RuntimeException ex) {
+            slot.release();
+            throw ex;
+        }
+        final boolean overloaded = response.code() == 429 || response.code() == 503;
+        sample(overloaded, System.nanoTime() - start, overloaded ? RetryAfter.parse(response) : null);
+        final ResponseBody body = response.body();
+        if (body == null) {
+            slot.release();
+            return response;
+        }
+        return response.newBuilder().body(new SlotReleasingBody(body, slot)).build();
+    }
+
+    /**
+     *	Requests the slot without blocking the calling thread. Slots are granted in the order of
+     *	the requests, {@link Slot#acquired()} is completed once the slot is granted or exceptionally
+     *	with {@link ConcurrencyLimitExceededException} if it's not granted within the max wait time.
+     *	Slot must be passed to the request as {@link Slot} tag or released.
+     *
+     *	@return requested slot
+     */
+    public Slot acquireAsync() {
+        final Slot slot = new Slot();
+        lock.lock();
+        try {
+            final long now = System.nanoTime();
+            if (waiters.isEmpty() && isAvailable(now)) {
+                slot.granted = true;
+                inFlight++;
+            } else {
+                waiters.add(slot);
+                if (waiters.size() == 1 && now < pausedUntil) {
+                    scheduleGrant(pausedUntil - now);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (slot.granted) {
+            slot.acquired.complete(slot);
+        } else {
+            CompletableFuture.delayedExecutor(maxWaitNanos, TimeUnit.NANOSECONDS).execute(() -> expire(slot));
+        }
+        return slot;
+    }
+
+    private boolean isAvailable(long now) {
+        return inFlight < (int) limit && now >= pausedUntil;
+    }
+
+    // reject the request, which is still waiting after the max wait time
+    private void expire(Slot slot) {
+        lock.lock();
+        try {
+            if (!waiters.remove(slot)) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        rejected.increment();
+        slot.acquired.completeExceptionally(
+                new ConcurrencyLimitExceededException(
+                        "Concurrency limit " + getLimit() + " exceeded, no slot available in "
+                                + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms"));
+    }
+
+    // grant free slots to the waiting requests, futures are completed outside of the lock
+    private void grant() {
+        final List<Slot> granted = new ArrayList<>();
+        lock.lock();
+        try {
+            final long now = System.nanoTime();
+            while (!waiters.isEmpty() && isAvailable(now)) {
+                final Slot slot = waiters.poll();
+                slot.granted = true;
+                inFlight++;
+                granted.add(slot);
+            }
+        } finally {
+            lock.unlock();
+        }
+        granted.forEach(slot -> slot.acquired.complete(slot));
+    }
+
+    private void scheduleGrant(long delayNanos) {
+        CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(this::grant);
+    }
+
+    // wait in the calling thread for the slot
+    private static void await(Slot slot) throws IOException {
+        try {
+            slot.acquired.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            slot.release();
+            throw new InterruptedIOException("Interrupted while waiting for concurrency limit slot");
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof IOException
+                    ? (IOException) ex.getCause()
+                    : new IOException(ex.getCause());
+        }
+    }
+
+    // adjust the limit according to the sample of the request, which is still in flight
+    private void sample(boolean overloaded, long rttNanos, Duration retryAfter) {
+        lock.lock();
+        try {
+            if (overloaded) {
+                onOverload(retryAfter);
+            } else if (rttNanos > 0) {
+                onSample(rttNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // return the slot or cancel waiting for it, optionally signalling overload (i.e. read timeout)
+    private void release(Slot slot, boolean overloaded) {
+        lock.lock();
+        try {
+            if (slot.granted) {
+                inFlight--;
+                if (overloaded) {
+                    onOverload(null);
+                }
+            } else {
+                waiters.remove(slot);
+            }
+        } finally {
+            lock.unlock();
+        }
+        slot.acquired.completeExceptionally(new CancellationException("Slot released before acquired"));
+        grant();
+    }
+
+    private void onOverload(Duration retryAfter) {
+        overloads.increment();
+        setLimit(limit * backoffRatio);
+        if (retryAfter != null) {
+            pausedUntil = Math.max(pausedUntil, System.nanoTime() + retryAfter.toNanos());
+            scheduleGrant(pausedUntil - System.nanoTime());
+            LOGGER.debug("New requests paused for {} as requested by the server", retryAfter);
+        }
+    }
+
+    private void onSample(long rttNanos) {
+        if (algorithm == Algorithm.AIMD) {
+            if (latencyThresholdNanos > 0 && rttNanos > latencyThresholdNanos) {
+                setLimit(limit * backoffRatio);
+            } else if (inFlight >= limit / 2) {
+                // increase only if the limit is actually used
+                setLimit(limit + 1.0 / limit);
+            }
+        } else {
+            if (Double.isNaN(noLoadRttNanos) || rttNanos < noLoadRttNanos) {
+                noLoadRttNanos = rttNanos;
+            } else {
+                // let no-load RTT slowly follow the service changes
+                noLoadRttNanos += (rttNanos - noLoadRttNanos) * NO_LOAD_RTT_DRIFT;
+            }
+            final double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * noLoadRttNanos / rttNanos));
+            final double newLimit = limit * gradient + Math.sqrt(limit);
+            setLimit(limit * (1 - GRADIENT_SMOOTHING) + newLimit * GRADIENT_SMOOTHING);
+        }
+    }
+
+    private void setLimit(double newLimit) {
+        final int previous = (int) limit;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        if ((int) limit != previous) {
+            LOGGER.debug("Concurrency limit changed {} -> {}", previous, (int) limit);
+        }
+    }
+
+    /** @return current limit of requests in flight */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return number of requests in flight */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return number of requests rejected since slot wasn't available in time */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /** @return number of overload signals (429/503 responses and read timeouts) received */
+    public long getOverloads() {
+        return overloads.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "AdaptiveConcurrencyLimiter{algorithm=%s, limit=%d, inFlight=%d, rejected=%d, overloads=%d}",
+                algorithm, getLimit(), getInFlight(), getRejected(), getOverloads());
+    }
+
+    /**
+     *	Slot of the request in flight, requested by {@link #acquireAsync()}. Released once: when
+     *	the response body is closed, when the call fails or by the caller, who didn't send the
+     *	request. Releasing the slot, which is not granted yet, cancels the waiting.
+     */
+    public final class Slot {
+
+        private final CompletableFuture<Slot> acquired = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final AtomicBoolean released = new AtomicBoolean();
+        // guarded by the limiter lock
+        private boolean granted;
+
+        private Slot() {
+        }
+
+        /** @return future completed once the slot is granted */
+        public CompletableFuture<Slot> acquired() {
+            return acquired;
+        }
+
+        /** Returns the slot or cancels waiting for it, has no effect if already released */
+        public void release() {
+            release(false);
+        }
+
+        private void release(boolean overloaded) {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.release(this, overloaded);
+            }
+        }
+
+        private boolean claim() {
+            return !released.get() && claimed.compareAndSet(false, true);
+        }
+    }
+
+    // body releasing the slot when closed or read till the end
+    private static final class SlotReleasingBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final Slot slot;
+        private BufferedSource source;
+
+        SlotReleasingBody(ResponseBody delegate, Slot slot) {
+            this.delegate = delegate;
+            this.slot = slot;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        @Nonnull
+        public synchronized BufferedSource source() {
+            if (source == null) {
+                source =
+                        Okio.buffer(
+                                new ForwardingSource(delegate.source()) {
+                                    @Override
+                                    public long read(@Nonnull Buffer sink, long byteCount) throws IOException {
+                                        final long read = super.read(sink, byteCount);
+                                        if (read == -1) {
+                                            slot.release();
+                                        }
+                                        return read;
+                                    }
+
+                                    @Override
+                                    public void close() throws IOException {
+                                        try {
+                                            super.close();
+                                        } finally {
+                                            slot.release();
+                                        }
+                                    }
+                                });
+            }
+            return source;
+        }
+    }
+
+    /** Builder for the {@link AdaptiveConcurrencyLimiter} */
+    public static final class Builder {
+
+        private Algorithm algorithm = Algorithm.AIMD;
+        private int initialLimit = 10;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private double backoffRatio = 0.9;
+        private Duration latencyThreshold;
+        private double rttTolerance = 2.0;
+        private Duration maxWait = Duration.ofSeconds(30);
+
+        public AdaptiveConcurrencyLimiter build() {
+            Preconditions.checkState(
+                    minLimit <= initialLimit && initialLimit <= maxLimit,
+                    "Initial limit must be between min and max limits!");
+            return new AdaptiveConcurrencyLimiter(this);
+        }
+
+        /**
+         *	@param algorithm limit adjustment algorithm, default is {@link Algorithm#AIMD}
+         *	@return self
+         */
+        public Builder withAlgorithm(Algorithm algorithm) {
+            this.algorithm = Preconditions.checkNotNull(algorithm, "Algorithm can't be null!");
+            return this;
+        }
+
+        /**
+         *	@param initialLimit limit to start with, default value is 10
+         *	@return self
+         */
+        public Builder withInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         *	@param minLimit lowest allowed limit, default value is 1
+         *	@param maxLimit highest allowed limit, default value is 200
+         *	@return self
+         */
+        public Builder withLimitRange(int minLimit, int maxLimit) {
+            Preconditions.checkArgument(0 < minLimit && minLimit <= maxLimit, "Invalid limit range!");
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         *	@param backoffRatio multiplier applied to the limit on overload, default value is 0.9
+         *	@return self
+         */
+        public Builder withBackoffRatio(double backoffRatio) {
+            Preconditions.checkArgument(0 < backoffRatio && backoffRatio < 1, "Backoff ratio must be in (0..1)!");
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         *	Round-trip time treated as overload by {@link Algorithm#AIMD}. Not set by default (only
+         *	429/503 responses and timeouts decrease the limit).
+         *
+         *	@param latencyThreshold latency threshold
+         *	@return self
+         */
+        public Builder withLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+            return this;
+        }
+
+        /**
+         *	Ratio of the current to no-load round-trip time tolerated by {@link Algorithm#GRADIENT}
+         *	before decreasing the limit. Default value is 2.0.
+         *
+         *	@param rttTolerance tolerance ratio
+         *	@return self
+         */
+        public Builder withRttTolerance(double rttTolerance) {
+            Preconditions.checkArgument(rttTolerance >= 1, "RTT tolerance must be at least 1.0!");
+            this.rttTolerance = rttTolerance;
+            return this;
+        }
+
+        /**
+         *	@param maxWait maximum time request waits for a free slot before rejection, default
+         *	value is 30 seconds
+         *	@return self
+         */
+        public Builder withMaxWait(Duration maxWait) {
+            this.maxWait = Preconditions.checkNotNull(maxWait, "Max wait can't be null!");
+            return this;
+        }
+    }
+}
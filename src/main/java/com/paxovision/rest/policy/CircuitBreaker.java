@@ -0,0 +1,350 @@
+package com.paxovision.rest.policy;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *	Interceptor tracking failure and slow call rates per host over a sliding window of the last
+ *	calls. Once any of the rates reaches its threshold, the host's circuit opens and requests fail
+ *	fast with {@link CircuitBreakerOpenException} instead of waiting for connect and read
+ *	timeouts. After the open duration a limited number of trial calls is let through
+ *	(half-open state), their outcome either closes the circuit or opens it again.
+ *
+ *	<p>Failures are I/O errors and responses with one of the failure status codes, calls taking
+ *	at least the slow call duration are slow. Calls cancelled by the client are not counted.
+ */
+public class CircuitBreaker implements Interceptor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /** State of the host's circuit */
+    public enum State {
+        /** Requests pass, outcomes are recorded */
+        CLOSED,
+        /** Requests are rejected without being sent */
+        OPEN,
+        /** Limited number of trial requests pass, the others are rejected */
+        HALF_OPEN
+    }
+
+    /** Listener notified on circuit state changes */
+    @FunctionalInterface
+    public interface StateListener {
+
+        /**
+         *	Called synchronously on the thread which caused the transition, should return fast
+         *
+         *	@param host host of the circuit
+         *	@param from previous state
+         *	@param to new state
+         */
+        void onStateChange(String host, State from, State to);
+    }
+
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final Set<Integer> failureStatusCodes;
+    private final List<StateListener> listeners;
+
+    private final ConcurrentMap<String, HostCircuit> circuits = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    private CircuitBreaker(Builder builder) {
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallNanos = builder.slowCallDuration.toNanos();
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = builder.minimumCalls;
+        this.openNanos = builder.openDuration.toNanos();
+        this.halfOpenCalls = builder.halfOpenCalls;
+        this.failureStatusCodes = ImmutableSet.copyOf(builder.failureStatusCodes);
+        this.listeners = ImmutableList.copyOf(builder.listeners);
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    @Override
+    @Nonnull
+    public Response intercept(@Nonnull Chain chain) throws IOException {
+        final HostCircuit circuit = circuits.computeIfAbsent(chain.request().url().host(), HostCircuit::new);
+        final long generation = circuit.acquire();
+        final long start = System.nanoTime();
+        final Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch (IOException ex) {
+            if (chain.call().isCanceled()) {
+                circuit.release(generation);
+            } else {
+                circuit.record(generation, true, System.nanoTime() - start >= slowCallNanos);
+            }
+            throw ex;
+        } catch (RuntimeException | Error ex) {
+            // failed on the client side, the outcome of the call is not known
+            circuit.release(generation);
+            throw ex;
+        }
+        circuit.record(
+                generation,
+                failureStatusCodes.contains(response.code()),
+                System.nanoTime() - start >= slowCallNanos);
+        return response;
+    }
+
+    /**
+     *	@param host host name
+     *	@return current state of the host's circuit ({@link State#CLOSED} for unknown hosts)
+     */
+    public State getState(String host) {
+        final HostCircuit circuit = circuits.get(host);
+        return circuit == null ? State.CLOSED : circuit.getState();
+    }
+
+    /** @return current state of the circuit per host */
+    public Map<String, State> getStates() {
+        final ImmutableMap.Builder<String, State> states = ImmutableMap.builder();
+        circuits.forEach((host, circuit) -> states.put(host, circuit.getState()));
+        return states.build();
+    }
+
+    /** @return number of requests rejected by open (or half-open) circuits */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CircuitBreaker{states=%s, rejected=%d}", getStates(), getRejected());
+    }
+
+    // circuit of a single host, window of the call outcomes is reset on each state change
+    private final class HostCircuit {
+
+        private final String host;
+        private final boolean[] failures = new boolean[windowSize];
+        private final boolean[] slowCalls = new boolean[windowSize];
+        private int position;
+        private int calls;
+        private int failureCount;
+        private int slowCallCount;
+
+        private State state = State.CLOSED;
+        // outcomes of the calls started in previous states are ignored
+        private long generation;
+        private long openedAt;
+        private int trialPermits;
+
+        HostCircuit(String host) {
+            this.host = host;
+        }
+
+        synchronized State getState() {
+            return state;
+        }
+
+        // take permission for the call, returns generation of the current state
+        synchronized long acquire() throws CircuitBreakerOpenException {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < openNanos) {
+                    rejected.increment();
+                    throw new CircuitBreakerOpenException("Circuit breaker for host " + host + " is open");
+                }
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialPermits == 0) {
+                    rejected.increment();
+                    throw new CircuitBreakerOpenException(
+                            "Circuit breaker for host " + host + " is half-open, all trial calls in progress");
+                }
+                trialPermits--;
+            }
+            return generation;
+        }
+
+        // return permission of the call, which outcome is not known
+        synchronized void release(long callGeneration) {
+            if (callGeneration == generation && state == State.HALF_OPEN) {
+                trialPermits++;
+            }
+        }
+
+        synchronized void record(long callGeneration, boolean failure, boolean slowCall) {
+            if (callGeneration != generation) {
+                return;
+            }
+            if (calls == windowSize) {
+                failureCount -= failures[position] ? 1 : 0;
+                slowCallCount -= slowCalls[position] ? 1 : 0;
+            } else {
+                calls++;
+            }
+            failures[position] = failure;
+            slowCalls[position] = slowCall;
+            failureCount += failure ? 1 : 0;
+            slowCallCount += slowCall ? 1 : 0;
+            position = (position + 1) % windowSize;
+
+            if (state == State.HALF_OPEN) {
+                if (calls >= halfOpenCalls) {
+                    transition(isThresholdReached() ? State.OPEN : State.CLOSED);
+                }
+            } else if (calls >= minimumCalls && isThresholdReached()) {
+                transition(State.OPEN);
+            }
+        }
+
+        private boolean isThresholdReached() {
+            return failureCount >= failureRateThreshold * calls || slowCallCount >= slowCallRateThreshold * calls;
+        }
+
+        private void transition(State to) {
+            final State from = state;
+            if (to == State.OPEN) {
+                LOGGER.warn(
+                        "Circuit breaker for host {} opened: {} of {} calls failed, {} slow",
+                        host,
+                        failureCount,
+                        calls,
+                        slowCallCount);
+                openedAt = System.nanoTime();
+            } else {
+                LOGGER.info("Circuit breaker for host {} changed {} -> {}", host, from, to);
+            }
+            state = to;
+            generation++;
+            trialPermits = to == State.HALF_OPEN ? halfOpenCalls : 0;
+            Arrays.fill(failures, false);
+            Arrays.fill(slowCalls, false);
+            position = 0;
+            calls = 0;
+            failureCount = 0;
+            slowCallCount = 0;
+            for (StateListener listener : listeners) {
+                listener.onStateChange(host, from, to);
+            }
+        }
+    }
+
+    /** Builder for the {@link CircuitBreaker} */
+    public static final class Builder {
+
+        private double failureRateThreshold = 0.5;
+        private double slowCallRateThreshold = 1.0;
+        private Duration slowCallDuration = Duration.ofSeconds(10);
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+        private Set<Integer> failureStatusCodes = ImmutableSet.of(500, 502, 503, 504);
+        private final List<StateListener> listeners = new ArrayList<>();
+
+        public CircuitBreaker build() {
+            Preconditions.checkState(
+                    minimumCalls <= windowSize && halfOpenCalls <= windowSize,
+                    "Minimum and half-open calls can't exceed the sliding window size!");
+            return new CircuitBreaker(this);
+        }
+
+        /**
+         *	@param failureRateThreshold rate of failed calls opening the circuit, default value is 0.5
+         *	@return self
+         */
+        public Builder withFailureRateThreshold(double failureRateThreshold) {
+            Preconditions.checkArgument(
+                    0 < failureRateThreshold && failureRateThreshold <= 1, "Failure rate threshold must be in (0..1]!");
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         *	@param slowCallDuration duration of the call considered as slow, default value is 10 seconds
+         *	@param slowCallRateThreshold rate of slow calls opening the circuit, default value is 1.0
+         *	@return self
+         */
+        public Builder withSlowCallThreshold(Duration slowCallDuration, double slowCallRateThreshold) {
+            Preconditions.checkArgument(
+                    0 < slowCallRateThreshold && slowCallRateThreshold <= 1, "Slow call rate threshold must be in (0..1]!");
+            this.slowCallDuration = Preconditions.checkNotNull(slowCallDuration, "Slow call duration can't be null!");
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        /**
+         *	@param windowSize number of the last calls the rates are calculated from, default value is 20
+         *	@param minimumCalls number of calls required before the circuit may open, default value is 10
+         *	@return self
+         */
+        public Builder withSlidingWindow(int windowSize, int minimumCalls) {
+            Preconditions.checkArgument(
+                    0 < minimumCalls && minimumCalls <= windowSize, "Invalid sliding window size or minimum calls!");
+            this.windowSize = windowSize;
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         *	@param openDuration time the circuit stays open before trial calls are let through,
+         *	default value is 30 seconds
+         *	@return self
+         */
+        public Builder withOpenDuration(Duration openDuration) {
+            this.openDuration = Preconditions.checkNotNull(openDuration, "Open duration can't be null!");
+            return this;
+        }
+
+        /**
+         *	@param halfOpenCalls number of trial calls in half-open state, default value is 3
+         *	@return self
+         */
+        public Builder withHalfOpenCalls(int halfOpenCalls) {
+            Preconditions.checkArgument(halfOpenCalls > 0, "Half-open calls must be positive!");
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        /**
+         *	@param statusCodes response status codes counted as failures, default values are 500, 502,
+         *	503 and 504
+         *	@return self
+         */
+        public Builder withFailureStatusCodes(Integer... statusCodes) {
+            this.failureStatusCodes = ImmutableSet.copyOf(Arrays.asList(statusCodes));
+            return this;
+        }
+
+        /**
+         *	@param listener to be notified on circuit state changes
+         *	@return self
+         */
+        public Builder withStateListener(StateListener listener) {
+            listeners.add(Preconditions.checkNotNull(listener, "State listener can't be null!"));
+            return this;
+        }
+    }
+}
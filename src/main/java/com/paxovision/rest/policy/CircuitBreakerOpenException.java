@@ -0,0 +1,11 @@
+package com.paxovision.rest.policy;
+
+import java.io.IOException;
+
+/** Signals, that request was rejected without being sent since the host's circuit breaker is open */
+public class CircuitBreakerOpenException extends IOException {
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
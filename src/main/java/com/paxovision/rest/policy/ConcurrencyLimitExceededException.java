@@ -0,0 +1,11 @@
+package com.paxovision.rest.policy;
+
+import java.io.IOException;
+
+/** Signals, that request was rejected since concurrency limit slot wasn't available in time */
+public class ConcurrencyLimitExceededException extends IOException {
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
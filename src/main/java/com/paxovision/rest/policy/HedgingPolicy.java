@@ -0,0 +1,195 @@
+package com.paxovision.rest.policy;
+
+import com.google.common.base.Preconditions;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *	Hedging settings for idempotent read requests (GET/HEAD): if response is not received within
+ *	the hedging delay, the second identical request is sent, first response wins and the other
+ *	call is cancelled. Delay is either fixed or the running percentile of the latencies of the
+ *	original requests. Extra load is limited by the budget.
+ *
+ *	<p>Latency samples, budget and statistics belong to the policy instance and are shared by all
+ *	the requests using it.
+ */
+public class HedgingPolicy {
+
+    private static final int RESERVOIR_SIZE = 1024;
+    private static final int RECALCULATE_EVERY = 64;
+
+    private final Duration fixedDelay;
+    private final double percentile;
+    private final Duration initialDelay;
+    private final int minSamples;
+    private final RetryBudget budget;
+
+    // ring buffer with the latest latency samples
+    private final long[] samples = new long[RESERVOIR_SIZE];
+    private long sampleCount = 0;
+    private long percentileDelayNanos;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    private HedgingPolicy(Builder builder) {
+        this.fixedDelay = builder.fixedDelay;
+        this.percentile = builder.percentile;
+        this.initialDelay = builder.initialDelay;
+        this.minSamples = builder.minSamples;
+        this.budget = new RetryBudget(builder.maxHedgeRatio, builder.minHedges);
+        this.percentileDelayNanos = initialDelay.toNanos();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     *	Registers new request and returns the hedging delay for it
+     *
+     *	@return time to wait for the response before sending the hedge request
+     */
+    public synchronized Duration onRequest() {
+        requests.increment();
+        budget.deposit();
+        return fixedDelay != null ? fixedDelay : Duration.ofNanos(percentileDelayNanos);
+    }
+
+    /** @return true if hedge request is allowed by the budget */
+    public boolean tryHedge() {
+        if (budget.tryWithdraw()) {
+            hedges.increment();
+            return true;
+        }
+        budgetExhausted.increment();
+        return false;
+    }
+
+    /**
+     *	Records the winning response
+     *
+     *	@param hedgeWon true if hedge request response was received first
+     */
+    public void onResponse(boolean hedgeWon) {
+        if (hedgeWon) {
+            hedgeWins.increment();
+        }
+    }
+
+    /**
+     *	Records the latency of the original request. If the hedge response was received first,
+     *	the original request is cancelled and the time till then is recorded as its (censored)
+     *	latency, which is never shorter than the hedging delay, so the percentile delay doesn't
+     *	drift down as it would with the hedge latencies.
+     *
+     *	@param latencyNanos time from the original request till its or the hedge response
+     */
+    public synchronized void onPrimaryLatency(long latencyNanos) {
+        if (fixedDelay != null) {
+            return;
+        }
+        samples[(int) (sampleCount++ % RESERVOIR_SIZE)] = latencyNanos;
+        if (sampleCount >= minSamples && (sampleCount == minSamples || sampleCount % RECALCULATE_EVERY == 0)) {
+            final long[] sorted = Arrays.copyOf(samples, (int) Math.min(sampleCount, RESERVOIR_SIZE));
+            Arrays.sort(sorted);
+            final int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            percentileDelayNanos = sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))];
+        }
+    }
+
+    /** @return number of requests executed with this policy */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /** @return number of hedge requests sent */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /** @return number of requests, where hedge response was received first */
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    /** @return number of hedges not sent since the budget was exhausted */
+    public long getBudgetExhausted() {
+        return budgetExhausted.sum();
+    }
+
+    /** @return current hedging delay */
+    public synchronized Duration getCurrentDelay() {
+        return fixedDelay != null ? fixedDelay : Duration.ofNanos(percentileDelayNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "HedgingPolicy{delay=%s, requests=%d, hedges=%d, hedgeWins=%d, budgetExhausted=%d}",
+                getCurrentDelay(), getRequests(), getHedges(), getHedgeWins(), getBudgetExhausted());
+    }
+
+    /** Builder for the {@link HedgingPolicy} */
+    public static final class Builder {
+
+        private Duration fixedDelay;
+        private double percentile = 95;
+        private Duration initialDelay = Duration.ofSeconds(1);
+        private int minSamples = 20;
+        private double maxHedgeRatio = 0.1;
+        private int minHedges = 10;
+
+        public HedgingPolicy build() {
+            return new HedgingPolicy(this);
+        }
+
+        /**
+         *	Use fixed hedging delay
+         *
+         *	@param delay time to wait for the response before sending the hedge request
+         *	@return self
+         */
+        public Builder withDelay(Duration delay) {
+            this.fixedDelay = Preconditions.checkNotNull(delay, "Delay can't be null!");
+            return this;
+        }
+
+        /**
+         *	Use running percentile of the observed latencies as hedging delay (default is p95
+         *	with 1 second delay used till 20 samples are collected)
+         *
+         *	@param percentile latency percentile in (0..100]
+         *	@param initialDelay delay used till enough samples are collected
+         *	@param minSamples number of samples required to use percentile
+         *	@return self
+         */
+        public Builder withPercentileDelay(double percentile, Duration initialDelay, int minSamples) {
+            Preconditions.checkArgument(percentile > 0 && percentile <= 100, "Percentile must be in (0..100]!");
+            Preconditions.checkArgument(minSamples > 0, "minSamples must be positive integer value!");
+            this.fixedDelay = null;
+            this.percentile = percentile;
+            this.initialDelay = Preconditions.checkNotNull(initialDelay, "Initial delay can't be null!");
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         *	Limits hedge requests to the given ratio of the requests. Default is 10% with 10
+         *	hedges allowed regardless of the ratio.
+         *
+         *	@param maxHedgeRatio maximum ratio of hedges to requests
+         *	@param minHedges hedges allowed in addition to the ratio
+         *	@return self
+         */
+        public Builder withBudget(double maxHedgeRatio, int minHedges) {
+            Preconditions.checkArgument(maxHedgeRatio >= 0, "Hedge ratio can't be negative value!");
+            this.maxHedgeRatio = maxHedgeRatio;
+            this.minHedges = minHedges;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.paxovision.rest.policy;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Permits and waiting time statistics of a single rate limit */
+public class RateLimitStats {
+
+    private final LongAdder permits = new LongAdder();
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    void record(long waitNanos) {
+        permits.increment();
+        if (waitNanos > 0) {
+            delayed.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulate(waitNanos);
+        }
+    }
+
+    /** @return number of permits granted */
+    public long getPermits() {
+        return permits.sum();
+    }
+
+    /** @return number of requests, which had to wait for the permit */
+    public long getDelayed() {
+        return delayed.sum();
+    }
+
+    /** @return total time requests waited for the permits */
+    public Duration getTotalWait() {
+        return Duration.ofNanos(totalWaitNanos.sum());
+    }
+
+    /** @return longest time a request waited for the permit */
+    public Duration getMaxWait() {
+        return Duration.ofNanos(maxWaitNanos.get());
+    }
+
+    /** @return average time a request waited for the permit */
+    public Duration getAverageWait() {
+        final long count = permits.sum();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(totalWaitNanos.sum() / count);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "RateLimitStats{permits=%d, delayed=%d, averageWait=%s, maxWait=%s}",
+                getPermits(), getDelayed(), getAverageWait(), getMaxWait());
+    }
+}
@@ -0,0 +1,283 @@
+package com.paxovision.rest.policy;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.paxovision.rest.request.StreamingResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *	Coalesces identical concurrent GET requests (same URL and headers, except the ignored ones)
+ *	into single network request. The first request leads the flight, requests arriving while it's
+ *	in flight follow it without being sent (see {@link #follow(Request)}), so no thread waits for
+ *	the leader's response. Requests arriving after the response is received start a new flight,
+ *	nothing is cached.
+ *
+ *	<p>The leader's body is buffered only if any request follows it and only up to the max shared
+ *	body size, every follower gets its own copy, so the assertions are applied independently.
+ *	Followers of the larger bodies and of the failed flights send their own requests. Hedge
+ *	requests (see {@link HedgingPolicy}) and streamed responses (see {@link StreamingResponse})
+ *	are never coalesced.
+ */
+public class RequestCoalescer implements Interceptor {
+
+    /** Default size in bytes of the largest body shared with the followers */
+    public static final long DEFAULT_MAX_SHARED_BODY_SIZE = 1024 * 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    private final Set<String> ignoredHeaders;
+    private final long maxSharedBodySize;
+    private final ConcurrentMap<List<Object>, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder flights = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private RequestCoalescer(Builder builder) {
+        this.ignoredHeaders = builder.ignoredHeaders;
+        this.maxSharedBodySize = builder.maxSharedBodySize;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     *	Follows the identical request in flight (if any)
+     *
+     *	@param request request to be sent
+     *	@return future completed with the copy of the leader's response or with null if it can't
+     *	be shared and the request must be sent on its own; null if there is no flight to follow
+     */
+    @Nullable
+    public CompletableFuture<Response> follow(Request request) {
+        if (!isCoalesced(request)) {
+            return null;
+        }
+        final Flight flight = inFlight.get(key(request));
+        final CompletableFuture<Response> shared = flight == null ? null : flight.follow(request);
+        if (shared != null) {
+            LOGGER.debug("{} {} follows identical request in flight", request.method(), request.url());
+        }
+        return shared;
+    }
+
+    /**
+     *	Starts the new flight led by the request, unless identical request is in flight already.
+     *	Leader must be sent as returned and {@link #land(Request)}-ed once completed.
+     *
+     *	@param request request to be sent
+     *	@return request tagged with the flight or given request if it doesn't lead any flight
+     */
+    public Request lead(Request request) {
+        if (!isCoalesced(request)) {
+            return request;
+        }
+        final List<Object> key = key(request);
+        final Flight flight = new Flight(key);
+        if (inFlight.putIfAbsent(key, flight) != null) {
+            return request;
+        }
+        flights.increment();
+        return request.newBuilder().tag(Flight.class, flight).build();
+    }
+
+    /**
+     *	Ends the flight led by the request (if any) without sharing its response, i.e. if the call
+     *	wasn't sent at all. Has no effect once the response was received.
+     *
+     *	@param request request returned by {@link #lead(Request)}
+     */
+    public static void land(Request request) {
+        final Flight flight = request.tag(Flight.class);
+        if (flight != null) {
+            flight.share(null);
+        }
+    }
+
+    @Override
+    @Nonnull
+    public Response intercept(@Nonnull Chain chain) throws IOException {
+        final Request request = chain.request();
+        final Flight flight = request.tag(Flight.class);
+        // hedge requests carry the tags of the original request, but never lead the flight
+        if (flight == null || request.tag(HedgingPolicy.class) != null) {
+            return chain.proceed(request);
+        }
+        final Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException | RuntimeException ex) {
+            flight.share(null);
+            throw ex;
+        }
+        flight.share(response);
+        return response;
+    }
+
+    private boolean isCoalesced(Request request) {
+        return "GET".equals(request.method())
+                && request.tag(HedgingPolicy.class) == null
+                && !StreamingResponse.isStreaming(request);
+    }
+
+    private List<Object> key(Request request) {
+        return ImmutableList.of(request.url(), significantHeaders(request.headers()));
+    }
+
+    private Headers significantHeaders(Headers headers) {
+        if (ignoredHeaders.isEmpty()) {
+            return headers;
+        }
+        final Headers.Builder builder = headers.newBuilder();
+        ignoredHeaders.forEach(builder::removeAll);
+        return builder.build();
+    }
+
+    // body of the response if it's not larger than the max shared size, leader's body is not consumed
+    @Nullable
+    private byte[] peekBody(ResponseBody body) {
+        try {
+            final BufferedSource source = body.source();
+            if (source.request(maxSharedBodySize + 1)) {
+                return null;
+            }
+            return source.peek().readByteArray();
+        } catch (IOException ex) {
+            // leader gets the same error when reading the body
+            return null;
+        }
+    }
+
+    /** @return number of network requests performed on behalf of the coalesced GETs */
+    public long getFlights() {
+        return flights.sum();
+    }
+
+    /** @return number of requests served by the response of another request in flight */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RequestCoalescer{flights=%d, coalesced=%d}", getFlights(), getCoalesced());
+    }
+
+    /** Flight of the leading request, attached to it as the tag */
+    public final class Flight {
+
+        private final List<Object> key;
+        // followers waiting for the leader's response, null once the response is shared
+        private List<Follower> followers = new ArrayList<>();
+
+        private Flight(List<Object> key) {
+            this.key = key;
+        }
+
+        // register the follower or return null if the response is shared already
+        private synchronized CompletableFuture<Response> follow(Request request) {
+            if (followers == null) {
+                return null;
+            }
+            final Follower follower = new Follower(request);
+            followers.add(follower);
+            return follower.response;
+        }
+
+        // end the flight, response (if any) is shared with the followers
+        private void share(@Nullable Response response) {
+            final List<Follower> waiting;
+            synchronized (this) {
+                waiting = followers == null ? Collections.emptyList() : followers;
+                followers = null;
+            }
+            inFlight.remove(key, this);
+            if (waiting.isEmpty()) {
+                // nobody follows, the body is passed to the leader unbuffered
+                return;
+            }
+            final ResponseBody body = response == null ? null : response.body();
+            final byte[] content = body == null ? null : peekBody(body);
+            for (Follower follower : waiting) {
+                if (response == null || (body != null && content == null)) {
+                    follower.response.complete(null);
+                    continue;
+                }
+                final Response.Builder builder = response.newBuilder().request(follower.request);
+                if (body != null) {
+                    final MediaType contentType = body.contentType();
+                    builder.body(ResponseBody.create(content, contentType));
+                }
+                final Response copy = builder.build();
+                coalesced.increment();
+                if (!follower.response.complete(copy)) {
+                    copy.close();
+                }
+            }
+        }
+    }
+
+    // request waiting for the leader's response
+    private static final class Follower {
+
+        private final Request request;
+        private final CompletableFuture<Response> response = new CompletableFuture<>();
+
+        Follower(Request request) {
+            this.request = request;
+        }
+    }
+
+    /** Builder for the {@link RequestCoalescer} */
+    public static final class Builder {
+
+        private Set<String> ignoredHeaders = ImmutableSet.of();
+        private long maxSharedBodySize = DEFAULT_MAX_SHARED_BODY_SIZE;
+
+        public RequestCoalescer build() {
+            return new RequestCoalescer(this);
+        }
+
+        /**
+         *	@param headerNames headers not taken into account when comparing the requests (i.e.
+         *	request ID), the value of the first request is sent
+         *	@return self
+         */
+        public Builder ignoringHeaders(String... headerNames) {
+            this.ignoredHeaders = ImmutableSet.copyOf(Arrays.asList(headerNames));
+            return this;
+        }
+
+        /**
+         *	@param maxSharedBodySize size in bytes of the largest body buffered for the followers,
+         *	followers of the larger ones send their own requests (default is {@link
+         *	#DEFAULT_MAX_SHARED_BODY_SIZE})
+         *	@return self
+         */
+        public Builder withMaxSharedBodySize(long maxSharedBodySize) {
+            Preconditions.checkArgument(maxSharedBodySize >= 0, "Max shared body size can't be negative!");
+            this.maxSharedBodySize = maxSharedBodySize;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.paxovision.rest.policy;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import okhttp3.Request;
+
+/**
+ *	Token bucket rate limits keyed by host and by route template. Acquiring permit never blocks:
+ *	{@link #reserve(Request)} returns the time the request has to be delayed, so the caller decides
+ *	how to wait (sleep for sync calls, delayed send for async calls).
+ *
+ *	<p>Limits are applied once per logical request, redirects and authentication retries are not
+ *	counted.
+ */
+public class RequestRateLimiter {
+
+    private static final Pattern ROUTE_VARIABLE = Pattern.compile("\\{[^/}]+}");
+
+    private final Limit defaultHostLimit;
+    private final Map<String, Limit> hostLimits;
+    private final List<Route> routes;
+    private final Map<String, TokenBucket> hostBuckets = new ConcurrentHashMap<>();
+    private final Map<String, RateLimitStats> stats = new ConcurrentHashMap<>();
+
+    private RequestRateLimiter(Builder builder) {
+        this.defaultHostLimit = builder.defaultHostLimit;
+        this.hostLimits = new LinkedHashMap<>(builder.hostLimits);
+        this.routes = new ArrayList<>();
+        builder.routeLimits.forEach((template, limit) -> routes.add(new Route(template, limit)));
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     *	Reserves permits for the request from the host and the route limits. Both permits are
+     *	reserved for the same send time, so the permit of the less loaded limit isn't taken now and
+     *	used later.
+     *
+     *	@param request request to be sent
+     *	@return time in nanoseconds the request must be delayed before sending
+     */
+    public long reserve(Request request) {
+        return reserve(request, 0);
+    }
+
+    /**
+     *	Reserves permits for the request, which can't be sent before the given delay (i.e. retry
+     *	backoff), so the delay and the wait for the permits overlap. Only the wait beyond the delay
+     *	is recorded to the statistics.
+     *
+     *	@param request request to be sent
+     *	@param delayNanos minimal delay of the request in nanoseconds
+     *	@return time in nanoseconds the request must be delayed before sending, at least the given
+     *	delay
+     */
+    public long reserve(Request request, long delayNanos) {
+        final String host = request.url().host();
+        final Limit hostLimit = hostLimits.getOrDefault(host, defaultHostLimit);
+        final TokenBucket hostBucket =
+                hostLimit == null ? null : hostBuckets.computeIfAbsent(host, key -> hostLimit.newBucket());
+        final Route route = findRoute(request.url().encodedPath());
+
+        // earliest send time, permits are reserved from it
+        final long earliest = System.nanoTime() + delayNanos;
+        if (route == null) {
+            return delayNanos + (hostBucket == null ? 0 : record("host:" + host, hostBucket.reserveFrom(earliest)));
+        }
+        if (hostBucket == null) {
+            return delayNanos + record("route:" + route.template, route.bucket.reserveFrom(earliest));
+        }
+        // host bucket is always locked first, so concurrent reservations can't deadlock
+        final long hostWait;
+        final long routeWait;
+        synchronized (hostBucket) {
+            synchronized (route.bucket) {
+                hostWait = hostBucket.waitTime(earliest);
+                routeWait = route.bucket.waitTime(earliest);
+                final long sendTime = earliest + Math.max(hostWait, routeWait);
+                hostBucket.reserveAt(sendTime);
+                route.bucket.reserveAt(sendTime);
+            }
+        }
+        // delay is recorded to the limit, which determined the send time; own wait of the other
+        // limit is only the artifact of the permits reserved for the future send times
+        final long wait = Math.max(hostWait, routeWait);
+        record("host:" + host, hostWait == wait ? wait : 0);
+        record("route:" + route.template, routeWait == wait ? wait : 0);
+        return delayNanos + wait;
+    }
+
+    // first defined route matching the path or null
+    private Route findRoute(String path) {
+        for (Route route : routes) {
+            if (route.matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    // record the wait caused by the limit and return it
+    private long record(String key, long waitNanos) {
+        statsFor(key).record(waitNanos);
+        return waitNanos;
+    }
+
+    /**
+     *	Returns permits statistics for each of the limits. Keys are {@code "host:<host name>"} and
+     *	{@code "route:<route template>"}.
+     *
+     *	@return statistics by limit key
+     */
+    public Map<String, RateLimitStats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    private RateLimitStats statsFor(String key) {
+        return stats.computeIfAbsent(key, k -> new RateLimitStats());
+    }
+
+    // rate limit settings
+    private static final class Limit {
+        private final double permitsPerSecond;
+        private final int burst;
+
+        private Limit(double permitsPerSecond, int burst) {
+            Preconditions.checkArgument(permitsPerSecond > 0, "Rate must be positive value!");
+            Preconditions.checkArgument(burst > 0, "Burst must be positive integer value!");
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+
+        private TokenBucket newBucket() {
+            return new TokenBucket(permitsPerSecond, burst);
+        }
+    }
+
+    // route template with own token bucket
+    private static final class Route {
+        private final String template;
+        private final Pattern pattern;
+        private final TokenBucket bucket;
+
+        private Route(String template, Limit limit) {
+            this.template = template;
+            this.pattern = compile(template);
+            this.bucket = limit.newBucket();
+        }
+
+        private boolean matches(String path) {
+            return pattern.matcher(path).matches();
+        }
+
+        // convert "/restaurants/{id}" template to the "/restaurants/[^/]+" regex
+        private static Pattern compile(String template) {
+            final StringBuilder regex = new StringBuilder();
+            final Matcher matcher = ROUTE_VARIABLE.matcher(template);
+            int last = 0;
+            while (matcher.find()) {
+                regex.append(Pattern.quote(template.substring(last, matcher.start()))).append("[^/]+");
+                last = matcher.end();
+            }
+            regex.append(Pattern.quote(template.substring(last)));
+            return Pattern.compile(regex.toString());
+        }
+    }
+
+    /** Builder for the {@link RequestRateLimiter} */
+    public static final class Builder {
+
+        private Limit defaultHostLimit;
+        private final Map<String, Limit> hostLimits = new LinkedHashMap<>();
+        private final Map<String, Limit> routeLimits = new LinkedHashMap<>();
+
+        public RequestRateLimiter build() {
+            return new RequestRateLimiter(this);
+        }
+
+        /**
+         *	Sets the limit applied to each host separately, unless specific host limit is defined
+         *
+         *	@param permitsPerSecond sustained number of requests-per-second for each host
+         *	@param burst number of requests allowed to be sent at once
+         *	@return self
+         */
+        public Builder perHost(double permitsPerSecond, int burst) {
+            this.defaultHostLimit = new Limit(permitsPerSecond, burst);
+            return this;
+        }
+
+        /**
+         *	Sets the limit for the given host
+         *
+         *	@param host host name
+         *	@param permitsPerSecond sustained number of requests-per-second for the host
+         *	@param burst number of requests allowed to be sent at once
+         *	@return self
+         */
+        public Builder forHost(String host, double permitsPerSecond, int burst) {
+            hostLimits.put(Preconditions.checkNotNull(host, "Host can't be null!"), new Limit(permitsPerSecond, burst));
+            return this;
+        }
+
+        /**
+         *	Sets the limit for the route template, i.e. {@code "/restaurants/{id}"}. Template
+         *	variables match single path segment. If request matches several routes, first defined
+         *	route is used.
+         *
+         *	@param routeTemplate path template
+         *	@param permitsPerSecond sustained number of requests-per-second for the route
+         *	@param burst number of requests allowed to be sent at once
+         *	@return self
+         */
+        public Builder forRoute(String routeTemplate, double permitsPerSecond, int burst) {
+            routeLimits.put(
+                    Preconditions.checkNotNull(routeTemplate, "Route template can't be null!"),
+                    new Limit(permitsPerSecond, burst));
+            return this;
+        }
+    }
+}
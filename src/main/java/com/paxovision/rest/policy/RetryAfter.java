@@ -0,0 +1,41 @@
+package com.paxovision.rest.policy;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import javax.annotation.Nullable;
+import okhttp3.Response;
+
+/** Parser for the 'Retry-After' response header (delay in seconds or HTTP date) */
+final class RetryAfter {
+
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private RetryAfter() {
+    }
+
+    /**
+     *	@param response response to get the header from
+     *	@return delay requested by the server or null if header is missing or malformed
+     */
+    @Nullable
+    static Duration parse(Response response) {
+        final String value = response.header(RETRY_AFTER_HEADER);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException ex) {
+            // not a number, try HTTP date below
+        }
+        try {
+            final ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            final Duration delay = Duration.between(ZonedDateTime.now(date.getZone()), date);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.paxovision.rest.policy;
+
+import com.google.common.base.Preconditions;
+
+/**
+ *	Limits retries (or hedge requests) to the given ratio of the requests. Each request deposits
+ *	{@code ratio} tokens, each retry or hedge request withdraws one token. Balance is capped by the
+ *	minimal number of retries, so the budget can't be accumulated during long periods without
+ *	failures.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double maxBalance;
+    private double balance;
+
+    public RetryBudget(double ratio, int minRetries) {
+        Preconditions.checkArgument(ratio >= 0, "Retry ratio can't be negative value!");
+        Preconditions.checkArgument(minRetries >= 0, "Minimal number of retries can't be negative value!");
+        this.ratio = ratio;
+        this.maxBalance = Math.max(1, minRetries);
+        this.balance = minRetries;
+    }
+
+    /** Records new request */
+    public synchronized void deposit() {
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    /** @return true if retry is allowed by the budget */
+    public synchronized boolean tryWithdraw() {
+        if (balance >= 1) {
+            balance -= 1;
+            return true;
+        }
+        return false;
+    }
+}
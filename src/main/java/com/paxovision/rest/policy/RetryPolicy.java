@@ -0,0 +1,248 @@
+package com.paxovision.rest.policy;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
+
+/**
+ *	Retry settings: which responses and errors are retried, delays between attempts and the retry
+ *	budget. Can be defined for the actor (see {@code RestClientActor.Builder#withRetryPolicy}) and
+ *	overridden for the single request (see {@code RestGenericRequestBuilder#withRetryPolicy}).
+ *
+ *	<p>Retry budget belongs to the policy instance and is shared by all the requests using it.
+ */
+public class RetryPolicy {
+
+    private static final Set<String> IDEMPOTENT_METHODS =
+            ImmutableSet.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS", "TRACE");
+    private static final RetryPolicy NONE = newBuilder().withMaxAttempts(1).build();
+
+    private final int maxAttempts;
+    private final Set<Integer> retryableStatusCodes;
+    private final Set<Class<? extends IOException>> retryableExceptions;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final double multiplier;
+    private final double jitter;
+    private final boolean respectRetryAfter;
+    private final Duration maxRetryAfter;
+    private final boolean idempotentOnly;
+    private final RetryBudget budget;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.retryableStatusCodes = ImmutableSet.copyOf(builder.retryableStatusCodes);
+        this.retryableExceptions = ImmutableSet.copyOf(builder.retryableExceptions);
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.respectRetryAfter = builder.respectRetryAfter;
+        this.maxRetryAfter = builder.maxRetryAfter;
+        this.idempotentOnly = builder.idempotentOnly;
+        this.budget = builder.budgetRatio < 0 ? null : new RetryBudget(builder.budgetRatio, builder.budgetMinRetries);
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /** @return policy without any retries */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    /** @return maximum number of attempts (including the first one) */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     *	@param method HTTP method of the request
+     *	@return true if requests with given method may be retried
+     */
+    public boolean isRetryableMethod(String method) {
+        return !idempotentOnly || IDEMPOTENT_METHODS.contains(method);
+    }
+
+    /**
+     *	@param statusCode response status code
+     *	@return true if response with given status code should be retried
+     */
+    public boolean isRetryableStatus(int statusCode) {
+        return retryableStatusCodes.contains(statusCode);
+    }
+
+    /**
+     *	@param error request failure
+     *	@return true if request failed with given error should be retried
+     */
+    public boolean isRetryableException(IOException error) {
+        return retryableExceptions.stream().anyMatch(type -> type.isInstance(error));
+    }
+
+    /**
+     *	Calculates delay before the next attempt
+     *
+     *	@param retry number of the retry (1 for the first retry)
+     *	@param retryAfter delay requested by the server ('Retry-After' header) or null
+     *	@return delay before the next attempt or null if requested delay is too long to wait
+     */
+    @Nullable
+    public Duration backoff(int retry, @Nullable Duration retryAfter) {
+        final double exponential = initialBackoff.toNanos() * Math.pow(multiplier, retry - 1);
+        final double capped = Math.min(maxBackoff.toNanos(), exponential);
+        final double jittered = capped * (1 - jitter * ThreadLocalRandom.current().nextDouble());
+        Duration delay = Duration.ofNanos((long) jittered);
+        if (respectRetryAfter && retryAfter != null) {
+            if (retryAfter.compareTo(maxRetryAfter) > 0) {
+                return null;
+            }
+            delay = retryAfter.compareTo(delay) > 0 ? retryAfter : delay;
+        }
+        return delay;
+    }
+
+    /** @return retry budget or null if retries are not limited by budget */
+    @Nullable
+    RetryBudget getBudget() {
+        return budget;
+    }
+
+    /** Builder for the {@link RetryPolicy} */
+    public static final class Builder {
+
+        private int maxAttempts = 3;
+        private Set<Integer> retryableStatusCodes = ImmutableSet.of(429, 502, 503, 504);
+        private Set<Class<? extends IOException>> retryableExceptions =
+                ImmutableSet.of(SocketException.class, SocketTimeoutException.class);
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(10);
+        private double multiplier = 2;
+        private double jitter = 0.5;
+        private boolean respectRetryAfter = true;
+        private Duration maxRetryAfter = Duration.ofSeconds(60);
+        private boolean idempotentOnly = true;
+        private double budgetRatio = 0.1;
+        private int budgetMinRetries = 10;
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+
+        /**
+         *	@param maxAttempts maximum number of attempts including the first one, default value is 3
+         *	@return self
+         */
+        public Builder withMaxAttempts(int maxAttempts) {
+            Preconditions.checkArgument(maxAttempts > 0, "maxAttempts must be positive integer value!");
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         *	@param statusCodes response status codes to be retried, default are 429, 502, 503, 504
+         *	@return self
+         */
+        public Builder withRetryableStatusCodes(Integer... statusCodes) {
+            this.retryableStatusCodes = ImmutableSet.copyOf(Arrays.asList(statusCodes));
+            return this;
+        }
+
+        /**
+         *	@param exceptions request failures to be retried (including subclasses), default are
+         *	{@link SocketException} and {@link SocketTimeoutException}
+         *	@return self
+         */
+        @SafeVarargs
+        public final Builder withRetryableExceptions(Class<? extends IOException>... exceptions) {
+            this.retryableExceptions = ImmutableSet.copyOf(Arrays.asList(exceptions));
+            return this;
+        }
+
+        /**
+         *	Sets exponential backoff delays: n-th retry is delayed by {@code initialBackoff *
+         *	multiplier^(n-1)}, but not more than {@code maxBackoff}. Default is 100ms, 10s, 2.0.
+         *
+         *	@param initialBackoff delay before the first retry
+         *	@param maxBackoff maximum delay
+         *	@param multiplier delay multiplier for each next retry
+         *	@return self
+         */
+        public Builder withBackoff(Duration initialBackoff, Duration maxBackoff, double multiplier) {
+            Preconditions.checkArgument(multiplier >= 1, "Backoff multiplier must be at least 1.0!");
+            this.initialBackoff = Preconditions.checkNotNull(initialBackoff, "Initial backoff can't be null!");
+            this.maxBackoff = Preconditions.checkNotNull(maxBackoff, "Max backoff can't be null!");
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         *	@param jitter part of the delay randomly subtracted from the backoff delay, in [0..1].
+         *	Default value is 0.5.
+         *	@return self
+         */
+        public Builder withJitter(double jitter) {
+            Preconditions.checkArgument(jitter >= 0 && jitter <= 1, "Jitter must be in [0..1]!");
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         *	Configure 'Retry-After' response header handling. If respected (default), delay is not
+         *	shorter than requested by the server. Requests asking to wait longer than {@code
+         *	maxRetryAfter} (default 60 seconds) are not retried.
+         *
+         *	@param respectRetryAfter true to respect 'Retry-After' header
+         *	@param maxRetryAfter longest acceptable delay requested by the server
+         *	@return self
+         */
+        public Builder withRetryAfter(boolean respectRetryAfter, Duration maxRetryAfter) {
+            this.respectRetryAfter = respectRetryAfter;
+            this.maxRetryAfter = Preconditions.checkNotNull(maxRetryAfter, "Max Retry-After can't be null!");
+            return this;
+        }
+
+        /**
+         *	@param idempotentOnly true to retry only idempotent methods (default), false to retry
+         *	any method (including POST and PATCH)
+         *	@return self
+         */
+        public Builder withIdempotentOnly(boolean idempotentOnly) {
+            this.idempotentOnly = idempotentOnly;
+            return this;
+        }
+
+        /**
+         *	Limits retries to the given ratio of the requests. Default is 10% with 10 retries
+         *	allowed regardless of the ratio.
+         *
+         *	@param ratio maximum ratio of retries to requests
+         *	@param minRetries retries allowed in addition to the ratio
+         *	@return self
+         */
+        public Builder withBudget(double ratio, int minRetries) {
+            Preconditions.checkArgument(ratio >= 0, "Retry ratio can't be negative value!");
+            this.budgetRatio = ratio;
+            this.budgetMinRetries = minRetries;
+            return this;
+        }
+
+        /**
+         *	Disables retry budget, all retries allowed by the policy are performed
+         *
+         *	@return self
+         */
+        public Builder withoutBudget() {
+            this.budgetRatio = -1;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.paxovision.rest.policy;
+
+import java.io.IOException;
+import java.time.Duration;
+import javax.annotation.Nullable;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *	Attempts of the single request retried according to {@link RetryPolicy}. Sequence only decides
+ *	whether and when the next attempt is sent, the caller sends it: sync calls wait for the delay in
+ *	the calling thread, async calls schedule the next attempt, so no thread is blocked.
+ */
+public final class RetrySequence {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RetrySequence.class);
+
+    private final RetryPolicy policy;
+    private final RetryStats stats;
+    private final Request request;
+    private final long start;
+    private long lastAttemptStart;
+    private int attempt = 1;
+
+    private RetrySequence(RetryPolicy policy, RetryStats stats, Request request) {
+        this.policy = policy;
+        this.stats = stats;
+        this.request = request;
+        this.start = System.nanoTime();
+        this.lastAttemptStart = start;
+    }
+
+    /**
+     *	Starts the sequence of the attempts for the request
+     *
+     *	@param policy retry policy of the request (null for no retries)
+     *	@param stats statistics to record the sequence to
+     *	@param request request to be sent
+     *	@return new sequence or null if the request is not retried
+     */
+    @Nullable
+    public static RetrySequence start(@Nullable RetryPolicy policy, RetryStats stats, Request request) {
+        if (policy == null || policy.getMaxAttempts() <= 1 || !policy.isRetryableMethod(request.method())) {
+            return null;
+        }
+        final RetryBudget budget = policy.getBudget();
+        if (budget != null) {
+            budget.deposit();
+        }
+        return new RetrySequence(policy, stats, request);
+    }
+
+    /**
+     *	Decides about the outcome of the last attempt. If it's retried, the response is closed
+     *	and the next attempt must be sent after the returned delay, otherwise the outcome is final
+     *	and the sequence is recorded to the statistics.
+     *
+     *	@param response response of the last attempt or null if it failed
+     *	@param error failure of the last attempt or null if response was received
+     *	@return delay before the next attempt or null if the outcome is final
+     */
+    @Nullable
+    public Duration next(@Nullable Response response, @Nullable IOException error) {
+        final boolean retryable =
+                response != null ? policy.isRetryableStatus(response.code()) : policy.isRetryableException(error);
+        if (!retryable || attempt >= policy.getMaxAttempts()) {
+            return complete();
+        }
+
+        final Duration delay = policy.backoff(attempt, response != null ? RetryAfter.parse(response) : null);
+        if (delay == null) {
+            LOGGER.debug("{} {} not retried: Retry-After is too long", request.method(), request.url());
+            return complete();
+        }
+        final RetryBudget budget = policy.getBudget();
+        if (budget != null && !budget.tryWithdraw()) {
+            stats.recordBudgetExhausted();
+            LOGGER.debug("{} {} not retried: retry budget exhausted", request.method(), request.url());
+            return complete();
+        }
+
+        LOGGER.debug(
+                "{} {} attempt {} failed ({}), retrying in {} ms",
+                request.method(),
+                request.url(),
+                attempt,
+                response != null ? response.code() : String.valueOf(error),
+                delay.toMillis());
+        if (response != null) {
+            response.close();
+        }
+        attempt++;
+        lastAttemptStart = System.nanoTime() + delay.toNanos();
+        return delay;
+    }
+
+    // record the statistics of the completed sequence
+    private Duration complete() {
+        stats.recordRequest(attempt - 1, lastAttemptStart - start);
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.paxovision.rest.policy;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Retry counters and latency added by the retries */
+public class RetryStats {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder retriedRequests = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+    private final LongAdder addedLatencyNanos = new LongAdder();
+
+    void recordRequest(int retriesPerformed, long addedLatency) {
+        requests.increment();
+        if (retriesPerformed > 0) {
+            retriedRequests.increment();
+            retries.add(retriesPerformed);
+            addedLatencyNanos.add(addedLatency);
+        }
+    }
+
+    void recordBudgetExhausted() {
+        budgetExhausted.increment();
+    }
+
+    /** @return number of requests executed */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /** @return number of requests retried at least once */
+    public long getRetriedRequests() {
+        return retriedRequests.sum();
+    }
+
+    /** @return total number of retries */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /** @return number of retries not performed since retry budget was exhausted */
+    public long getBudgetExhausted() {
+        return budgetExhausted.sum();
+    }
+
+    /** @return total time added by retries (failed attempts and backoff delays) */
+    public Duration getAddedLatency() {
+        return Duration.ofNanos(addedLatencyNanos.sum());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "RetryStats{requests=%d, retriedRequests=%d, retries=%d, budgetExhausted=%d, addedLatency=%s}",
+                getRequests(), getRetriedRequests(), getRetries(), getBudgetExhausted(), getAddedLatency());
+    }
+}
@@ -0,0 +1,69 @@
+package com.paxovision.rest.policy;
+
+import com.google.common.base.Preconditions;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *	Token bucket with reservation semantics: permit is always granted immediately, caller gets the
+ *	time it has to wait before using it. Allows bursts up to the bucket capacity.
+ *
+ *	<p>State is kept as the theoretical arrival time of the next permit (GCRA), so the permit can
+ *	be reserved for a send time in the future and the bucket accounts it at that time.
+ */
+public class TokenBucket {
+
+    private final double nanosPerPermit;
+    private final double burstTolerance;
+    private final long origin;
+    // theoretical arrival time of the next permit, in nanoseconds from the origin
+    private double nextPermitTime;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        Preconditions.checkArgument(permitsPerSecond > 0, "Rate must be positive value!");
+        Preconditions.checkArgument(burst > 0, "Burst must be positive integer value!");
+        this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.burstTolerance = (burst - 1) * nanosPerPermit;
+        this.origin = System.nanoTime();
+        this.nextPermitTime = 0;
+    }
+
+    /**
+     *	Reserves one permit
+     *
+     *	@return time in nanoseconds caller must wait before using the permit (0 if permit is
+     *	available right now)
+     */
+    public long reserve() {
+        return reserveFrom(System.nanoTime());
+    }
+
+    /**
+     *	Reserves one permit for the first send time not earlier than the given one
+     *
+     *	@param earliest {@link System#nanoTime()} the permit can be used at the earliest
+     *	@return time in nanoseconds from the earliest time till the permit can be used
+     */
+    synchronized long reserveFrom(long earliest) {
+        final long waitNanos = waitTime(earliest);
+        reserveAt(earliest + waitNanos);
+        return waitNanos;
+    }
+
+    /**
+     *	@param now current {@link System#nanoTime()}
+     *	@return time in nanoseconds till the next permit is available, nothing is reserved
+     */
+    synchronized long waitTime(long now) {
+        return Math.max(0, (long) Math.ceil(nextPermitTime - burstTolerance - (now - origin)));
+    }
+
+    /**
+     *	Reserves one permit for the given send time, which must not be earlier than the time
+     *	returned by {@link #waitTime(long)}
+     *
+     *	@param sendTime {@link System#nanoTime()} the permit is used at
+     */
+    synchronized void reserveAt(long sendTime) {
+        nextPermitTime = Math.max(nextPermitTime, sendTime - origin) + nanosPerPermit;
+    }
+}
@@ -0,0 +1,169 @@
+package com.paxovision.rest.request;
+
+import com.google.common.base.Preconditions;
+import com.paxovision.rest.assertions.RaptorMultipleFailuresError;
+import com.paxovision.rest.assertions.RestResponseAsserter;
+import com.paxovision.rest.exception.PaxoRestException;
+import com.paxovision.rest.response.RestResponseMatchers;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import okhttp3.Request;
+import org.assertj.core.error.AssertJMultipleFailuresError;
+import org.opentest4j.MultipleFailuresError;
+
+/**
+ *	Executes many requests in parallel with bounded number of requests in flight. Results are
+ *	returned in the order of the requests, all the failures are reported at once.
+ *
+ *	<p>Note, that actual concurrency is also limited by the actor's dispatcher limits (see {@code
+ *	RestClientActor.Builder#withMaxRequestsPerHost})
+ */
+public class RestBatchRequestBuilder {
+
+    private static final String ERROR_HEADING = "Batch request failures";
+
+    private int maxInFlight = 16;
+
+    /**
+     *	Sets maximum number of requests sent, but not completed yet. Default value is 16.
+     *
+     *	@param maxInFlight maximum number of requests in flight
+     *	@return self
+     */
+    public RestBatchRequestBuilder withMaxInFlight(int maxInFlight) {
+        Preconditions.checkArgument(maxInFlight > 0, "maxInFlight must be positive integer value!");
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     *	Executes all the requests and applies the same checkers to each of the responses
+     *
+     *	@param <T> type of the return value of the extractor
+     *	@param requests requests to be executed
+     *	@param checkers to be applied on each response
+     *	@return extracted values in the order of requests (null for not extracted values)
+     *	@throws RaptorMultipleFailuresError with failures of all the failed requests
+     */
+    public <T> List<T> expectAll(
+            Collection<? extends RestGenericRequestBuilder<?>> requests,
+            Function<RestResponseMatchers, RestResponseAsserter> checkers) {
+        return expectAll(requests.stream(), Function.identity(), checkers);
+    }
+
+    /**
+     *	Maps each of the inputs to request, executes it and applies the same checkers to each of
+     *	the responses. Inputs are mapped lazily, only when request is allowed to be sent.
+     *
+     *	@param <I> type of the input
+     *	@param <T> type of the return value of the extractor
+     *	@param inputs inputs for the requests
+     *	@param requestFactory maps input to the request
+     *	@param checkers to be applied on each response
+     *	@return extracted values in the order of inputs (null for not extracted values)
+     *	@throws RaptorMultipleFailuresError with failures of all the failed requests
+     */
+    public <I, T> List<T> expectAll(
+            Stream<I> inputs,
+            Function<? super I, ? extends RestGenericRequestBuilder<?>> requestFactory,
+            Function<RestResponseMatchers, RestResponseAsserter> checkers) {
+
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final List<CompletableFuture<T>> futures = new ArrayList<>();
+        final List<String> descriptions = new ArrayList<>();
+
+        try {
+            inputs.sequential()
+                    .forEachOrdered(
+                            input -> {
+                                acquire(inFlight);
+                                final RestGenericRequestBuilder<?> request;
+                                final CompletableFuture<T> future;
+                                try {
+                                    request = requestFactory.apply(input);
+                                    descriptions.add(describe(request.requestBuilder.build()));
+                                    future = request.expectAsync(checkers);
+                                } catch (RuntimeException ex) {
+                                    inFlight.release();
+                                    throw ex;
+                                }
+                                futures.add(future);
+                                future.whenComplete((result, error) -> inFlight.release());
+                            });
+        } catch (RuntimeException ex) {
+            // requests already sent must not outlive the failed batch
+            awaitQuietly(futures);
+            throw ex;
+        }
+
+        final List<T> results = new ArrayList<>(futures.size());
+        final List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (ExecutionException ex) {
+                results.add(null);
+                failures.add(
+                        new RaptorMultipleFailuresError(
+                                "[" + i + "] " + descriptions.get(i), unwrapFailures(ex.getCause())));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new PaxoRestException("Batch execution interrupted: ", ex);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new RaptorMultipleFailuresError(ERROR_HEADING, failures);
+        }
+        return results;
+    }
+
+    private static void acquire(Semaphore inFlight) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new PaxoRestException("Batch execution interrupted: ", ex);
+        }
+    }
+
+    // wait for completion of the futures ignoring their results, stops if interrupted
+    private static void awaitQuietly(List<? extends CompletableFuture<?>> futures) {
+        for (CompletableFuture<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ex) {
+                // failures of the other requests are shadowed by the batch failure
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static String describe(Request request) {
+        return request.method() + " " + request.url();
+    }
+
+    // flatten multiple failures errors, so each soft-assertion is reported separately
+    private static List<Throwable> unwrapFailures(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return unwrapFailures(error.getCause());
+        }
+        if (error instanceof MultipleFailuresError) {
+            return ((MultipleFailuresError) error).getFailures();
+        }
+        if (error instanceof AssertJMultipleFailuresError) {
+            return ((AssertJMultipleFailuresError) error).getFailures();
+        }
+        return Collections.singletonList(error);
+    }
+}
@@ -0,0 +1,217 @@
+package com.paxovision.rest.request;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jayway.jsonpath.Configuration;
+import com.paxovision.rest.assertions.JsonAssert;
+import com.paxovision.rest.policy.AdaptiveConcurrencyLimiter;
+import com.paxovision.rest.policy.HedgingPolicy;
+import com.paxovision.rest.policy.RequestCoalescer;
+import com.paxovision.rest.policy.RequestRateLimiter;
+import com.paxovision.rest.policy.RetryPolicy;
+import com.paxovision.rest.policy.RetryStats;
+import com.paxovision.rest.response.ReplayableResponseBody;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.annotation.Nullable;
+import okhttp3.OkHttpClient;
+
+/**
+ *	Actor-wide settings shared by all the requests created by the {@link
+ *	com.paxovision.rest.actor.RestClientActor}: HTTP client and request execution policies
+ */
+public class RestCallContext {
+
+    // timer for delayed async sends and retries, tasks only enqueue calls so single thread is enough
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("PaxoRest Scheduler").setDaemon(true).build());
+
+    private final OkHttpClient okHttpClient;
+    private final RequestRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RetryPolicy retryPolicy;
+    private final RetryStats retryStats;
+    private final HedgingPolicy hedgingPolicy;
+    private final RequestCoalescer requestCoalescer;
+    private final Configuration jsonPathConfiguration;
+    private final long bodySpillThreshold;
+
+    private RestCallContext(Builder builder) {
+        this.okHttpClient = builder.okHttpClient;
+        this.rateLimiter = builder.rateLimiter;
+        this.concurrencyLimiter = builder.concurrencyLimiter;
+        this.retryPolicy = builder.retryPolicy;
+        this.retryStats = builder.retryStats;
+        this.hedgingPolicy = builder.hedgingPolicy;
+        this.requestCoalescer = builder.requestCoalescer;
+        this.jsonPathConfiguration = builder.jsonPathConfiguration;
+        this.bodySpillThreshold = builder.bodySpillThreshold;
+    }
+
+    public static Builder newBuilder(OkHttpClient okHttpClient) {
+        return new Builder(okHttpClient);
+    }
+
+    /** @return HTTP client to perform the requests */
+    public OkHttpClient getOkHttpClient() {
+        return okHttpClient;
+    }
+
+    /** @return request rate limiter or null if requests are not limited */
+    @Nullable
+    public RequestRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     *	@return concurrency limiter installed to the HTTP client or null if requests in flight are
+     *	not limited
+     */
+    @Nullable
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /** @return default retry policy or null if requests are not retried by default */
+    @Nullable
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /** @return retry counters of all the requests */
+    public RetryStats getRetryStats() {
+        return retryStats;
+    }
+
+    /** @return default hedging policy for GET/HEAD requests or null if hedging is disabled */
+    @Nullable
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    /**
+     *	@return coalescer installed to the HTTP client or null if identical requests are not
+     *	coalesced
+     */
+    @Nullable
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    /** @return JsonPath configuration for the JSON assertions of the responses */
+    public Configuration getJsonPathConfiguration() {
+        return jsonPathConfiguration;
+    }
+
+    /** @return size in bytes above which the buffered response body is spilled to disk */
+    public long getBodySpillThreshold() {
+        return bodySpillThreshold;
+    }
+
+    /** @return shared scheduler for the delayed tasks */
+    static ScheduledExecutorService scheduler() {
+        return SCHEDULER;
+    }
+
+    /** Builder for the {@link RestCallContext} */
+    public static final class Builder {
+
+        private final OkHttpClient okHttpClient;
+        private RequestRateLimiter rateLimiter;
+        private AdaptiveConcurrencyLimiter concurrencyLimiter;
+        private RetryPolicy retryPolicy;
+        private RetryStats retryStats = new RetryStats();
+        private HedgingPolicy hedgingPolicy;
+        private RequestCoalescer requestCoalescer;
+        private Configuration jsonPathConfiguration = JsonAssert.DEFAULT_CONFIGURATION;
+        private long bodySpillThreshold = ReplayableResponseBody.DEFAULT_SPILL_THRESHOLD;
+
+        private Builder(OkHttpClient okHttpClient) {
+            this.okHttpClient = Preconditions.checkNotNull(okHttpClient, "OkHttpClient can't be null!");
+        }
+
+        public RestCallContext build() {
+            return new RestCallContext(this);
+        }
+
+        /**
+         *	@param rateLimiter rate limiter applied to the requests (null to disable)
+         *	@return self
+         */
+        public Builder withRateLimiter(@Nullable RequestRateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         *	@param concurrencyLimiter concurrency limiter installed to the HTTP client, async calls
+         *	acquire its slots before being enqueued (null if not installed)
+         *	@return self
+         */
+        public Builder withConcurrencyLimiter(@Nullable AdaptiveConcurrencyLimiter concurrencyLimiter) {
+            this.concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
+
+        /**
+         *	@param retryPolicy default retry policy, overridden by the policy of the request (null
+         *	to disable)
+         *	@return self
+         */
+        public Builder withRetryPolicy(@Nullable RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         *	@param retryStats retry counters to record the requests to
+         *	@return self
+         */
+        public Builder withRetryStats(RetryStats retryStats) {
+            this.retryStats = Preconditions.checkNotNull(retryStats, "Retry stats can't be null!");
+            return this;
+        }
+
+        /**
+         *	@param hedgingPolicy default hedging policy for GET/HEAD requests (null to disable)
+         *	@return self
+         */
+        public Builder withHedgingPolicy(@Nullable HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+
+        /**
+         *	@param requestCoalescer coalescer installed to the HTTP client, requests follow the
+         *	identical ones in flight before being sent (null if not installed)
+         *	@return self
+         */
+        public Builder withRequestCoalescer(@Nullable RequestCoalescer requestCoalescer) {
+            this.requestCoalescer = requestCoalescer;
+            return this;
+        }
+
+        /**
+         *	@param jsonPathConfiguration JsonPath configuration for the JSON assertions, default is
+         *	{@link JsonAssert#DEFAULT_CONFIGURATION}
+         *	@return self
+         */
+        public Builder withJsonPathConfiguration(Configuration jsonPathConfiguration) {
+            this.jsonPathConfiguration =
+                    Preconditions.checkNotNull(jsonPathConfiguration, "JsonPath configuration can't be null!");
+            return this;
+        }
+
+        /**
+         *	@param bodySpillThreshold size in bytes above which the buffered response body is spilled
+         *	to disk, default is {@link ReplayableResponseBody#DEFAULT_SPILL_THRESHOLD}
+         *	@return self
+         */
+        public Builder withBodySpillThreshold(long bodySpillThreshold) {
+            Preconditions.checkArgument(bodySpillThreshold >= 0, "Body spill threshold can't be negative!");
+            this.bodySpillThreshold = bodySpillThreshold;
+            return this;
+        }
+    }
+}
@@ -9,7 +9,11 @@ import okhttp3.internal.Util;
 public class RestDeleteRequestBuilder extends RestGenericRequestBuilder<RestDeleteRequestBuilder> {
 
     public RestDeleteRequestBuilder(String url, OkHttpClient okHttpClient) {
-        super(url, okHttpClient);
+        this(url, RestCallContext.newBuilder(okHttpClient).build());
+    }
+
+    public RestDeleteRequestBuilder(String url, RestCallContext context) {
+        super(url, context);
         // add default body since DELETE w/o body sent as GET
         requestBuilder.delete(Util.EMPTY_REQUEST);
     }
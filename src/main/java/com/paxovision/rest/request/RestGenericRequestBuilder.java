@@ -1,10 +1,18 @@
 package com.paxovision.rest.request;
 
+import com.paxovision.rest.assertions.EventStreamAssert;
 import com.paxovision.rest.assertions.RestResponseAsserter;
 import com.paxovision.rest.exception.PaxoRestException;
+import com.paxovision.rest.policy.AdaptiveConcurrencyLimiter;
+import com.paxovision.rest.policy.HedgingPolicy;
+import com.paxovision.rest.policy.RequestCoalescer;
+import com.paxovision.rest.policy.RequestRateLimiter;
+import com.paxovision.rest.policy.RetryPolicy;
+import com.paxovision.rest.policy.RetrySequence;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.paxovision.rest.response.EventStreamReport;
 import com.paxovision.rest.response.ResponseExtractor;
 import com.paxovision.rest.response.RestResponseMatchers;
 import okhttp3.*;
@@ -13,8 +21,17 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -32,6 +49,7 @@ public class RestGenericRequestBuilder<S extends RestGenericRequestBuilder<S>> {
     private static final String OVERRIDE_CONTENT_TYPE_MESSAGE =
             "'Content-Type' body value '{}' overrides header value '{}'!";
 
+    private final RestCallContext context;
     private final OkHttpClient okHttpClient;
     // value for Content-Type header, specified via the the header builder
     protected String headerContentType;
@@ -39,9 +57,14 @@ public class RestGenericRequestBuilder<S extends RestGenericRequestBuilder<S>> {
     protected String bodyContentType;
 
     protected Request.Builder requestBuilder = new Request.Builder();
-
-    RestGenericRequestBuilder(String url, OkHttpClient okHttpClient) {
-        this.okHttpClient = okHttpClient;
+    // retry policy of this request, overrides the actor's default one
+    private RetryPolicy retryPolicy;
+    // hedging is allowed only for idempotent read requests, so it's set by GET/HEAD builders
+    private HedgingPolicy hedgingPolicy;
+
+    RestGenericRequestBuilder(String url, RestCallContext context) {
+        this.context = context;
+        this.okHttpClient = context.getOkHttpClient();
         requestBuilder.url(url);
     }
 
@@ -87,18 +110,392 @@ public class RestGenericRequestBuilder<S extends RestGenericRequestBuilder<S>> {
         return (S) this;
     }
 
+    /**
+     *	Sets the retry policy for this request, overriding the actor's default one
+     *
+     *	@param retryPolicy retry policy ({@link RetryPolicy#none()} to disable retries)
+     *	@return self
+     */
+    public S withRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = checkNotNull(retryPolicy);
+        return (S) this;
+    }
+
+    /**
+     *	Marks the response body as streamed, i.e. by {@code downloadTo}, so it's passed through
+     *	without being buffered by the logger and isn't shared with identical requests
+     *
+     *	@return self
+     */
+    public S withStreamingResponse() {
+        requestBuilder.tag(StreamingResponse.class, StreamingResponse.INSTANCE);
+        return (S) this;
+    }
+
+    /**
+     *	Sets the hedging policy for this request
+     *
+     *	@param hedgingPolicy hedging policy or null to disable hedging
+     */
+    protected void setHedgingPolicy(@Nullable HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
     // perform the sync request and capture the response
     private Response executeWithResponse() {
+        final Request request = requestBuilder.build();
         try {
-            return okHttpClient.newCall(requestBuilder.build()).execute();
+            awaitPermit(request);
+            return executeWithRetries(request, this::send);
         } catch (IOException ex) {
             throw new PaxoRestException("Failed to perform REST call: ", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new PaxoRestException("Interrupted while performing REST call: ", ex);
+        }
+    }
+
+    // single attempt of the sync request
+    @FunctionalInterface
+    private interface Attempt {
+        Response send(Request request) throws IOException;
+    }
+
+    // perform the attempts of the sync request until the outcome is final, backoff delays and
+    // rate limit permits of the retries are waited in the calling thread
+    private Response executeWithRetries(Request request, Attempt attempt)
+            throws IOException, InterruptedException {
+        final RetrySequence retries = newRetrySequence(request);
+        while (true) {
+            Response response = null;
+            IOException error = null;
+            try {
+                response = attempt.send(request);
+            } catch (IOException ex) {
+                error = ex;
+            }
+            final Duration delay = retries == null ? null : retries.next(response, error);
+            if (delay == null) {
+                if (error != null) {
+                    throw error;
+                }
+                return response;
+            }
+            TimeUnit.NANOSECONDS.sleep(reservePermit(request, delay.toNanos()));
+        }
+    }
+
+    // send single attempt of the sync request, unless it follows the identical request in flight
+    private Response send(Request request) throws IOException {
+        final RequestCoalescer coalescer = context.getRequestCoalescer();
+        if (coalescer == null) {
+            return sendOwn(request);
+        }
+        final CompletableFuture<Response> shared = coalescer.follow(request);
+        if (shared != null) {
+            final Response response = await(shared);
+            return response != null ? response : sendOwn(request);
+        }
+        final Request leader = coalescer.lead(request);
+        try {
+            return sendOwn(leader);
+        } finally {
+            RequestCoalescer.land(leader);
+        }
+    }
+
+    // send own attempt of the sync request, hedged one is awaited in the calling thread
+    private Response sendOwn(Request request) throws IOException {
+        if (hedgingPolicy == null) {
+            return okHttpClient.newCall(request).execute();
+        }
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        enqueueHedged(request, hedgingPolicy, future);
+        return await(future);
+    }
+
+    // wait in the calling thread for the response, it's closed if it arrives after interruption
+    private static Response await(CompletableFuture<Response> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof IOException
+                    ? (IOException) ex.getCause()
+                    : new IOException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            future.thenAccept(
+                    response -> {
+                        if (response != null) {
+                            response.close();
+                        }
+                    });
+            throw new InterruptedIOException("Interrupted while waiting for the response");
+        }
+    }
+
+    // start the retry sequence of the request, the policy of the request overrides the actor's one
+    @Nullable
+    private RetrySequence newRetrySequence(Request request) {
+        return RetrySequence.start(
+                retryPolicy != null ? retryPolicy : context.getRetryPolicy(), context.getRetryStats(), request);
+    }
+
+    // reserve rate limit permit and return time to wait before sending the request
+    private long reservePermit(Request request) {
+        return reservePermit(request, 0);
+    }
+
+    // reserve rate limit permit for the attempt, which can't be sent before the delay (i.e. retry
+    // backoff), and return time to wait before sending it, the delay included
+    private long reservePermit(Request request, long delayNanos) {
+        final RequestRateLimiter rateLimiter = context.getRateLimiter();
+        if (rateLimiter == null) {
+            return delayNanos;
+        }
+        final long waitNanos = rateLimiter.reserve(request, delayNanos);
+        if (waitNanos > delayNanos) {
+            LOGGER.debug(
+                    "{} {} delayed by rate limit for {} ms",
+                    request.method(),
+                    request.url(),
+                    TimeUnit.NANOSECONDS.toMillis(waitNanos - delayNanos));
+        }
+        return waitNanos;
+    }
+
+    // block the calling thread until the rate limit permit is available
+    private void awaitPermit(Request request) throws InterruptedException {
+        final long permitWaitNanos = reservePermit(request);
+        if (permitWaitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(permitWaitNanos);
         }
     }
 
     /** Executes request without applying any of assertions on response */
     public void execute() {
-        executeWithResponse();
+        executeWithResponse().close();
+    }
+
+    // perform the async request, response is delivered to the returned future
+    private CompletableFuture<Response> executeWithResponseAsync() {
+        final Request request = requestBuilder.build();
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        final RetrySequence retries = newRetrySequence(request);
+        // do not block any thread while waiting for the rate limit permit
+        schedule(() -> sendAsync(request, retries, future), reservePermit(request));
+        return future;
+    }
+
+    // send the attempt of the async request and schedule the next one if the outcome is retried,
+    // the future is completed with the final outcome
+    private void sendAsync(Request request, @Nullable RetrySequence retries, CompletableFuture<Response> future) {
+        final CompletableFuture<Response> attempt = new CompletableFuture<>();
+        enqueue(request, attempt);
+        attempt.whenComplete(
+                (response, error) -> {
+                    if (retries != null && (error == null || error instanceof IOException)) {
+                        final Duration delay = retries.next(response, (IOException) error);
+                        if (delay != null) {
+                            schedule(() -> sendAsync(request, retries, future), reservePermit(request, delay.toNanos()));
+                            return;
+                        }
+                    }
+                    if (error != null) {
+                        future.completeExceptionally(new PaxoRestException("Failed to perform REST call: ", error));
+                    } else if (!future.complete(response)) {
+                        response.close();
+                    }
+                });
+    }
+
+    // run the task after the delay without blocking any thread
+    private static void schedule(Runnable task, long delayNanos) {
+        if (delayNanos > 0) {
+            RestCallContext.scheduler().schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+        } else {
+            task.run();
+        }
+    }
+
+    // enqueue single attempt of the request, unless it follows the identical request in flight, and
+    // complete the future with the response or the failure
+    private void enqueue(Request request, CompletableFuture<Response> future) {
+        final RequestCoalescer coalescer = context.getRequestCoalescer();
+        if (coalescer == null) {
+            enqueueOwn(request, future);
+            return;
+        }
+        final CompletableFuture<Response> shared = coalescer.follow(request);
+        if (shared != null) {
+            shared.thenAccept(
+                    response -> {
+                        if (response == null) {
+                            enqueueOwn(request, future);
+                        } else if (!future.complete(response)) {
+                            response.close();
+                        }
+                    });
+            return;
+        }
+        final Request leader = coalescer.lead(request);
+        future.whenComplete((response, error) -> RequestCoalescer.land(leader));
+        enqueueOwn(leader, future);
+    }
+
+    // enqueue own attempt of the request to OkHttp dispatcher
+    private void enqueueOwn(Request request, CompletableFuture<Response> future) {
+        if (hedgingPolicy != null) {
+            enqueueHedged(request, hedgingPolicy, future);
+            return;
+        }
+        enqueueCall(
+                okHttpClient.newCall(withConcurrencySlot(request)),
+                new Callback() {
+                    @Override
+                    public void onResponse(@Nonnull Call call, @Nonnull Response response) {
+                        future.complete(response);
+                    }
+
+                    @Override
+                    public void onFailure(@Nonnull Call call, @Nonnull IOException ex) {
+                        future.completeExceptionally(ex);
+                    }
+                });
+    }
+
+    // tag the request with the concurrency limit slot (if limited), requested without waiting
+    private Request withConcurrencySlot(Request request) {
+        final AdaptiveConcurrencyLimiter limiter = context.getConcurrencyLimiter();
+        return limiter == null
+                ? request
+                : request.newBuilder().tag(AdaptiveConcurrencyLimiter.Slot.class, limiter.acquireAsync()).build();
+    }
+
+    // enqueue the call once its concurrency limit slot is granted, so OkHttp dispatcher threads
+    // never wait for the slot
+    private static void enqueueCall(Call call, Callback callback) {
+        final AdaptiveConcurrencyLimiter.Slot slot = call.request().tag(AdaptiveConcurrencyLimiter.Slot.class);
+        if (slot == null) {
+            call.enqueue(callback);
+            return;
+        }
+        slot.acquired()
+                .whenComplete(
+                        (acquired, error) -> {
+                            if (error == null && !call.isCanceled()) {
+                                call.enqueue(callback);
+                                return;
+                            }
+                            slot.release();
+                            callback.onFailure(
+                                    call,
+                                    error instanceof IOException
+                                            ? (IOException) error
+                                            : new IOException("Canceled", error));
+                        });
+    }
+
+    // cancel the call and return its concurrency limit slot (if any)
+    private static void cancel(Call call) {
+        call.cancel();
+        final AdaptiveConcurrencyLimiter.Slot slot = call.request().tag(AdaptiveConcurrencyLimiter.Slot.class);
+        if (slot != null) {
+            slot.release();
+        }
+    }
+
+    // enqueue the request and, if it's not completed within hedging delay, identical hedge
+    // request; the first response completes the future, the other call is cancelled
+    private void enqueueHedged(
+            Request request, HedgingPolicy policy, CompletableFuture<Response> future) {
+        final long start = System.nanoTime();
+        final Duration delay = policy.onRequest();
+        final Call primary = okHttpClient.newCall(withConcurrencySlot(request));
+        final AtomicReference<Call> hedge = new AtomicReference<>();
+        // number of calls, which may still complete the future
+        final AtomicInteger pending = new AtomicInteger(1);
+        final AtomicBoolean completed = new AtomicBoolean();
+
+        final Function<Boolean, Callback> callbackFactory =
+                isHedge ->
+                        new Callback() {
+                            @Override
+                            public void onResponse(@Nonnull Call call, @Nonnull Response response) {
+                                if (completed.compareAndSet(false, true)) {
+                                    // latency of the primary, censored at this time if the hedge
+                                    // won, hedge latencies would bias the percentile delay down
+                                    policy.onPrimaryLatency(System.nanoTime() - start);
+                                    policy.onResponse(isHedge);
+                                    // cancel the loser first, checkers may run within complete()
+                                    final Call other = isHedge ? primary : hedge.get();
+                                    if (other != null) {
+                                        cancel(other);
+                                    }
+                                }
+                                // the future may be completed by the failure or cancelled already
+                                if (!future.complete(response)) {
+                                    response.close();
+                                }
+                            }
+
+                            @Override
+                            public void onFailure(@Nonnull Call call, @Nonnull IOException ex) {
+                                if (pending.decrementAndGet() == 0) {
+                                    future.completeExceptionally(ex);
+                                }
+                            }
+                        };
+
+        enqueueCall(primary, callbackFactory.apply(false));
+        final ScheduledFuture<?> hedgeTimer =
+                RestCallContext.scheduler()
+                        .schedule(
+                                () -> {
+                                    if (future.isDone() || completed.get() || !policy.tryHedge()) {
+                                        return;
+                                    }
+                                    if (pending.getAndUpdate(calls -> calls > 0 ? calls + 1 : calls) == 0) {
+                                        // primary has just failed, the future is completed already
+                                        return;
+                                    }
+                                    // tagged, so the hedge isn't coalesced with the primary
+                                    final Request hedgeRequest = request.newBuilder().tag(HedgingPolicy.class, policy).build();
+                                    LOGGER.debug(
+                                            "{} {} not completed in {} ms, hedge request sent",
+                                            request.method(),
+                                            request.url(),
+                                            delay.toMillis());
+                                    // hedge is rate limited as any other request
+                                    schedule(
+                                            () -> {
+                                                if (future.isDone() || completed.get()) {
+                                                    return;
+                                                }
+                                                final Call hedgeCall = okHttpClient.newCall(withConcurrencySlot(hedgeRequest));
+                                                hedge.set(hedgeCall);
+                                                if (completed.get()) {
+                                                    // primary won meanwhile and may have missed the hedge
+                                                    cancel(hedgeCall);
+                                                }
+                                                enqueueCall(hedgeCall, callbackFactory.apply(true));
+                                            },
+                                            reservePermit(hedgeRequest));
+                                },
+                                delay.toNanos(),
+                                TimeUnit.NANOSECONDS);
+        future.whenComplete((response, error) -> hedgeTimer.cancel(false));
+    }
+
+    /**
+     *	Executes request asynchronously without applying any of assertions on response. Calling
+     *	thread is not blocked, the request is performed by the OkHttp dispatcher.
+     *
+     *	@return future completed when the response is received
+     */
+    public CompletableFuture<Void> executeAsync() {
+        return executeWithResponseAsync().thenAccept(Response::close);
     }
 
     /**
@@ -111,11 +508,116 @@ public class RestGenericRequestBuilder<S extends RestGenericRequestBuilder<S>> {
 
     @Nullable
     public <T> T expect(Function<RestResponseMatchers, RestResponseAsserter> checkers) {
+        return applyCheckers(executeWithResponse(), checkers);
+    }
+
+    /**
+     *	Executes request asynchronously and applies given checkers to the response once it is
+     *	received. Calling thread is not blocked. If any of the checkers fails, returned future is
+     *	completed exceptionally with the assertion error.
+     *
+     *	@param <T> type of the return value of the extractor
+     *	@param checkers to be applied on response
+     *	@return future of the extracted value (completed with null if no extraction requested)
+     */
+    public <T> CompletableFuture<T> expectAsync(
+            Function<RestResponseMatchers, RestResponseAsserter> checkers) {
+        return executeWithResponseAsync().thenApply(response -> applyCheckers(response, checkers));
+    }
+
+    /**
+     *	Executes request and reads Server-Sent Events or NDJSON response incrementally, applying
+     *	given checkers to each event as it's received. Reading stops at the end of the stream, after
+     *	the event limit or at the deadline, so the streams which never end can be tested. Gaps
+     *	between the events are limited by the read timeout of the actor. Uncompressed stream is
+     *	requested unless Accept-Encoding header is set, hedging is not applied.
+     *
+     *	@param checkers registering the assertions, limit and deadline of the stream
+     *	@return timing of the received events (time to first event, gaps, throughput)
+     */
+    public EventStreamReport expectStream(Consumer<EventStreamAssert> checkers) {
+        final EventStreamAssert stream = new EventStreamAssert(context.getJsonPathConfiguration());
+        checkers.accept(stream);
+
+        // built from a copy, so the builder can still be used for the regular requests
+        final Request.Builder streamRequestBuilder = requestBuilder.build().newBuilder();
+        if (requestBuilder.build().header("Accept-Encoding") == null) {
+            // compressed streams are usually buffered by the server until the end
+            streamRequestBuilder.header("Accept-Encoding", "identity");
+        }
+        // tagged, so the body isn't buffered by the logger and the coalescer
+        final Request request =
+                streamRequestBuilder.tag(StreamingResponse.class, StreamingResponse.INSTANCE).build();
+        try {
+            awaitPermit(request);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new PaxoRestException("Interrupted while performing REST call: ", ex);
+        }
+        // call of the current attempt, cancelled at the deadline
+        final AtomicReference<Call> call = new AtomicReference<>();
+        final long start = System.nanoTime();
+        final Duration deadline = stream.getDeadline();
+        final ScheduledFuture<?> deadlineTimer =
+                deadline == null
+                        ? null
+                        : RestCallContext.scheduler()
+                                .schedule(
+                                        () -> {
+                                            // not created yet, the attempt checks the deadline then
+                                            final Call current = call.get();
+                                            if (current != null) {
+                                                current.cancel();
+                                            }
+                                        },
+                                        deadline.toNanos(),
+                                        TimeUnit.NANOSECONDS);
+        final Attempt attempt =
+                attemptRequest -> {
+                    final Call attemptCall = okHttpClient.newCall(attemptRequest);
+                    call.set(attemptCall);
+                    if (deadline != null && System.nanoTime() - start >= deadline.toNanos()) {
+                        attemptCall.cancel();
+                    }
+                    return attemptCall.execute();
+                };
+        try (Response response = executeWithRetries(request, attempt)) {
+            final EventStreamReport report = stream.evaluate(call.get(), response, start);
+            if (report.getStopReason() == EventStreamReport.StopReason.EVENT_LIMIT) {
+                // stream which never ends would block the close of the response until it's drained
+                call.get().cancel();
+            }
+            stream.assertAll();
+            return report;
+        } catch (IOException ex) {
+            throw call.get() != null && call.get().isCanceled()
+                    ? new PaxoRestException("Event stream was not opened within " + deadline + ": ", ex)
+                    : new PaxoRestException("Failed to perform REST call: ", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new PaxoRestException("Interrupted while performing REST call: ", ex);
+        } finally {
+            if (deadlineTimer != null) {
+                deadlineTimer.cancel(false);
+            }
+        }
+    }
+
+    // apply checkers on the response and return extracted value (if any)
+    @Nullable
+    private <T> T applyCheckers(
+            Response response, Function<RestResponseMatchers, RestResponseAsserter> checkers) {
         final AtomicReference<ResponseExtractor> responseExtractor = new AtomicReference<>();
-        final Response response = executeWithResponse();
 
-        // apply all the assetsions on the response
-        checkers.apply(new RestResponseMatchers(response, responseExtractor)).assertAll();
+        // apply all the assetsions on the response, closing it returns the connection (and the
+        // concurrency limit slot) even if the body wasn't read
+        try (Response closed = response) {
+            checkers.apply(new RestResponseMatchers(
+                                    closed,
+                                    responseExtractor,
+                                    context.getJsonPathConfiguration(),
+                                    context.getBodySpillThreshold())).assertAll();
+        }
 
         // return extracted value (if any) or complete response
         final ResponseExtractor extractor = responseExtractor.get();
@@ -1,13 +1,32 @@
 package com.paxovision.rest.request;
 
+import com.paxovision.rest.policy.HedgingPolicy;
+import javax.annotation.Nullable;
 import okhttp3.OkHttpClient;
 
 /** REST GET request builder */
 public class RestGetRequestBuilder extends RestGenericRequestBuilder<RestGetRequestBuilder> {
 
     public RestGetRequestBuilder(String url, OkHttpClient okHttpClient) {
-        super(url, okHttpClient);
+        this(url, RestCallContext.newBuilder(okHttpClient).build());
+    }
+
+    public RestGetRequestBuilder(String url, RestCallContext context) {
+        super(url, context);
         requestBuilder.get();
+        setHedgingPolicy(context.getHedgingPolicy());
+    }
+
+    /**
+     *	Enable request hedging: if response is not received within the policy delay, identical
+     *	request is sent and the first received response is used
+     *
+     *	@param hedgingPolicy hedging policy or null to disable hedging for this request
+     *	@return self
+     */
+    public RestGetRequestBuilder withHedging(@Nullable HedgingPolicy hedgingPolicy) {
+        setHedgingPolicy(hedgingPolicy);
+        return this;
     }
 
     @Override
@@ -1,13 +1,32 @@
 package com.paxovision.rest.request;
 
+import com.paxovision.rest.policy.HedgingPolicy;
+import javax.annotation.Nullable;
 import okhttp3.OkHttpClient;
 
 /** REST GET request builder */
 public class RestHeadRequestBuilder extends RestGenericRequestBuilder<RestHeadRequestBuilder>{
 
     public RestHeadRequestBuilder(String url, OkHttpClient okHttpClient) {
-        super(url, okHttpClient);
+        this(url, RestCallContext.newBuilder(okHttpClient).build());
+    }
+
+    public RestHeadRequestBuilder(String url, RestCallContext context) {
+        super(url, context);
         requestBuilder.head();
+        setHedgingPolicy(context.getHedgingPolicy());
+    }
+
+    /**
+     *	Enable request hedging: if response is not received within the policy delay, identical
+     *	request is sent and the first received response is used
+     *
+     *	@param hedgingPolicy hedging policy or null to disable hedging for this request
+     *	@return self
+     */
+    public RestHeadRequestBuilder withHedging(@Nullable HedgingPolicy hedgingPolicy) {
+        setHedgingPolicy(hedgingPolicy);
+        return this;
     }
 
     @Override
@@ -8,7 +8,11 @@ import okhttp3.internal.Util;
 public class RestPatchRequestBuilder extends RestGenericRequestBuilder<RestPatchRequestBuilder> {
 
     public RestPatchRequestBuilder(String url, OkHttpClient okHttpClient) {
-        super(url, okHttpClient);
+        this(url, RestCallContext.newBuilder(okHttpClient).build());
+    }
+
+    public RestPatchRequestBuilder(String url, RestCallContext context) {
+        super(url, context);
         // add default body since PATCH w/o body sent as GET
         requestBuilder.patch(Util.EMPTY_REQUEST);
     }
@@ -9,7 +9,11 @@ import okhttp3.internal.Util;
 public class RestPostRequestBuilder extends RestGenericRequestBuilder<RestPostRequestBuilder> {
 
     public RestPostRequestBuilder(String url, OkHttpClient okHttpClient) {
-        super(url, okHttpClient);
+        this(url, RestCallContext.newBuilder(okHttpClient).build());
+    }
+
+    public RestPostRequestBuilder(String url, RestCallContext context) {
+        super(url, context);
         // add default body since POST w/o body sent as GET
         requestBuilder.post(Util.EMPTY_REQUEST);
     }
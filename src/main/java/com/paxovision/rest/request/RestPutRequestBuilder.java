@@ -9,7 +9,11 @@ import okhttp3.internal.Util;
 public class RestPutRequestBuilder extends RestGenericRequestBuilder<RestPutRequestBuilder> {
 
     public RestPutRequestBuilder(String url, OkHttpClient okHttpClient) {
-        super(url, okHttpClient);
+        this(url, RestCallContext.newBuilder(okHttpClient).build());
+    }
+
+    public RestPutRequestBuilder(String url, RestCallContext context) {
+        super(url, context);
         // add default body since PUT w/o body sent as GET
         requestBuilder.put(Util.EMPTY_REQUEST);
     }
@@ -0,0 +1,25 @@
+package com.paxovision.rest.request;
+
+import okhttp3.Request;
+
+/**
+ *	Tag of the request whose response body is streamed by the assertions (event streams,
+ *	downloads), so it's neither buffered by the logger nor shared by the request coalescer. Set by
+ *	{@link RestGenericRequestBuilder#expectStream} and {@link
+ *	RestGenericRequestBuilder#withStreamingResponse()}.
+ */
+public final class StreamingResponse {
+
+    static final StreamingResponse INSTANCE = new StreamingResponse();
+
+    private StreamingResponse() {
+    }
+
+    /**
+     *	@param request request to check
+     *	@return true if the response of the request is streamed
+     */
+    public static boolean isStreaming(Request request) {
+        return request.tag(StreamingResponse.class) != null;
+    }
+}
@@ -0,0 +1,138 @@
+package com.paxovision.rest.response;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import okio.BufferedSource;
+
+/**
+ *	Reads the events of the streaming response one by one, blocking only until the next event is
+ *	complete, and records arrival time of each event. Not thread-safe.
+ */
+public class EventStreamReader {
+
+    private static final String DEFAULT_EVENT_NAME = "message";
+
+    private final BufferedSource source;
+    private final StreamFormat format;
+    private final long startNanos;
+    private int eventCount;
+    private long firstEventNanos;
+    private long lastEventNanos;
+    private long[] gaps = new long[64];
+    // SSE event ID is kept till the server changes it
+    @Nullable private String lastEventId;
+
+    /**
+     *	@param source response body source
+     *	@param format framing of the events
+     *	@param startNanos {@link System#nanoTime()} when the request was sent
+     */
+    public EventStreamReader(BufferedSource source, StreamFormat format, long startNanos) {
+        this.source = source;
+        this.format = format;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     *	Blocks until the next event is received
+     *
+     *	@return next event or null if the stream ended
+     *	@throws IOException if the stream can't be read
+     */
+    @Nullable
+    public StreamEvent next() throws IOException {
+        return format == StreamFormat.SSE ? nextServerSentEvent() : nextLine();
+    }
+
+    // event is dispatched by the blank line, incomplete event at the end of the stream is dropped
+    @Nullable
+    private StreamEvent nextServerSentEvent() throws IOException {
+        final StringBuilder data = new StringBuilder();
+        boolean hasData = false;
+        String name = null;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                if (hasData) {
+                    return event(lastEventId, name == null || name.isEmpty() ? DEFAULT_EVENT_NAME : name, data.toString());
+                }
+                name = null;
+                continue;
+            }
+            if (line.startsWith(":")) {
+                // comment, i.e. keep-alive
+                continue;
+            }
+            final int colon = line.indexOf(':');
+            final String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            switch (field) {
+                case "data":
+                    if (hasData) {
+                        data.append('\n');
+                    }
+                    data.append(value);
+                    hasData = true;
+                    break;
+                case "event":
+                    name = value;
+                    break;
+                case "id":
+                    if (value.indexOf('\0') < 0) {
+                        lastEventId = value;
+                    }
+                    break;
+                default:
+                    // retry and unknown fields are ignored
+                    break;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private StreamEvent nextLine() throws IOException {
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (!line.trim().isEmpty()) {
+                return event(null, null, line);
+            }
+        }
+        return null;
+    }
+
+    private StreamEvent event(@Nullable String id, @Nullable String name, String data) {
+        final long now = System.nanoTime();
+        if (eventCount == 0) {
+            firstEventNanos = now;
+        } else {
+            if (eventCount - 1 == gaps.length) {
+                gaps = Arrays.copyOf(gaps, gaps.length * 2);
+            }
+            gaps[eventCount - 1] = now - lastEventNanos;
+        }
+        lastEventNanos = now;
+        return new StreamEvent(eventCount++, id, name, data, Duration.ofNanos(now - startNanos));
+    }
+
+    /**
+     *	@param stopReason reason why reading stopped
+     *	@return timing of the events read so far
+     */
+    public EventStreamReport report(EventStreamReport.StopReason stopReason) {
+        final long[] sortedGaps = Arrays.copyOf(gaps, Math.max(0, eventCount - 1));
+        Arrays.sort(sortedGaps);
+        return new EventStreamReport(
+                format,
+                stopReason,
+                eventCount,
+                Duration.ofNanos(System.nanoTime() - startNanos),
+                eventCount == 0 ? null : Duration.ofNanos(firstEventNanos - startNanos),
+                sortedGaps);
+    }
+}
@@ -0,0 +1,108 @@
+package com.paxovision.rest.response;
+
+import java.time.Duration;
+import javax.annotation.Nullable;
+
+/**
+ *	Timing of the streaming response. All the times are measured from sending the request, gaps
+ *	are measured between the arrivals of the consecutive events.
+ */
+public class EventStreamReport {
+
+    /** Reason why reading of the stream stopped */
+    public enum StopReason {
+        /** Server closed the stream */
+        END_OF_STREAM,
+        /** Requested number of events received */
+        EVENT_LIMIT,
+        /** Deadline reached before the stream ended */
+        DEADLINE
+    }
+
+    private final StreamFormat format;
+    private final StopReason stopReason;
+    private final int eventCount;
+    private final Duration duration;
+    @Nullable private final Duration timeToFirstEvent;
+    private final long[] sortedGaps;
+
+    EventStreamReport(
+            StreamFormat format,
+            StopReason stopReason,
+            int eventCount,
+            Duration duration,
+            @Nullable Duration timeToFirstEvent,
+            long[] sortedGaps) {
+        this.format = format;
+        this.stopReason = stopReason;
+        this.eventCount = eventCount;
+        this.duration = duration;
+        this.timeToFirstEvent = timeToFirstEvent;
+        this.sortedGaps = sortedGaps;
+    }
+
+    /** @return format of the stream */
+    public StreamFormat getFormat() {
+        return format;
+    }
+
+    /** @return reason why reading of the stream stopped */
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    /** @return number of the events received */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /** @return time from sending the request till reading of the stream stopped */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /** @return time from sending the request till the first event or null if there were no events */
+    @Nullable
+    public Duration getTimeToFirstEvent() {
+        return timeToFirstEvent;
+    }
+
+    /**
+     *	@param percentile percentile in [0..100]
+     *	@return gap between the events for the given percentile (nearest rank) or zero if less than
+     *	two events were received
+     */
+    public Duration getGapPercentile(double percentile) {
+        if (sortedGaps.length == 0) {
+            return Duration.ZERO;
+        }
+        final int rank = (int) Math.ceil(percentile / 100.0 * sortedGaps.length);
+        return Duration.ofNanos(sortedGaps[Math.min(sortedGaps.length - 1, Math.max(0, rank - 1))]);
+    }
+
+    /** @return maximal gap between the events */
+    public Duration getMaxGap() {
+        return getGapPercentile(100);
+    }
+
+    /** @return received events per second over the whole duration */
+    public double getThroughput() {
+        return duration.isZero() ? 0 : eventCount / (duration.toNanos() / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "EventStreamReport{format=%s, stopReason=%s, events=%d, duration=%s, timeToFirstEvent=%s, "
+                        + "throughput=%.1f/s, p50Gap=%s, p99Gap=%s, maxGap=%s}",
+                format,
+                stopReason,
+                eventCount,
+                duration,
+                timeToFirstEvent,
+                getThroughput(),
+                getGapPercentile(50),
+                getGapPercentile(99),
+                getMaxGap());
+    }
+}
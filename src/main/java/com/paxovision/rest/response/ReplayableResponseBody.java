@@ -0,0 +1,191 @@
+package com.paxovision.rest.response;
+
+import com.paxovision.rest.exception.PaxoRestException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.Nullable;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okhttp3.internal.Util;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ *	Response body read from the network once and replayable any number of times. Bodies up to the
+ *	spill threshold are kept in a heap buffer, larger ones are written to a temp file which is
+ *	memory-mapped, so the heap stays bounded. Views (bytes, String) are decoded lazily on the first
+ *	use; streams always read the buffer without copying it.
+ */
+public class ReplayableResponseBody {
+
+    /** Default size of the body kept on heap, larger bodies are spilled to disk */
+    public static final long DEFAULT_SPILL_THRESHOLD = 8L * 1024 * 1024;
+
+    private static final long READ_SIZE = 8192;
+
+    @Nullable private final MediaType contentType;
+    // exactly one of them is set
+    @Nullable private final byte[] heap;
+    @Nullable private final ByteBuffer mapped;
+    @Nullable private String string;
+
+    private ReplayableResponseBody(@Nullable MediaType contentType, @Nullable byte[] heap, @Nullable ByteBuffer mapped) {
+        this.contentType = contentType;
+        this.heap = heap;
+        this.mapped = mapped;
+    }
+
+    /**
+     *	Reads whole body from the network and closes it
+     *
+     *	@param body response body
+     *	@param spillThreshold size in bytes above which the body is spilled to disk
+     *	@return replayable body
+     *	@throws IOException if body can't be read or spilled
+     */
+    public static ReplayableResponseBody read(ResponseBody body, long spillThreshold) throws IOException {
+        try (BufferedSource source = body.source()) {
+            final Buffer buffer = new Buffer();
+            while (buffer.size() <= spillThreshold) {
+                if (source.read(buffer, READ_SIZE) == -1) {
+                    return new ReplayableResponseBody(body.contentType(), buffer.readByteArray(), null);
+                }
+            }
+            return new ReplayableResponseBody(body.contentType(), null, spill(buffer, source));
+        }
+    }
+
+    /**
+     *	Maps the file the body was downloaded to, nothing is copied
+     *
+     *	@param file downloaded body
+     *	@param contentType content type of the body (may be null)
+     *	@return replayable body
+     *	@throws IOException if file can't be mapped
+     */
+    public static ReplayableResponseBody map(Path file, @Nullable MediaType contentType) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ReplayableResponseBody(contentType, null, map(channel));
+        }
+    }
+
+    // writes read part and the rest of the source to unlinked temp file and maps it
+    private static ByteBuffer spill(Buffer buffer, BufferedSource source) throws IOException {
+        final Path file = Files.createTempFile("paxo-rest-body", ".tmp");
+        try (FileChannel channel =
+                FileChannel.open(
+                        file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+            // sink isn't closed, it would close the channel before mapping
+            final BufferedSink sink = Okio.buffer(Okio.sink(Channels.newOutputStream(channel)));
+            sink.writeAll(buffer);
+            sink.writeAll(source);
+            sink.flush();
+            return map(channel);
+        }
+    }
+
+    // mapping stays valid after the channel is closed and the file deleted
+    private static ByteBuffer map(FileChannel channel) throws IOException {
+        final long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new PaxoRestException("Response body of " + size + " bytes is too large to be buffered");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    /** @return content type of the body or null if not known */
+    @Nullable
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    /** @return body size in bytes */
+    public long size() {
+        return heap != null ? heap.length : mapped.capacity();
+    }
+
+    /** @return true if the body was spilled to disk */
+    public boolean isSpilled() {
+        return mapped != null;
+    }
+
+    /** @return new stream reading the body from the beginning */
+    public InputStream inputStream() {
+        return heap != null ? new ByteArrayInputStream(heap) : new ByteBufferInputStream(mapped.duplicate());
+    }
+
+    /** @return copy of the body as byte array, use {@link #inputStream()} to read it without copying */
+    public byte[] bytes() {
+        if (heap == null) {
+            final byte[] bytes = new byte[mapped.capacity()];
+            mapped.duplicate().get(bytes);
+            return bytes;
+        }
+        return heap.clone();
+    }
+
+    /**
+     *	@return body decoded using the byte order mark, charset of the content type or UTF-8, decoded
+     *	on the first call
+     */
+    public synchronized String string() {
+        if (string == null) {
+            final Charset charset = contentType == null ? StandardCharsets.UTF_8 : contentType.charset(StandardCharsets.UTF_8);
+            try (BufferedSource source = Okio.buffer(Okio.source(inputStream()))) {
+                string = source.readString(Util.readBomAsCharset(source, charset));
+            } catch (IOException ex) {
+                throw new PaxoRestException("Failed to decode response body: ", ex);
+            }
+        }
+        return string;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReplayableResponseBody{contentType=%s, size=%d, spilled=%s}", contentType, size(), isSpilled());
+    }
+
+    // stream over the mapped buffer
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -4,6 +4,8 @@ package com.paxovision.rest.response;
 
 import java.util.concurrent.atomic.AtomicReference;
 
+import com.jayway.jsonpath.Configuration;
+import com.paxovision.rest.assertions.JsonAssert;
 import com.paxovision.rest.assertions.Matchers;
 import com.paxovision.rest.assertions.RestResponseAsserter;
 import okhttp3.Response;
@@ -11,15 +13,34 @@ import okhttp3.Response;
 public class RestResponseMatchers extends Matchers<Response> {
 
     private final AtomicReference<ResponseExtractor> responseExtractor;
+    private final Configuration jsonPathConfiguration;
+    private final long bodySpillThreshold;
 
     public RestResponseMatchers(Response response, AtomicReference<ResponseExtractor> responseExtractor) {
+        this(response, responseExtractor, JsonAssert.DEFAULT_CONFIGURATION);
+    }
+
+    public RestResponseMatchers(
+            Response response,
+            AtomicReference<ResponseExtractor> responseExtractor,
+            Configuration jsonPathConfiguration) {
+        this(response, responseExtractor, jsonPathConfiguration, ReplayableResponseBody.DEFAULT_SPILL_THRESHOLD);
+    }
+
+    public RestResponseMatchers(
+            Response response,
+            AtomicReference<ResponseExtractor> responseExtractor,
+            Configuration jsonPathConfiguration,
+            long bodySpillThreshold) {
         super(response);
         this.responseExtractor = responseExtractor;
+        this.jsonPathConfiguration = jsonPathConfiguration;
+        this.bodySpillThreshold = bodySpillThreshold;
     }
 
     @Override
     public RestResponseAsserter match() {
-        return new RestResponseAsserter(getMatchingObject( ), responseExtractor);
+        return new RestResponseAsserter(getMatchingObject( ), responseExtractor, jsonPathConfiguration, bodySpillThreshold);
     }
 
 }
@@ -0,0 +1,54 @@
+package com.paxovision.rest.response;
+
+import java.time.Duration;
+import javax.annotation.Nullable;
+
+/** Single event of the streaming response */
+public class StreamEvent {
+
+    private final int index;
+    @Nullable private final String id;
+    @Nullable private final String name;
+    private final String data;
+    private final Duration elapsed;
+
+    StreamEvent(int index, @Nullable String id, @Nullable String name, String data, Duration elapsed) {
+        this.index = index;
+        this.id = id;
+        this.name = name;
+        this.data = data;
+        this.elapsed = elapsed;
+    }
+
+    /** @return 0-based position of the event in the stream */
+    public int getIndex() {
+        return index;
+    }
+
+    /** @return last event ID set by the server (SSE only), null if not set */
+    @Nullable
+    public String getId() {
+        return id;
+    }
+
+    /** @return event type, {@code message} if not set by the server (SSE only), null for NDJSON */
+    @Nullable
+    public String getName() {
+        return name;
+    }
+
+    /** @return event payload, multi-line SSE data is joined with line feeds */
+    public String getData() {
+        return data;
+    }
+
+    /** @return time from sending the request till the event was received */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StreamEvent{index=%d, id=%s, name=%s, data=%s, elapsed=%s}", index, id, name, data, elapsed);
+    }
+}
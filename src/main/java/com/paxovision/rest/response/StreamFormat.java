@@ -0,0 +1,38 @@
+package com.paxovision.rest.response;
+
+import javax.annotation.Nullable;
+import okhttp3.MediaType;
+
+/** Framing of the events in the streaming response */
+public enum StreamFormat {
+
+    /** Server-Sent Events ({@code text/event-stream}), events are separated by blank lines */
+    SSE,
+
+    /** Newline delimited JSON ({@code application/x-ndjson}), each non-blank line is an event */
+    NDJSON;
+
+    /**
+     *	@param contentType Content-Type of the response
+     *	@return format of the stream or null if the content type is not a known event stream
+     */
+    @Nullable
+    public static StreamFormat of(@Nullable MediaType contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        final String type = contentType.type() + "/" + contentType.subtype();
+        switch (type.toLowerCase()) {
+            case "text/event-stream":
+                return SSE;
+            case "application/x-ndjson":
+            case "application/ndjson":
+            case "application/jsonl":
+            case "application/x-jsonlines":
+            case "application/stream+json":
+                return NDJSON;
+            default:
+                return null;
+        }
+    }
+}
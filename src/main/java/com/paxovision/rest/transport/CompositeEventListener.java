@@ -0,0 +1,230 @@
+package com.paxovision.rest.transport;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import javax.annotation.Nullable;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/** Event listener forwarding all the events of the call to the given listeners, in order */
+final class CompositeEventListener extends EventListener {
+
+    private final List<EventListener> listeners;
+
+    CompositeEventListener(EventListener... listeners) {
+        this.listeners = ImmutableList.copyOf(listeners);
+    }
+
+    @Override
+    public void callStart(Call call) {
+        for (EventListener listener : listeners) {
+            listener.callStart(call);
+        }
+    }
+
+    @Override
+    public void proxySelectStart(Call call, HttpUrl url) {
+        for (EventListener listener : listeners) {
+            listener.proxySelectStart(call, url);
+        }
+    }
+
+    @Override
+    public void proxySelectEnd(Call call, HttpUrl url, List<Proxy> proxies) {
+        for (EventListener listener : listeners) {
+            listener.proxySelectEnd(call, url, proxies);
+        }
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        for (EventListener listener : listeners) {
+            listener.dnsStart(call, domainName);
+        }
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        for (EventListener listener : listeners) {
+            listener.dnsEnd(call, domainName, inetAddressList);
+        }
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        for (EventListener listener : listeners) {
+            listener.connectStart(call, inetSocketAddress, proxy);
+        }
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        for (EventListener listener : listeners) {
+            listener.secureConnectStart(call);
+        }
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, @Nullable Handshake handshake) {
+        for (EventListener listener : listeners) {
+            listener.secureConnectEnd(call, handshake);
+        }
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, @Nullable Protocol protocol) {
+        for (EventListener listener : listeners) {
+            listener.connectEnd(call, inetSocketAddress, proxy, protocol);
+        }
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, @Nullable Protocol protocol, IOException ioe) {
+        for (EventListener listener : listeners) {
+            listener.connectFailed(call, inetSocketAddress, proxy, protocol, ioe);
+        }
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        for (EventListener listener : listeners) {
+            listener.connectionAcquired(call, connection);
+        }
+    }
+
+    @Override
+    public void connectionReleased(Call call, Connection connection) {
+        for (EventListener listener : listeners) {
+            listener.connectionReleased(call, connection);
+        }
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        for (EventListener listener : listeners) {
+            listener.requestHeadersStart(call);
+        }
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        for (EventListener listener : listeners) {
+            listener.requestHeadersEnd(call, request);
+        }
+    }
+
+    @Override
+    public void requestBodyStart(Call call) {
+        for (EventListener listener : listeners) {
+            listener.requestBodyStart(call);
+        }
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        for (EventListener listener : listeners) {
+            listener.requestBodyEnd(call, byteCount);
+        }
+    }
+
+    @Override
+    public void requestFailed(Call call, IOException ioe) {
+        for (EventListener listener : listeners) {
+            listener.requestFailed(call, ioe);
+        }
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        for (EventListener listener : listeners) {
+            listener.responseHeadersStart(call);
+        }
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        for (EventListener listener : listeners) {
+            listener.responseHeadersEnd(call, response);
+        }
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        for (EventListener listener : listeners) {
+            listener.responseBodyStart(call);
+        }
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        for (EventListener listener : listeners) {
+            listener.responseBodyEnd(call, byteCount);
+        }
+    }
+
+    @Override
+    public void responseFailed(Call call, IOException ioe) {
+        for (EventListener listener : listeners) {
+            listener.responseFailed(call, ioe);
+        }
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        for (EventListener listener : listeners) {
+            listener.callEnd(call);
+        }
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        for (EventListener listener : listeners) {
+            listener.callFailed(call, ioe);
+        }
+    }
+
+    @Override
+    public void canceled(Call call) {
+        for (EventListener listener : listeners) {
+            listener.canceled(call);
+        }
+    }
+
+    @Override
+    public void satisfactionFailure(Call call, Response response) {
+        for (EventListener listener : listeners) {
+            listener.satisfactionFailure(call, response);
+        }
+    }
+
+    @Override
+    public void cacheHit(Call call, Response response) {
+        for (EventListener listener : listeners) {
+            listener.cacheHit(call, response);
+        }
+    }
+
+    @Override
+    public void cacheMiss(Call call) {
+        for (EventListener listener : listeners) {
+            listener.cacheMiss(call);
+        }
+    }
+
+    @Override
+    public void cacheConditionalHit(Call call, Response cachedResponse) {
+        for (EventListener listener : listeners) {
+            listener.cacheConditionalHit(call, cachedResponse);
+        }
+    }
+}
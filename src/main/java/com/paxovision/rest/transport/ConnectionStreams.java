@@ -0,0 +1,65 @@
+package com.paxovision.rest.transport;
+
+import okhttp3.Protocol;
+
+/**
+ *	Snapshot of the streams (exchanges) carried by single connection of the {@link RestTransport}.
+ *	HTTP/1.1 connection carries one stream at a time, HTTP/2 connection multiplexes concurrent
+ *	streams.
+ */
+public class ConnectionStreams {
+
+    private final String host;
+    private final int port;
+    private final Protocol protocol;
+    private final int activeStreams;
+    private final int maxConcurrentStreams;
+    private final long totalStreams;
+
+    ConnectionStreams(
+            String host, int port, Protocol protocol, int activeStreams, int maxConcurrentStreams, long totalStreams) {
+        this.host = host;
+        this.port = port;
+        this.protocol = protocol;
+        this.activeStreams = activeStreams;
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.totalStreams = totalStreams;
+    }
+
+    /** @return host the connection is established to */
+    public String getHost() {
+        return host;
+    }
+
+    /** @return port the connection is established to */
+    public int getPort() {
+        return port;
+    }
+
+    /** @return negotiated protocol of the connection */
+    public Protocol getProtocol() {
+        return protocol;
+    }
+
+    /** @return number of calls currently using the connection */
+    public int getActiveStreams() {
+        return activeStreams;
+    }
+
+    /** @return highest number of calls using the connection at the same time */
+    public int getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    /** @return number of calls carried by the connection */
+    public long getTotalStreams() {
+        return totalStreams;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "ConnectionStreams{%s:%d, protocol=%s, active=%d, maxConcurrent=%d, total=%d}",
+                host, port, protocol, activeStreams, maxConcurrentStreams, totalStreams);
+    }
+}
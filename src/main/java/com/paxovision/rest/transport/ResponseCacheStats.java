@@ -0,0 +1,187 @@
+package com.paxovision.rest.transport;
+
+import com.google.common.base.Preconditions;
+import com.paxovision.rest.exception.PaxoRestException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *	Counters of the actor's HTTP response cache. Hits are served from disk without network,
+ *	conditional hits are revalidated by the server ({@code 304 Not Modified}) and served from
+ *	disk, conditional misses are revalidated, but modified on the server, so fetched again. Misses
+ *	are fetched from the network without revalidation. Network calls are counted when they end,
+ *	failed ones are counted as failures.
+ *
+ *	<p>Owns the cache, which is closed when the transport of the actor is shut down. Cache
+ *	directory can't be used by another cache till then.
+ */
+public class ResponseCacheStats {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCacheStats.class);
+    // directories of the open caches
+    private static final Set<Path> OPEN_DIRECTORIES = ConcurrentHashMap.newKeySet();
+
+    private final Path directory;
+    private final Cache cache;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder conditionalHits = new LongAdder();
+    private final LongAdder conditionalMisses = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private ResponseCacheStats(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.cache = new Cache(directory.toFile(), maxBytes);
+    }
+
+    /**
+     *	Opens the response cache in the directory
+     *
+     *	@param directory cache directory
+     *	@param maxBytes maximum size of the cache on disk
+     *	@return counters of the new cache
+     *	@throws IllegalStateException if the directory is used by another open cache
+     */
+    public static ResponseCacheStats open(Path directory, long maxBytes) {
+        final Path normalized = directory.toAbsolutePath().normalize();
+        Preconditions.checkState(
+                OPEN_DIRECTORIES.add(normalized), "Response cache directory %s is already in use!", normalized);
+        return new ResponseCacheStats(normalized, maxBytes);
+    }
+
+    /** @return the cache */
+    Cache cache() {
+        return cache;
+    }
+
+    // close the cache and release its directory, has no effect if closed already
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            try {
+                cache.close();
+            } catch (IOException ex) {
+                LOGGER.warn("Failed to close response cache in {}", directory, ex);
+            } finally {
+                OPEN_DIRECTORIES.remove(directory);
+            }
+        }
+    }
+
+    /** @return event listener of the single call feeding the counters */
+    EventListener newEventListener() {
+        return new EventListener() {
+
+            // OkHttp reports conditional request first, then hit (304) or miss (modified, if the
+            // new response is cacheable); miss is reported before the network call
+            private boolean conditional;
+            private LongAdder outcome;
+            private boolean recorded;
+
+            @Override
+            public void cacheConditionalHit(Call call, Response cachedResponse) {
+                conditional = true;
+            }
+
+            @Override
+            public void cacheHit(Call call, Response response) {
+                record(conditional ? conditionalHits : hits);
+            }
+
+            @Override
+            public void cacheMiss(Call call) {
+                outcome = conditional ? conditionalMisses : misses;
+            }
+
+            @Override
+            public void callEnd(Call call) {
+                // modified response, which is not cacheable anymore, is not reported as miss
+                if (outcome != null || conditional) {
+                    record(outcome != null ? outcome : conditionalMisses);
+                }
+            }
+
+            @Override
+            public void callFailed(Call call, IOException ioe) {
+                record(failures);
+            }
+
+            private void record(LongAdder counter) {
+                if (!recorded) {
+                    recorded = true;
+                    counter.increment();
+                }
+            }
+        };
+    }
+
+    /** @return number of responses served from the cache without network */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /** @return number of cached responses revalidated by the server */
+    public long conditionalHits() {
+        return conditionalHits.sum();
+    }
+
+    /** @return number of cached responses revalidated by the server as modified and fetched again */
+    public long conditionalMisses() {
+        return conditionalMisses.sum();
+    }
+
+    /**
+     *	@return number of responses fetched from the network without revalidation (including not
+     *	cacheable requests)
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** @return number of calls failed before the response was served (including revalidations) */
+    public long failures() {
+        return failures.sum();
+    }
+
+    /**
+     *	@return ratio of the requests served without network, in [0..1] (0 if no request was
+     *	performed yet)
+     */
+    public double hitRatio() {
+        final long hitCount = hits.sum();
+        final long total =
+                hitCount + conditionalHits.sum() + conditionalMisses.sum() + misses.sum() + failures.sum();
+        return total == 0 ? 0 : hitCount / (double) total;
+    }
+
+    /** @return bytes currently used by the cache on disk */
+    public long size() {
+        try {
+            return cache.size();
+        } catch (IOException ex) {
+            throw new PaxoRestException("Failed to read response cache size: ", ex);
+        }
+    }
+
+    /** @return maximum number of bytes the cache may use on disk */
+    public long maxSize() {
+        return cache.maxSize();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "ResponseCacheStats{hits=%d, conditionalHits=%d, conditionalMisses=%d, misses=%d, failures=%d, hitRatio=%.2f}",
+                hits(), conditionalHits(), conditionalMisses(), misses(), failures(), hitRatio());
+    }
+}
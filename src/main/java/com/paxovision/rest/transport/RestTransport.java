@@ -0,0 +1,351 @@
+package com.paxovision.rest.transport;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *	Connection pool and dispatcher used by {@link com.paxovision.rest.actor.RestClientActor}. By
+ *	default each actor owns its transport. Named transports are registered globally and shared by
+ *	all actors built with the same name, so actors talking to the same hosts reuse sockets and
+ *	threads.
+ *
+ *	<p>With HTTP/2 all the calls to the host are multiplexed over single connection, number of
+ *	concurrent streams is limited by the dispatcher's per-host limit and server's
+ *	SETTINGS_MAX_CONCURRENT_STREAMS.
+ */
+public class RestTransport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RestTransport.class);
+    private static final Map<String, RestTransport> SHARED = new ConcurrentHashMap<>();
+
+    private static final String MAX_IDLE_CONNECTIONS = "maxIdleConnections";
+    private static final String KEEP_ALIVE = "keepAlive";
+    private static final String MAX_REQUESTS = "maxRequests";
+    private static final String MAX_REQUESTS_PER_HOST = "maxRequestsPerHost";
+    private static final String VIRTUAL_THREADS = "virtualThreads";
+    private static final String PROTOCOLS = "protocols";
+    private static final String PING_INTERVAL = "pingInterval";
+
+    private final String name;
+    private final ConnectionPool connectionPool;
+    private final Dispatcher dispatcher;
+    private final TransportStats stats;
+    private final List<Protocol> protocols;
+    private final Duration pingInterval;
+    // response caches of the actors, closed on shutdown
+    private final Set<ResponseCacheStats> responseCaches = ConcurrentHashMap.newKeySet();
+    // settings the transport was built with, by name, shared transport is checked against them
+    private final Map<String, Object> settings;
+
+    private RestTransport(String name, Builder builder) {
+        this.name = name;
+        this.settings = builder.settings();
+        this.protocols = builder.protocols;
+        this.pingInterval = builder.pingInterval;
+        this.connectionPool =
+                new ConnectionPool(
+                        builder.maxIdleConnections, builder.keepAlive.toMillis(), TimeUnit.MILLISECONDS);
+        this.dispatcher = new Dispatcher(newExecutor(builder.virtualThreads));
+        this.dispatcher.setMaxRequests(builder.maxRequests);
+        this.dispatcher.setMaxRequestsPerHost(builder.maxRequestsPerHost);
+        this.stats = new TransportStats(connectionPool, dispatcher);
+    }
+
+    // executor for the dispatcher, same as OkHttp default one for platform threads
+    private static ExecutorService newExecutor(boolean virtualThreads) {
+        if (virtualThreads) {
+            if (VirtualThreads.isSupported()) {
+                return VirtualThreads.newExecutor();
+            }
+            LOGGER.warn("Virtual threads are not supported by JDK {}, using platform threads", Runtime.version());
+        }
+        return new ThreadPoolExecutor(
+                0,
+                Integer.MAX_VALUE,
+                60,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("OkHttp Dispatcher-%d").setDaemon(false).build());
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     *	Returns shared transport registered with given name
+     *
+     *	@param name name of the shared transport
+     *	@return shared transport or null if not registered
+     */
+    public static RestTransport shared(String name) {
+        return SHARED.get(name);
+    }
+
+    /** @return name of the shared transport or null for actor-private transport */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     *	Returns executor running async calls of this transport. For the transport built with
+     *	virtual threads it starts new virtual thread per task, so it's suitable to run blocking
+     *	calls (i.e. {@code expect(...)}) with high concurrency.
+     *
+     *	@return dispatcher executor
+     */
+    public ExecutorService getExecutor() {
+        return dispatcher.executorService();
+    }
+
+    /** @return live connection pool and dispatcher gauges */
+    public TransportStats getStats() {
+        return stats;
+    }
+
+    /**
+     *	Configure OkHttp client builder to use this transport
+     *
+     *	@param okHttpClientBuilder client builder to be configured
+     *	@return given client builder
+     */
+    public OkHttpClient.Builder applyTo(OkHttpClient.Builder okHttpClientBuilder) {
+        return applyTo(okHttpClientBuilder, null);
+    }
+
+    /**
+     *	Configure OkHttp client builder to use this transport and the response cache, which is
+     *	closed when the transport is shut down
+     *
+     *	@param okHttpClientBuilder client builder to be configured
+     *	@param cacheStats response cache of the client with its counters, may be null
+     *	@return given client builder
+     */
+    public OkHttpClient.Builder applyTo(
+            OkHttpClient.Builder okHttpClientBuilder, @Nullable ResponseCacheStats cacheStats) {
+        if (cacheStats != null) {
+            responseCaches.add(cacheStats);
+            okHttpClientBuilder.cache(cacheStats.cache());
+        }
+        if (protocols != null) {
+            okHttpClientBuilder.protocols(protocols);
+        }
+        if (pingInterval != null) {
+            okHttpClientBuilder.pingInterval(pingInterval);
+        }
+        return okHttpClientBuilder
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .eventListenerFactory(
+                        call ->
+                                cacheStats == null
+                                        ? stats.newEventListener()
+                                        : new CompositeEventListener(
+                                                stats.newEventListener(), cacheStats.newEventListener()));
+    }
+
+    /**
+     *	Evicts all the pooled connections, stops the dispatcher threads, closes the response caches
+     *	and removes the transport from shared registry. Actors using this transport can't be used
+     *	after shutdown.
+     */
+    public void shutdown() {
+        if (name != null) {
+            SHARED.remove(name, this);
+        }
+        dispatcher.cancelAll();
+        dispatcher.executorService().shutdown();
+        connectionPool.evictAll();
+        responseCaches.forEach(ResponseCacheStats::close);
+        responseCaches.clear();
+    }
+
+    /** Builder for the {@link RestTransport} */
+    public static final class Builder {
+
+        int maxIdleConnections = 5;
+        Duration keepAlive = Duration.ofMinutes(5);
+        int maxRequests = 64;
+        int maxRequestsPerHost = 5;
+        boolean virtualThreads = false;
+        List<Protocol> protocols;
+        Duration pingInterval;
+        // names of the settings set explicitly
+        private final Set<String> configured = new HashSet<>();
+
+        /** @return new actor-private transport */
+        public RestTransport build() {
+            return new RestTransport(null, this);
+        }
+
+        /**
+         *	Returns transport registered with given name, creating it from this builder if it's not
+         *	registered yet. Settings left at their defaults are taken from the existing transport,
+         *	the ones set on the builder must match it.
+         *
+         *	@param name name of the shared transport
+         *	@return shared transport
+         *	@throws IllegalStateException if the builder's settings conflict with the existing
+         *	transport
+         */
+        public RestTransport buildShared(String name) {
+            Preconditions.checkNotNull(name, "Transport name can't be null!");
+            final RestTransport transport = SHARED.computeIfAbsent(name, key -> new RestTransport(key, this));
+            final Map<String, Object> settings = settings();
+            final Map<String, Object> conflicts = new LinkedHashMap<>();
+            for (String setting : configured) {
+                if (!Objects.equals(transport.settings.get(setting), settings.get(setting))) {
+                    conflicts.put(setting, settings.get(setting));
+                }
+            }
+            if (!conflicts.isEmpty()) {
+                throw new IllegalStateException(
+                        "Shared transport '" + name + "' exists with other settings " + transport.settings
+                                + ", conflicting: " + conflicts);
+            }
+            return transport;
+        }
+
+        // all the settings by name, values may be null
+        private Map<String, Object> settings() {
+            final Map<String, Object> settings = new LinkedHashMap<>();
+            settings.put(MAX_IDLE_CONNECTIONS, maxIdleConnections);
+            settings.put(KEEP_ALIVE, keepAlive);
+            settings.put(MAX_REQUESTS, maxRequests);
+            settings.put(MAX_REQUESTS_PER_HOST, maxRequestsPerHost);
+            settings.put(VIRTUAL_THREADS, virtualThreads);
+            settings.put(PROTOCOLS, protocols);
+            settings.put(PING_INTERVAL, pingInterval);
+            return settings;
+        }
+
+        /**
+         *	Sets maximum number of idle connections kept in the pool. Default value is 5.
+         *
+         *	@param maxIdleConnections maximum number of idle connections
+         *	@return self
+         */
+        public Builder withMaxIdleConnections(int maxIdleConnections) {
+            Preconditions.checkArgument(maxIdleConnections >= 0, "maxIdleConnections can't be negative!");
+            this.maxIdleConnections = maxIdleConnections;
+            configured.add(MAX_IDLE_CONNECTIONS);
+            return this;
+        }
+
+        /**
+         *	Sets how long idle connection is kept in the pool. Default value is 5 minutes.
+         *
+         *	@param keepAlive keep alive duration
+         *	@return self
+         */
+        public Builder withKeepAlive(Duration keepAlive) {
+            Preconditions.checkArgument(!keepAlive.isNegative() && !keepAlive.isZero(), "keepAlive must be positive!");
+            this.keepAlive = keepAlive;
+            configured.add(KEEP_ALIVE);
+            return this;
+        }
+
+        /**
+         *	Sets maximum number of async requests executed concurrently. Default value is 64.
+         *
+         *	@param maxRequests maximum number of concurrent requests
+         *	@return self
+         */
+        public Builder withMaxRequests(int maxRequests) {
+            Preconditions.checkArgument(maxRequests > 0, "maxRequests must be positive integer value!");
+            this.maxRequests = maxRequests;
+            configured.add(MAX_REQUESTS);
+            return this;
+        }
+
+        /**
+         *	Sets maximum number of async requests executed concurrently against the same host.
+         *	Default value is 5.
+         *
+         *	@param maxRequestsPerHost maximum number of concurrent requests per host
+         *	@return self
+         */
+        public Builder withMaxRequestsPerHost(int maxRequestsPerHost) {
+            Preconditions.checkArgument(maxRequestsPerHost > 0, "maxRequestsPerHost must be positive integer value!");
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            configured.add(MAX_REQUESTS_PER_HOST);
+            return this;
+        }
+
+        /**
+         *	Run async calls on virtual threads instead of platform thread pool. Falls back to
+         *	platform threads (with warning) if running JDK doesn't support virtual threads.
+         *
+         *	@return self
+         */
+        public Builder withVirtualThreads() {
+            this.virtualThreads = true;
+            configured.add(VIRTUAL_THREADS);
+            return this;
+        }
+
+        /**
+         *	Sets protocols offered to the servers, in order of preference. Default is OkHttp's
+         *	HTTP/2 with fallback to HTTP/1.1 (HTTP/2 is negotiated over TLS only). Either
+         *	{@link Protocol#H2_PRIOR_KNOWLEDGE} alone or list containing {@link Protocol#HTTP_1_1}
+         *	is accepted.
+         *
+         *	@param protocols protocols to be used
+         *	@return self
+         */
+        public Builder withProtocols(Protocol... protocols) {
+            final List<Protocol> list = ImmutableList.copyOf(protocols);
+            Preconditions.checkArgument(
+                    list.contains(Protocol.HTTP_1_1) || list.equals(ImmutableList.of(Protocol.H2_PRIOR_KNOWLEDGE)),
+                    "Protocols must contain http/1.1 or h2_prior_knowledge alone: %s", list);
+            this.protocols = list;
+            configured.add(PROTOCOLS);
+            return this;
+        }
+
+        /**
+         *	Use cleartext HTTP/2 without upgrade (h2c prior knowledge). Server must support it,
+         *	HTTP/1.1 fallback is not possible.
+         *
+         *	@return self
+         */
+        public Builder withH2PriorKnowledge() {
+            return withProtocols(Protocol.H2_PRIOR_KNOWLEDGE);
+        }
+
+        /**
+         *	Sets interval of HTTP/2 pings keeping the multiplexed connection alive and detecting
+         *	broken ones. Not set by default.
+         *
+         *	@param pingInterval ping interval
+         *	@return self
+         */
+        public Builder withPingInterval(Duration pingInterval) {
+            Preconditions.checkArgument(
+                    !pingInterval.isNegative() && !pingInterval.isZero(), "pingInterval must be positive!");
+            this.pingInterval = pingInterval;
+            configured.add(PING_INTERVAL);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.paxovision.rest.transport;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+/**
+ *	Live gauges and counters for the {@link RestTransport}. Values are read directly from the
+ *	{@link ConnectionPool}/{@link Dispatcher} on each call, so they always reflect current state.
+ */
+public class TransportStats {
+
+    private final ConnectionPool connectionPool;
+    private final Dispatcher dispatcher;
+    private final LongAdder connectionsAcquired = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final Map<Protocol, LongAdder> connectionsOpenedByProtocol = new EnumMap<>(Protocol.class);
+    // entries are dropped once the connection evicted from the pool is garbage collected
+    private final ConcurrentMap<Connection, StreamCounter> streams =
+            CacheBuilder.newBuilder().weakKeys().<Connection, StreamCounter>build().asMap();
+
+    TransportStats(ConnectionPool connectionPool, Dispatcher dispatcher) {
+        this.connectionPool = connectionPool;
+        this.dispatcher = dispatcher;
+        for (Protocol protocol : Protocol.values()) {
+            connectionsOpenedByProtocol.put(protocol, new LongAdder());
+        }
+    }
+
+    /** @return number of idle connections in the pool */
+    public int idleConnections() {
+        return connectionPool.idleConnectionCount();
+    }
+
+    /** @return number of connections in the pool currently carrying a call */
+    public int activeConnections() {
+        return Math.max(0, connectionPool.connectionCount() - connectionPool.idleConnectionCount());
+    }
+
+    /** @return total number of connections in the pool */
+    public int totalConnections() {
+        return connectionPool.connectionCount();
+    }
+
+    /** @return number of async calls waiting for the dispatcher */
+    public int queuedCalls() {
+        return dispatcher.queuedCallsCount();
+    }
+
+    /** @return number of calls (sync and async) currently executed */
+    public int runningCalls() {
+        return dispatcher.runningCallsCount();
+    }
+
+    /** @return number of times a connection was acquired by a call (including redirect hops) */
+    public long connectionsAcquired() {
+        return connectionsAcquired.sum();
+    }
+
+    /** @return number of new connections established */
+    public long connectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    /**
+     *	@param protocol negotiated protocol
+     *	@return number of new connections established with given protocol
+     */
+    public long connectionsOpened(Protocol protocol) {
+        return connectionsOpenedByProtocol.get(protocol).sum();
+    }
+
+    /** @return number of calls currently holding a connection, over all connections */
+    public int activeStreams() {
+        return streams.values().stream().mapToInt(counter -> counter.active.get()).sum();
+    }
+
+    /**
+     *	Returns stream counters of the connections used recently. Closed connections are reported
+     *	until garbage collected.
+     *
+     *	@return snapshot of the streams per connection
+     */
+    public List<ConnectionStreams> connectionStreams() {
+        return streams.values().stream()
+                .map(StreamCounter::snapshot)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     *	@return ratio of the acquisitions served by already established connections, in [0..1]
+     *	(0 if no connection was acquired yet)
+     */
+    public double reuseRatio() {
+        final long acquired = connectionsAcquired.sum();
+        if (acquired == 0) {
+            return 0;
+        }
+        return Math.max(0, acquired - connectionsOpened.sum()) / (double) acquired;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "TransportStats{idle=%d, active=%d, streams=%d, reuseRatio=%.2f, queued=%d, running=%d}",
+                idleConnections(),
+                activeConnections(),
+                activeStreams(),
+                reuseRatio(),
+                queuedCalls(),
+                runningCalls());
+    }
+
+    /** @return event listener feeding connection counters of this stats instance */
+    EventListener newEventListener() {
+        return new EventListener() {
+            @Override
+            public void connectEnd(
+                    Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+                connectionsOpened.increment();
+                if (protocol != null) {
+                    connectionsOpenedByProtocol.get(protocol).increment();
+                }
+            }
+
+            @Override
+            public void connectionAcquired(Call call, Connection connection) {
+                connectionsAcquired.increment();
+                streams.computeIfAbsent(connection, StreamCounter::new).acquired();
+            }
+
+            @Override
+            public void connectionReleased(Call call, Connection connection) {
+                final StreamCounter counter = streams.get(connection);
+                if (counter != null) {
+                    counter.active.decrementAndGet();
+                }
+            }
+        };
+    }
+
+    // stream counters of single connection
+    private static final class StreamCounter {
+
+        private final String host;
+        private final int port;
+        private final Protocol protocol;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+        private final LongAdder total = new LongAdder();
+
+        StreamCounter(Connection connection) {
+            this.host = connection.route().address().url().host();
+            this.port = connection.route().address().url().port();
+            this.protocol = connection.protocol();
+        }
+
+        void acquired() {
+            total.increment();
+            final int current = active.incrementAndGet();
+            maxConcurrent.accumulateAndGet(current, Math::max);
+        }
+
+        ConnectionStreams snapshot() {
+            return new ConnectionStreams(host, port, protocol, active.get(), maxConcurrent.get(), total.sum());
+        }
+    }
+}
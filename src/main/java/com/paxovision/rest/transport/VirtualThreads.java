@@ -0,0 +1,72 @@
+package com.paxovision.rest.transport;
+
+import com.paxovision.rest.exception.PaxoRestException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ *	Access to JDK virtual threads (JDK 21+). Resolved reflectively, so the library still runs on
+ *	older JDKs, where {@link #isSupported()} returns false.
+ */
+public final class VirtualThreads {
+
+    private static final Method NEW_EXECUTOR = lookupExecutorFactory();
+    private static final Method IS_VIRTUAL = lookupIsVirtual();
+
+    private VirtualThreads() {
+    }
+
+    private static Method lookupExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+
+    private static Method lookupIsVirtual() {
+        try {
+            return Thread.class.getMethod("isVirtual");
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+
+    /** @return true if running JDK supports virtual threads */
+    public static boolean isSupported() {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     *	Creates executor, which starts a new virtual thread for each task
+     *
+     *	@return new virtual thread per task executor
+     *	@throws PaxoRestException if virtual threads are not supported by the running JDK
+     */
+    public static ExecutorService newExecutor() {
+        if (NEW_EXECUTOR == null) {
+            throw new PaxoRestException("Virtual threads are not supported by JDK " + Runtime.version());
+        }
+        try {
+            return (ExecutorService) NEW_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            throw new PaxoRestException("Failed to create virtual thread executor: ", ex);
+        }
+    }
+
+    /**
+     *	@param thread thread to be checked
+     *	@return true if the thread is virtual, always false if virtual threads are not supported
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_VIRTUAL.invoke(thread);
+        } catch (ReflectiveOperationException ex) {
+            throw new PaxoRestException("Failed to check thread type: ", ex);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Map;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.validation.Schema;
 import javax.xml.xpath.XPathFactory;
+import com.paxovision.rest.assertions.XmlSupport;
 import org.assertj.core.api.AbstractAssert;
 import org.xmlunit.builder.Input;
 
@@ -51,7 +52,7 @@ public class XMLAssert extends AbstractAssert<XMLAssert, Object>{
     public MultipleNodeAssert nodesByXPath(String xPath) {
         isNotNull();
         try {
-            return MultipleNodeAssert.create(actual, prefix2Uri, dbf, xpf, xPath);
+            return MultipleNodeAssert.create(actual, prefix2Uri, dbf, xPathFactory(), xPath);
         } catch (Exception e) {
             throwAssertionError(shouldNotHaveThrown(e));
         }
@@ -69,7 +70,7 @@ public class XMLAssert extends AbstractAssert<XMLAssert, Object>{
     public ValueAssert valueByXPath(String xPath) {
         isNotNull();
         try {
-            return ValueAssert.create(actual, prefix2Uri, dbf, xpf, xPath);
+            return ValueAssert.create(actual, prefix2Uri, dbf, xPathFactory(), xPath);
         } catch (Exception e) {
             throwAssertionError(shouldNotHaveThrown(e));
         }
@@ -86,6 +87,11 @@ public class XMLAssert extends AbstractAssert<XMLAssert, Object>{
         return null; // fix compile issue
     }
 
+    // compiled expressions are reused unless custom XPath factory is set
+    private XPathFactory xPathFactory() {
+        return xpf != null ? xpf : XmlSupport.xPathFactory(prefix2Uri);
+    }
+
     public XMLAssert isValid() {
         isNotNull();
         ValidationAssert.create(actual).isValid();
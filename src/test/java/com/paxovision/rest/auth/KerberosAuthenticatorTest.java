@@ -0,0 +1,33 @@
+package com.paxovision.rest.auth;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KerberosAuthenticatorTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final long MARGIN = KerberosAuthenticator.REFRESH_MARGIN.toMillis();
+    private static final long MIN_INTERVAL = KerberosAuthenticator.MIN_LOGIN_INTERVAL.toMillis();
+
+    @Test
+    public void refreshAtTest() {
+        // fresh TGT is refreshed at the margin before its expiry
+        assertThat(KerberosAuthenticator.refreshAt(NOW, NOW, NOW + 10 * HOUR))
+                .isEqualTo(NOW + 10 * HOUR - MARGIN);
+        // old TGT from the ticket cache isn't refreshed by every request
+        assertThat(KerberosAuthenticator.refreshAt(NOW, NOW - 9 * HOUR, NOW + HOUR))
+                .isEqualTo(NOW + HOUR - MARGIN)
+                .isGreaterThan(NOW);
+        // TGT close to its expiry is refreshed after the minimal login interval
+        assertThat(KerberosAuthenticator.refreshAt(NOW, NOW - 10 * HOUR, NOW + MARGIN / 2))
+                .isEqualTo(NOW + MIN_INTERVAL);
+        assertThat(KerberosAuthenticator.refreshAt(NOW, NOW - 10 * HOUR, NOW - HOUR))
+                .isEqualTo(NOW + MIN_INTERVAL);
+        // short lived TGT is refreshed at the part of its lifetime
+        assertThat(KerberosAuthenticator.refreshAt(NOW, NOW, NOW + 10 * MIN_INTERVAL))
+                .isEqualTo(NOW + 8 * MIN_INTERVAL);
+    }
+}
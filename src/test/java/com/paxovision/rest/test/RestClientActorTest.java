@@ -1,10 +1,53 @@
 package com.paxovision.rest.test;
 
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
 import com.google.common.collect.FluentIterable;
+import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.PathNotFoundException;
 import com.paxovision.rest.actor.RestClientActor;
+import com.paxovision.rest.assertions.DownloadAssert;
+import com.paxovision.rest.assertions.JsonAssert;
+import com.paxovision.rest.assertions.CssSelectorCache;
+import com.paxovision.rest.assertions.JsonPathCache;
+import com.paxovision.rest.assertions.JsonSchemaCache;
+import com.paxovision.rest.assertions.XmlSupport;
+import com.paxovision.rest.assertions.RaptorMultipleFailuresError;
+import com.paxovision.rest.assertions.RestResponseAsserter;
+import com.paxovision.rest.auth.NTLMAuthenticator;
+import com.paxovision.rest.exception.PaxoRestException;
+import com.paxovision.rest.load.ArrivalRate;
+import com.paxovision.rest.load.LoadReport;
+import com.paxovision.rest.policy.AdaptiveConcurrencyLimiter;
+import com.paxovision.rest.policy.CircuitBreaker;
+import com.paxovision.rest.policy.CircuitBreakerOpenException;
+import com.paxovision.rest.policy.HedgingPolicy;
+import com.paxovision.rest.policy.RateLimitStats;
+import com.paxovision.rest.policy.RetryPolicy;
+import com.paxovision.rest.policy.RetryStats;
+import com.paxovision.rest.policy.RequestCoalescer;
+import com.paxovision.rest.policy.RequestRateLimiter;
+import com.paxovision.rest.request.RestGetRequestBuilder;
+import com.paxovision.rest.response.EventStreamReport;
+import com.paxovision.rest.response.RestResponseMatchers;
+import com.paxovision.rest.response.StreamFormat;
+import com.paxovision.rest.transport.ConnectionStreams;
+import com.paxovision.rest.transport.ResponseCacheStats;
+import com.paxovision.rest.transport.TransportStats;
+import com.paxovision.rest.transport.VirtualThreads;
+import jcifs.ntlmssp.NtlmFlags;
+import jcifs.ntlmssp.Type2Message;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
 import static com.github.tomakehurst.wiremock.client.WireMock.delete;
 import static com.github.tomakehurst.wiremock.client.WireMock.deleteRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
@@ -23,27 +66,55 @@ import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static com.google.common.net.HttpHeaders.AUTHORIZATION;
 import static com.paxovision.rest.test.WireMockSetupExtension.WIREMOCK_SERVER;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static org.springframework.util.SerializationUtils.deserialize;
 import static org.springframework.util.SerializationUtils.serialize;
 import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.Year;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
 import org.assertj.core.api.Assertions;
+import org.assertj.core.error.AssertJMultipleFailuresError;
+import org.everit.json.schema.Schema;
 import org.json.JSONException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.w3c.dom.Document;
 
 
 @ExtendWith(WireMockSetupExtension.class)
@@ -179,7 +250,1300 @@ public class RestClientActorTest {
 
     }
 
+    @Test
+    public void expectAsyncTest() throws Exception {
+        stubFor(
+                get(urlMatching(".*/api/v2/.*"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", JSON_CONTENT_TYPE)
+                                        .withBody("{\"id\": 123}")));
+
+        final CompletableFuture<Integer> id =
+                restClientActor
+                        .get("/api/v2/get_bookmark/123")
+                        .expectAsync(
+                                response ->
+                                        response.match()
+                                                .accepted()
+                                                .bodyAsJSON(
+                                                        json -> json.extract().jsonPathAsInteger("$.id")));
+        assertEquals(123, id.get(5, TimeUnit.SECONDS));
+
+        final CompletableFuture<Object> failed =
+                restClientActor
+                        .get("/api/v2/get_bookmark/123")
+                        .expectAsync(
+                                response ->
+                                        response.match()
+                                                .bodyAsJSON(json -> json.jsonPathAsInteger("$.id").isEqualTo(1)));
+        final ExecutionException ex =
+                assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof AssertionError);
+    }
+
+    @Test
+    public void sharedTransportTest() {
+        stubFor(
+                get(urlMatching(".*/api/v2/.*"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", JSON_CONTENT_TYPE)
+                                        .withBody("{}")));
+
+        final RestClientActor first =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withSharedTransport("shared-transport-test")
+                        .withMaxIdleConnections(2)
+                        .build();
+        final RestClientActor second =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withBasicAuth("User", "Password")
+                        .withSharedTransport("shared-transport-test")
+                        .build();
+
+        assertSame(first.getTransport(), second.getTransport());
+
+        first.get("/api/v2/test").expect(response -> response.match().accepted().bodyIs("{}"));
+        second.get("/api/v2/test").expect(response -> response.match().accepted().bodyIs("{}"));
+
+        final TransportStats stats = second.getTransportStats();
+        assertEquals(2, stats.connectionsAcquired());
+        assertEquals(1, stats.connectionsOpened());
+        assertEquals(0.5, stats.reuseRatio());
+        assertEquals(1, stats.idleConnections());
+
+        // settings set on the builder must match the shared transport
+        final RestClientActor.Builder conflicting =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withSharedTransport("shared-transport-test")
+                        .withMaxIdleConnections(2)
+                        .withMaxRequests(8);
+        assertThrows(IllegalStateException.class, conflicting::build);
+        assertSame(first.getTransport(), conflicting.withMaxRequests(64).build().getTransport());
+        first.getTransport().shutdown();
+    }
+
+    @Test
+    public void virtualThreadsTest() throws Exception {
+        stubFor(get(urlMatching(".*/api/v2/test")).willReturn(aResponse().withBody("{}")));
+
+        restClientActor =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withVirtualThreads()
+                        .build();
+        final List<Thread> threads = new CopyOnWriteArrayList<>();
+        final List<CompletableFuture<Void>> users =
+                IntStream.range(0, 3)
+                        .mapToObj(
+                                i ->
+                                        restClientActor.runAsync(
+                                                () -> {
+                                                    threads.add(Thread.currentThread());
+                                                    restClientActor
+                                                            .get("/api/v2/test")
+                                                            .expect(response -> response.match().accepted().bodyIs("{}"));
+                                                }))
+                        .collect(Collectors.toList());
+        CompletableFuture.allOf(users.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        verify(3, getRequestedFor(urlMatching(".*/api/v2/test")));
+        assertEquals(3, threads.size());
+        for (Thread thread : threads) {
+            // platform dispatcher threads are used on JDKs without virtual threads
+            assertTrue(
+                    VirtualThreads.isSupported()
+                            ? VirtualThreads.isVirtual(thread)
+                            : thread.getName().startsWith("OkHttp Dispatcher"),
+                    thread.toString());
+        }
+        restClientActor.getTransport().shutdown();
+    }
+
+    @Test
+    public void protocolsAndStreamsTest() {
+        stubFor(get(urlMatching(".*/api/v2/test")).willReturn(aResponse().withBody("{}")));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> RestClientActor.newBuilder().withProtocols(Protocol.HTTP_2));
+        restClientActor =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withProtocols(Protocol.HTTP_1_1)
+                        .build();
+        for (int i = 0; i < 3; i++) {
+            restClientActor.get("/api/v2/test").expect(response -> response.match().accepted());
+        }
+
+        final TransportStats stats = restClientActor.getTransportStats();
+        assertEquals(1, stats.connectionsOpened(Protocol.HTTP_1_1));
+        assertEquals(0, stats.activeStreams());
+        final ConnectionStreams streams = stats.connectionStreams().get(0);
+        assertEquals(Protocol.HTTP_1_1, streams.getProtocol());
+        assertEquals(WIREMOCK_SERVER.port(), streams.getPort());
+        assertEquals(3, streams.getTotalStreams());
+        assertEquals(1, streams.getMaxConcurrentStreams());
+    }
+
+    @Test
+    public void h2PriorKnowledgeTest() throws Exception {
+        // WireMock doesn't serve HTTP/2 over cleartext
+        final MockWebServer server = new MockWebServer();
+        server.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+        server.enqueue(new MockResponse().setBody("{}"));
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setHeadersDelay(300, TimeUnit.MILLISECONDS).setBody("{}"));
+        }
+        server.start();
+        try {
+            restClientActor =
+                    RestClientActor.newBuilder()
+                            .withBaseURL(server.url("/").toString())
+                            .withH2PriorKnowledge()
+                            .build();
+            // connection is established first, concurrent calls would race to open own ones
+            restClientActor.get("/api/v2/test").expect(response -> response.match().accepted());
+            final List<CompletableFuture<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(restClientActor.get("/api/v2/test").expectAsync(response -> response.match().accepted()));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+            // all the calls are multiplexed over single connection
+            final TransportStats stats = restClientActor.getTransportStats();
+            assertEquals(1, stats.connectionsOpened(Protocol.H2_PRIOR_KNOWLEDGE));
+            assertEquals(0, stats.connectionsOpened(Protocol.HTTP_1_1));
+            assertEquals(0, stats.activeStreams());
+            final ConnectionStreams streams = stats.connectionStreams().get(0);
+            assertEquals(Protocol.H2_PRIOR_KNOWLEDGE, streams.getProtocol());
+            assertEquals(server.getPort(), streams.getPort());
+            assertEquals(4, streams.getTotalStreams());
+            assertTrue(streams.getMaxConcurrentStreams() > 1, streams.toString());
+            assertEquals(4, server.getRequestCount());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void responseCacheTest(@TempDir Path cacheDir) {
+        stubFor(
+                get(urlMatching(".*/api/v2/catalog"))
+                        .willReturn(aResponse().withHeader("Cache-Control", "max-age=60").withBody("catalog")));
+        stubFor(
+                get(urlMatching(".*/api/v2/lookup"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Cache-Control", "no-cache")
+                                        .withHeader("ETag", "\"v1\"")
+                                        .withBody("lookup")));
+        stubFor(
+                get(urlMatching(".*/api/v2/lookup"))
+                        // Jetty suffixes the ETag of gzipped responses
+                        .withHeader("If-None-Match", matching("\"v1.*"))
+                        .atPriority(1)
+                        .willReturn(aResponse().withStatus(304).withHeader("ETag", "\"v1\"")));
+        stubFor(
+                get(urlMatching(".*/api/v2/changed"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Cache-Control", "no-cache")
+                                        .withHeader("ETag", "\"v1\"")
+                                        .withBody("v1")));
+        stubFor(
+                get(urlMatching(".*/api/v2/changed"))
+                        .withHeader("If-None-Match", matching("\"v1.*"))
+                        .atPriority(1)
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Cache-Control", "no-cache")
+                                        .withHeader("ETag", "\"v2\"")
+                                        .withBody("v2")));
+
+        restClientActor =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withResponseCache(cacheDir, 1024 * 1024)
+                        .build();
+        for (int i = 0; i < 3; i++) {
+            restClientActor.get("/api/v2/catalog").expect(response -> response.match().accepted().bodyIs("catalog"));
+            restClientActor.get("/api/v2/lookup").expect(response -> response.match().accepted().bodyIs("lookup"));
+        }
+
+        // revalidated, but modified on the server
+        restClientActor.get("/api/v2/changed").expect(response -> response.match().accepted().bodyIs("v1"));
+        restClientActor.get("/api/v2/changed").expect(response -> response.match().accepted().bodyIs("v2"));
+
+        // failed lookups are counted as failures, not misses
+        stubFor(get(urlMatching(".*/api/v2/broken")).willReturn(aResponse().withFault(Fault.EMPTY_RESPONSE)));
+        assertThrows(PaxoRestException.class, () -> restClientActor.get("/api/v2/broken").execute());
+
+        final ResponseCacheStats stats = restClientActor.getResponseCacheStats();
+        assertEquals(2, stats.hits());
+        assertEquals(2, stats.conditionalHits());
+        assertEquals(1, stats.conditionalMisses());
+        assertEquals(3, stats.misses());
+        assertEquals(1, stats.failures());
+        verify(1, getRequestedFor(urlMatching(".*/api/v2/catalog")));
+        verify(3, getRequestedFor(urlMatching(".*/api/v2/lookup")));
+
+        // directory is in use till the cache is closed by the transport shutdown
+        final RestClientActor.Builder sameDirectory =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withResponseCache(cacheDir, 1024 * 1024);
+        assertThrows(IllegalStateException.class, sameDirectory::build);
+        restClientActor.getTransport().shutdown();
+        sameDirectory.build().getTransport().shutdown();
+    }
+
+    @Test
+    public void batchExpectAllTest() {
+        stubFor(
+                get(urlMatching(".*/api/v2/item/.*"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", JSON_CONTENT_TYPE)
+                                        .withBody("{\"id\": 7}")));
+
+        final List<Integer> ids =
+                restClientActor
+                        .batch()
+                        .withMaxInFlight(3)
+                        .expectAll(
+                                IntStream.range(0, 10).boxed(),
+                                i -> restClientActor.get("/api/v2/item/%d", i),
+                                response ->
+                                        response.match()
+                                                .bodyAsJSON(json -> json.extract().jsonPathAsInteger("$.id")));
+        assertEquals(Collections.nCopies(10, 7), ids);
+
+        final RaptorMultipleFailuresError error =
+                assertThrows(
+                        RaptorMultipleFailuresError.class,
+                        () ->
+                                restClientActor
+                                        .batch()
+                                        .expectAll(
+                                                Arrays.asList(
+                                                        restClientActor.get("/api/v2/item/1"),
+                                                        restClientActor.get("/api/v2/item/2")),
+                                                response ->
+                                                        response.match()
+                                                                .bodyAsJSON(
+                                                                        json -> json.jsonPathAsInteger("$.id").isEqualTo(1))));
+        assertEquals(2, error.getFailures().size());
+    }
+
+    @Test
+    public void batchInFlightLimitTest() {
+        stubFor(get(urlMatching(".*/api/v2/item/.*")).willReturn(aResponse().withFixedDelay(100).withBody("{}")));
+
+        // requests sent, but not checked yet
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final AtomicInteger checked = new AtomicInteger();
+        final Function<Integer, RestGetRequestBuilder> requestFactory =
+                i -> {
+                    if (i == 5) {
+                        throw new IllegalStateException("No request for " + i);
+                    }
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return restClientActor.get("/api/v2/item/%d", i);
+                };
+        final Function<RestResponseMatchers, RestResponseAsserter> checkers =
+                response -> {
+                    inFlight.decrementAndGet();
+                    checked.incrementAndGet();
+                    return response.match().accepted();
+                };
+
+        restClientActor.batch().withMaxInFlight(3).expectAll(IntStream.range(0, 5).boxed(), requestFactory, checkers);
+        assertEquals(3, maxInFlight.get());
+        assertEquals(5, checked.get());
+
+        // requests sent before the factory failed are completed when the batch fails
+        assertThrows(
+                IllegalStateException.class,
+                () ->
+                        restClientActor
+                                .batch()
+                                .withMaxInFlight(3)
+                                .expectAll(IntStream.range(0, 10).boxed(), requestFactory, checkers));
+        assertEquals(10, checked.get());
+        assertEquals(0, inFlight.get());
+    }
+
+    @Test
+    public void loadGeneratorTest() {
+        stubFor(
+                get(urlMatching(".*/api/v2/.*"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", JSON_CONTENT_TYPE)
+                                        .withBody("{}")));
+
+        final LoadReport report =
+                restClientActor
+                        .load(() -> restClientActor.get("/api/v2/test"))
+                        .withArrivalRate(ArrivalRate.ramp(10, 50, Duration.ofMillis(500)))
+                        .during(Duration.ofSeconds(1))
+                        .run(response -> response.match().statusCode(200));
+
+        assertTrue(report.getScheduled() > 20, report.toString());
+        assertEquals(report.getScheduled(), report.getSucceeded(), report.toString());
+        assertEquals(0, report.getErrors());
+        assertTrue(report.getLatencyPercentile(50).compareTo(Duration.ZERO) > 0);
+    }
+
+    @Test
+    public void routeRateLimitTest() throws Exception {
+        stubFor(
+                get(urlMatching(".*/api/v2/.*"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", JSON_CONTENT_TYPE)
+                                        .withBody("{}")));
+
+        restClientActor =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withRateLimit(
+                                RequestRateLimiter.newBuilder()
+                                        .perHost(1000, 100)
+                                        .forRoute("/api/v2/item/{id}", 10, 1)
+                                        .build())
+                        .build();
+
+        final long start = System.nanoTime();
+        CompletableFuture.allOf(
+                        restClientActor.get("/api/v2/item/1").executeAsync(),
+                        restClientActor.get("/api/v2/item/2").executeAsync(),
+                        restClientActor.get("/api/v2/item/3").executeAsync())
+                .get(5, TimeUnit.SECONDS);
+        restClientActor.get("/api/v2/other").execute();
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(190));
+        final Map<String, RateLimitStats> stats = restClientActor.getRateLimiter().getStats();
+        assertEquals(3, stats.get("route:/api/v2/item/{id}").getPermits());
+        assertEquals(2, stats.get("route:/api/v2/item/{id}").getDelayed());
+        assertEquals(4, stats.get("host:localhost").getPermits());
+        assertEquals(0, stats.get("host:localhost").getDelayed());
+    }
+
+    @Test
+    public void hostAndRouteRateLimitTest() throws Exception {
+        final RequestRateLimiter rateLimiter =
+                RequestRateLimiter.newBuilder()
+                        .forHost("localhost", 2, 1)
+                        .forRoute("/api/v2/item/{id}", 10, 1)
+                        .build();
+        final Request hostOnly = new Request.Builder().url("http://localhost/api/v2/other").build();
+        final Request hostAndRoute = new Request.Builder().url("http://localhost/api/v2/item/1").build();
+        final Request routeOnly = new Request.Builder().url("http://127.0.0.1/api/v2/item/2").build();
+
+        assertEquals(0, rateLimiter.reserve(hostOnly));
+        // delayed by the host limit, the route permit is taken for the delayed send time
+        final long hostAndRouteSendTime = System.nanoTime() + rateLimiter.reserve(hostAndRoute);
+        TimeUnit.MILLISECONDS.sleep(450);
+        final long routeOnlySendTime = System.nanoTime() + rateLimiter.reserve(routeOnly);
+
+        assertTrue(
+                Math.abs(routeOnlySendTime - hostAndRouteSendTime) >= TimeUnit.MILLISECONDS.toNanos(90),
+                "Route permits are used " + (routeOnlySendTime - hostAndRouteSendTime) + " ns apart");
+        final Map<String, RateLimitStats> stats = rateLimiter.getStats();
+        assertEquals(1, stats.get("host:localhost").getDelayed());
+        assertEquals(1, stats.get("route:/api/v2/item/{id}").getDelayed());
+    }
+
+    @Test
+    public void adaptiveConcurrencyLimitTest() {
+        stubFor(
+                get(urlMatching(".*/api/v2/busy"))
+                        .willReturn(aResponse().withStatus(503).withHeader("Retry-After", "0")));
+        stubFor(
+                get(urlMatching(".*/api/v2/test"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", JSON_CONTENT_TYPE)
+                                        .withBody("{}")));
+
+        final AdaptiveConcurrencyLimiter limiter =
+                AdaptiveConcurrencyLimiter.newBuilder().withInitialLimit(10).withLimitRange(2, 20).build();
+        restClientActor =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withAdaptiveConcurrencyLimit(limiter)
+                        .build();
+
+        for (int i = 0; i < 5; i++) {
+            restClientActor.get("/api/v2/busy").expect(response -> response.match().statusCode(503));
+        }
+        assertEquals(5, limiter.getOverloads());
+        assertEquals(5, limiter.getLimit());
 
+        restClientActor.get("/api/v2/test").expect(response -> response.match().accepted());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getRejected());
+    }
 
+    @Test
+    public void adaptiveConcurrencyLimitAsyncTest() throws Exception {
+        stubFor(
+                get(urlMatching(".*/api/v2/slow"))
+                        .willReturn(
+                                aResponse()
+                                        .withFixedDelay(300)
+                                        .withHeader("Content-Type", JSON_CONTENT_TYPE)
+                                        .withBody("{}")));
+
+        final AdaptiveConcurrencyLimiter limiter =
+                AdaptiveConcurrencyLimiter.newBuilder().withInitialLimit(1).withLimitRange(1, 1).build();
+        restClientActor =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withAdaptiveConcurrencyLimit(limiter)
+                        .build();
+
+        final List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(restClientActor.get("/api/v2/slow").expectAsync(response -> response.match().accepted()));
+        }
+        // requests waiting for the slot are not handed over to the dispatcher
+        Thread.sleep(100);
+        assertEquals(1, restClientActor.getTransportStats().runningCalls());
+        assertEquals(1, limiter.getInFlight());
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getRejected());
+
+        // slot is held till the body is closed
+        final OkHttpClient client = new OkHttpClient.Builder().addInterceptor(limiter).build();
+        try (Response response =
+                client.newCall(
+                                new Request.Builder()
+                                        .url("http://localhost:" + WIREMOCK_SERVER.port() + "/api/v2/slow")
+                                        .build())
+                        .execute()) {
+            assertEquals(1, limiter.getInFlight());
+            assertEquals("{}", response.body().string());
+        }
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void retryPolicyTest() {
+        stubFor(
+                get(urlMatching(".*/api/v2/flaky"))
+                        .inScenario("flaky")
+                        .whenScenarioStateIs(Scenario.STARTED)
+                        .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "0"))
+                        .willSetStateTo("recovered"));
+        stubFor(
+                get(urlMatching(".*/api/v2/flaky"))
+                        .inScenario("flaky")
+                        .whenScenarioStateIs("recovered")
+                        .willReturn(aResponse().withStatus(200).withBody("{}")));
+        stubFor(post(urlMatching(".*/api/v2/flaky")).willReturn(aResponse().withStatus(503)));
+
+        restClientActor =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withRetryPolicy(
+                                RetryPolicy.newBuilder()
+                                        .withBackoff(Duration.ofMillis(10), Duration.ofMillis(50), 2)
+                                        .build())
+                        .build();
+
+        restClientActor.get("/api/v2/flaky").expect(response -> response.match().statusCode(200));
+        // POST is not idempotent and not retried by default
+        restClientActor.post("/api/v2/flaky").expect(response -> response.match().statusCode(503));
+        // unless retries requested explicitly for the request
+        restClientActor
+                .post("/api/v2/flaky")
+                .withRetryPolicy(
+                        RetryPolicy.newBuilder()
+                                .withIdempotentOnly(false)
+                                .withBackoff(Duration.ofMillis(1), Duration.ofMillis(1), 1)
+                                .build())
+                .expect(response -> response.match().statusCode(503));
+
+        verify(2, getRequestedFor(urlMatching(".*/api/v2/flaky")));
+        verify(4, postRequestedFor(urlMatching(".*/api/v2/flaky")));
+        final RetryStats stats = restClientActor.getRetryStats();
+        assertEquals(2, stats.getRetriedRequests());
+        assertEquals(3, stats.getRetries());
+    }
+
+    @Test
+    public void retryPolicyAsyncTest() throws Exception {
+        stubFor(
+                get(urlMatching(".*/api/v2/flaky"))
+                        .inScenario("flaky")
+                        .whenScenarioStateIs(Scenario.STARTED)
+                        .willReturn(aResponse().withStatus(503).withHeader("Retry-After", "1"))
+                        .willSetStateTo("recovered"));
+        stubFor(
+                get(urlMatching(".*/api/v2/flaky"))
+                        .inScenario("flaky")
+                        .whenScenarioStateIs("recovered")
+                        .willReturn(aResponse().withStatus(200).withBody("{}")));
 
+        final RestClientActor.Builder builder =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withRetryPolicy(RetryPolicy.newBuilder().build());
+        builder.build();
+        // building again doesn't install the interceptors twice
+        restClientActor = builder.build();
+
+        final CompletableFuture<Object> result =
+                restClientActor.get("/api/v2/flaky").expectAsync(response -> response.match().statusCode(200));
+        // no dispatcher thread waits for the Retry-After delay
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertFalse(result.isDone());
+        assertEquals(0, restClientActor.getTransportStats().runningCalls());
+        result.get(5, TimeUnit.SECONDS);
+
+        verify(2, getRequestedFor(urlMatching(".*/api/v2/flaky")));
+        assertEquals(1, restClientActor.getRetryStats().getRetries());
+    }
+
+    @Test
+    public void retryRateLimitTest() throws Exception {
+        stubFor(
+                get(urlMatching(".*/api/v2/flaky"))
+                        .inScenario("flaky")
+                        .whenScenarioStateIs(Scenario.STARTED)
+                        .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "0"))
+                        .willSetStateTo("recovered"));
+        stubFor(
+                get(urlMatching(".*/api/v2/flaky"))
+                        .inScenario("flaky")
+                        .whenScenarioStateIs("recovered")
+                        .willReturn(aResponse().withStatus(200).withBody("{}")));
+
+        restClientActor =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withRateLimit(RequestRateLimiter.newBuilder().forRoute("/api/v2/flaky", 2, 1).build())
+                        .withRetryPolicy(
+                                RetryPolicy.newBuilder()
+                                        .withBackoff(Duration.ofMillis(10), Duration.ofMillis(50), 2)
+                                        .build())
+                        .build();
+
+        // retry of the 429 takes the permit of the route as any other attempt
+        final long start = System.nanoTime();
+        restClientActor.get("/api/v2/flaky").expectAsync(response -> response.match().statusCode(200)).get(5, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(450));
+        final RateLimitStats stats = restClientActor.getRateLimiter().getStats().get("route:/api/v2/flaky");
+        assertEquals(2, stats.getPermits());
+        assertEquals(1, stats.getDelayed());
+    }
+
+    @Test
+    public void hedgedRequestTest() throws Exception {
+        stubFor(get(urlMatching(".*/api/v2/slow")).willReturn(aResponse().withFixedDelay(2000).withBody("slow")));
+
+        final HedgingPolicy hedging = HedgingPolicy.newBuilder().withDelay(Duration.ofMillis(200)).build();
+        final CompletableFuture<Object> result =
+                restClientActor
+                        .get("/api/v2/slow")
+                        .withHedging(hedging)
+                        .expectAsync(response -> response.match().accepted().bodyIs("fast"));
+
+        // the first request is a straggler, the hedge request is served by the fast stub
+        while (WIREMOCK_SERVER.findAll(getRequestedFor(urlMatching(".*/api/v2/slow"))).isEmpty()) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        stubFor(get(urlMatching(".*/api/v2/slow")).willReturn(aResponse().withBody("fast")));
+        result.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, hedging.getHedges());
+        assertEquals(1, hedging.getHedgeWins());
+    }
+
+    @Test
+    public void hedgingPercentileDelayTest() throws Exception {
+        stubFor(get(urlMatching(".*/api/v2/slow")).willReturn(aResponse().withFixedDelay(2000).withBody("slow")));
+
+        final HedgingPolicy hedging =
+                HedgingPolicy.newBuilder().withPercentileDelay(50, Duration.ofMillis(300), 1).build();
+        final CompletableFuture<Object> result =
+                restClientActor
+                        .get("/api/v2/slow")
+                        .withHedging(hedging)
+                        .expectAsync(response -> response.match().accepted().bodyIs("fast"));
+
+        while (WIREMOCK_SERVER.findAll(getRequestedFor(urlMatching(".*/api/v2/slow"))).isEmpty()) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        stubFor(get(urlMatching(".*/api/v2/slow")).willReturn(aResponse().withBody("fast")));
+        result.get(5, TimeUnit.SECONDS);
+        assertEquals(1, hedging.getHedgeWins());
+
+        // losing original request is cancelled, its latency is sampled as censored at that time,
+        // not the one of the hedge
+        final long delay = hedging.getCurrentDelay().toMillis();
+        assertTrue(delay >= 300 && delay < 2000, hedging.toString());
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (restClientActor.getTransportStats().runningCalls() > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(0, restClientActor.getTransportStats().runningCalls());
+    }
+
+    @Test
+    public void circuitBreakerTest() throws Exception {
+        stubFor(get(urlMatching(".*/api/v2/down")).willReturn(aResponse().withStatus(500)));
+
+        final List<String> transitions = new CopyOnWriteArrayList<>();
+        final CircuitBreaker circuitBreaker =
+                CircuitBreaker.newBuilder()
+                        .withSlidingWindow(4, 4)
+                        .withOpenDuration(Duration.ofMillis(200))
+                        .withHalfOpenCalls(1)
+                        .withStateListener((host, from, to) -> transitions.add(from + " -> " + to))
+                        .build();
+        restClientActor =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withCircuitBreaker(circuitBreaker)
+                        .build();
+
+        for (int i = 0; i < 4; i++) {
+            restClientActor.get("/api/v2/down").expect(response -> response.match().statusCode(500));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState("localhost"));
+
+        // request fails fast without reaching the server
+        final PaxoRestException ex =
+                assertThrows(PaxoRestException.class, () -> restClientActor.get("/api/v2/down").execute());
+        assertTrue(ex.getCause() instanceof CircuitBreakerOpenException);
+        assertEquals(1, circuitBreaker.getRejected());
+        verify(4, getRequestedFor(urlMatching(".*/api/v2/down")));
+
+        // trial call in half-open state closes the circuit
+        stubFor(get(urlMatching(".*/api/v2/down")).willReturn(aResponse().withStatus(200)));
+        TimeUnit.MILLISECONDS.sleep(250);
+        restClientActor.get("/api/v2/down").expect(response -> response.match().accepted());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState("localhost"));
+        assertEquals(Arrays.asList("CLOSED -> OPEN", "OPEN -> HALF_OPEN", "HALF_OPEN -> CLOSED"), transitions);
+    }
+
+    @Test
+    public void circuitBreakerTrialFailureTest() throws Exception {
+        stubFor(get(urlMatching(".*/api/v2/down")).willReturn(aResponse().withStatus(500)));
+
+        final CircuitBreaker circuitBreaker =
+                CircuitBreaker.newBuilder()
+                        .withSlidingWindow(2, 2)
+                        .withOpenDuration(Duration.ofMillis(100))
+                        .withHalfOpenCalls(1)
+                        .build();
+        final AtomicBoolean failOnClient = new AtomicBoolean();
+        final OkHttpClient client =
+                new OkHttpClient.Builder()
+                        .addInterceptor(circuitBreaker)
+                        .addInterceptor(
+                                chain -> {
+                                    if (failOnClient.get()) {
+                                        throw new IllegalStateException("Client side failure");
+                                    }
+                                    return chain.proceed(chain.request());
+                                })
+                        .build();
+        final Request request =
+                new Request.Builder().url("http://localhost:" + WIREMOCK_SERVER.port() + "/api/v2/down").build();
+
+        for (int i = 0; i < 2; i++) {
+            client.newCall(request).execute().close();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState("localhost"));
+
+        // trial call failed on the client side returns its permit
+        TimeUnit.MILLISECONDS.sleep(150);
+        failOnClient.set(true);
+        assertThrows(IllegalStateException.class, () -> client.newCall(request).execute());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState("localhost"));
+
+        failOnClient.set(false);
+        stubFor(get(urlMatching(".*/api/v2/down")).willReturn(aResponse().withStatus(200)));
+        client.newCall(request).execute().close();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState("localhost"));
+        assertEquals(0, circuitBreaker.getRejected());
+    }
+
+    @Test
+    public void requestCoalescingTest() {
+        stubFor(get(urlMatching(".*/api/v2/lookup")).willReturn(aResponse().withFixedDelay(300).withBody("lookup")));
+
+        final String report = Strings.repeat("report", 10);
+        stubFor(get(urlMatching(".*/api/v2/report")).willReturn(aResponse().withFixedDelay(300).withBody(report)));
+
+        final RequestCoalescer coalescer = RequestCoalescer.newBuilder().withMaxSharedBodySize(32).build();
+        restClientActor =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withRequestCoalescing(coalescer)
+                        .build();
+
+        final List<CompletableFuture<Object>> lookups =
+                IntStream.range(0, 5)
+                        .mapToObj(
+                                i ->
+                                        restClientActor
+                                                .get("/api/v2/lookup")
+                                                .expectAsync(response -> response.match().accepted().bodyIs("lookup")))
+                        .collect(Collectors.toList());
+        lookups.forEach(CompletableFuture::join);
+
+        verify(1, getRequestedFor(urlMatching(".*/api/v2/lookup")));
+        assertEquals(1, coalescer.getFlights());
+        assertEquals(4, coalescer.getCoalesced());
+
+        // body larger than the max shared size is not buffered, followers send their own requests
+        final List<CompletableFuture<Object>> reports =
+                IntStream.range(0, 3)
+                        .mapToObj(
+                                i ->
+                                        restClientActor
+                                                .get("/api/v2/report")
+                                                .expectAsync(response -> response.match().accepted().bodyIs(report)))
+                        .collect(Collectors.toList());
+        reports.forEach(CompletableFuture::join);
+
+        verify(3, getRequestedFor(urlMatching(".*/api/v2/report")));
+        assertEquals(2, coalescer.getFlights());
+        assertEquals(4, coalescer.getCoalesced());
+
+        // streamed responses (downloads) are never coalesced
+        final List<CompletableFuture<Object>> downloads =
+                IntStream.range(0, 3)
+                        .mapToObj(
+                                i ->
+                                        restClientActor
+                                                .get("/api/v2/lookup")
+                                                .withStreamingResponse()
+                                                .expectAsync(response -> response.match().accepted().bodyIs("lookup")))
+                        .collect(Collectors.toList());
+        downloads.forEach(CompletableFuture::join);
+
+        verify(4, getRequestedFor(urlMatching(".*/api/v2/lookup")));
+        assertEquals(2, coalescer.getFlights());
+        assertEquals(4, coalescer.getCoalesced());
+    }
+
+    @Test
+    public void ntlmConnectionAffinityTest() {
+        final Type2Message challenge =
+                new Type2Message(
+                        NtlmFlags.NTLMSSP_NEGOTIATE_NTLM | NtlmFlags.NTLMSSP_NEGOTIATE_TARGET_INFO,
+                        new byte[] {1, 2, 3, 4, 5, 6, 7, 8},
+                        "DOMAIN");
+        // target information with the terminating AV pair only
+        challenge.setTargetInformation(new byte[4]);
+        final String type2 = jcifs.util.Base64.encode(challenge.toByteArray());
+        // connection authenticated by the handshake is served without Authorization header
+        stubFor(
+                get(urlMatching(".*/api/v2/ntlm"))
+                        .withHeader(AUTHORIZATION, absent())
+                        .willReturn(aResponse().withBody("ok")));
+        stubFor(
+                get(urlMatching(".*/api/v2/ntlm"))
+                        .withHeader(AUTHORIZATION, matching("NTLM TlRMTVNTUAAB.*"))
+                        .willReturn(aResponse().withStatus(401).withHeader("WWW-Authenticate", "NTLM " + type2)));
+        stubFor(
+                get(urlMatching(".*/api/v2/ntlm"))
+                        .withHeader(AUTHORIZATION, matching("NTLM TlRMTVNTUAAD.*"))
+                        .willReturn(aResponse().withBody("ok")));
+
+        final NTLMAuthenticator authenticator = new NTLMAuthenticator("User", "Password");
+        restClientActor =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withNTLMAuth(authenticator)
+                        .build();
+        for (int i = 0; i < 3; i++) {
+            restClientActor.get("/api/v2/ntlm").expect(response -> response.match().accepted().bodyIs("ok"));
+        }
+
+        assertEquals(1, authenticator.getHandshakes());
+        assertEquals(0, authenticator.getHandshakeFailures());
+        assertEquals(1, authenticator.getAuthenticatedConnections());
+        verify(
+                1,
+                getRequestedFor(urlMatching(".*/api/v2/ntlm"))
+                        .withHeader(AUTHORIZATION, matching("NTLM TlRMTVNTUAAB.*")));
+        verify(2, getRequestedFor(urlMatching(".*/api/v2/ntlm")).withHeader(AUTHORIZATION, absent()));
+    }
+
+    @Test
+    public void jsonPathConfigurationTest() {
+        stubFor(
+                get(urlMatching(".*/api/v2/bookmark"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", JSON_CONTENT_TYPE)
+                                        .withBody("{\"id\": 123}")));
+
+        final RestClientActor lenientActor =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withJsonPathConfiguration(
+                                JsonAssert.DEFAULT_CONFIGURATION.addOptions(Option.DEFAULT_PATH_LEAF_TO_NULL))
+                        .build();
+        final long hits = JsonPathCache.stats().hitCount();
+        for (int i = 0; i < 3; i++) {
+            lenientActor
+                    .get("/api/v2/bookmark")
+                    .expect(
+                            response ->
+                                    response.match()
+                                            .bodyAsJSON(
+                                                    json -> json.jsonPathAsInteger("$.id").isEqualTo(123),
+                                                    json -> json.jsonPathAsObject("$.name").isNull()));
+        }
+        // second and third responses reuse the compiled paths
+        assertTrue(JsonPathCache.stats().hitCount() - hits >= 4);
+
+        // configuration of one actor doesn't leak into the others
+        assertThrows(
+                PathNotFoundException.class,
+                () ->
+                        restClientActor
+                                .get("/api/v2/bookmark")
+                                .expect(
+                                        response ->
+                                                response.match()
+                                                        .bodyAsJSON(json -> json.jsonPathAsObject("$.name").isNull())));
+    }
+
+    @Test
+    public void jsonStreamTest() {
+        final String items =
+                IntStream.range(0, 1000)
+                        .mapToObj(i -> "{\"id\": " + i + ", \"tags\": [\"t" + i + "\"]}")
+                        .collect(Collectors.joining(","));
+        stubFor(
+                get(urlMatching(".*/api/v2/export"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", JSON_CONTENT_TYPE)
+                                        .withBody(
+                                                "{\"total\": 1000, \"items\": [" + items + "], "
+                                                        + "\"meta\": {\"complete\": true}}")));
+
+        final List<Integer> ids =
+                restClientActor
+                        .get("/api/v2/export")
+                        .expect(
+                                response ->
+                                        response.match()
+                                                .accepted()
+                                                .bodyAsJSONStream(
+                                                        json -> json.jsonPathAsInteger("$.total", total -> total.isEqualTo(1000)),
+                                                        json -> json.jsonPathCount("$.items[*]", count -> count.isEqualTo(1000)),
+                                                        json -> json.jsonPathPresent("$.items", present -> present.isTrue()),
+                                                        json -> json.jsonPathAsString("$.items[2].tags[0]", tag -> tag.isEqualTo("t2")),
+                                                        json -> json.jsonPathAsBoolean("$['meta'].complete", complete -> complete.isTrue()),
+                                                        json -> json.jsonPathPresent("$.meta.cursor", present -> present.isFalse()),
+                                                        json -> json.extract().jsonPathAsListOf("$.items[*].id", Integer.class, list -> list.hasSize(1000))));
+        assertEquals(IntStream.range(0, 1000).boxed().collect(Collectors.toList()), ids);
+
+        final AssertJMultipleFailuresError error =
+                assertThrows(
+                        AssertJMultipleFailuresError.class,
+                        () ->
+                                restClientActor
+                                        .get("/api/v2/export")
+                                        .expect(
+                                                response ->
+                                                        response.match()
+                                                                .bodyAsJSONStream(
+                                                                        json -> json.jsonPathAsInteger("$.items[1].id", id -> id.isEqualTo(2)),
+                                                                        json -> json.jsonPathAsString("$.meta.cursor", cursor -> cursor.isNotNull()))));
+        assertEquals(2, error.getFailures().size());
+        assertThrows(
+                IllegalArgumentException.class,
+                () ->
+                        restClientActor
+                                .get("/api/v2/export")
+                                .expect(
+                                        response ->
+                                                response.match()
+                                                        .bodyAsJSONStream(json -> json.jsonPathCount("$..id", count -> count.isPositive()))));
+    }
+
+    @Test
+    public void parsedBodySharedTest() {
+        stubFor(
+                get(urlMatching(".*/api/v2/order"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", JSON_CONTENT_TYPE)
+                                        .withBody("{\"id\": 7, \"customer\": {\"name\": \"Ann\", \"vip\": true}}")));
+        stubFor(
+                get(urlMatching(".*/api/v2/order.xml"))
+                        .willReturn(aResponse().withBody("<order><id>7</id><status>NEW</status></order>")));
+
+        // body is read once, so it can be asserted by several calls on the same response
+        restClientActor
+                .get("/api/v2/order")
+                .expect(
+                        response ->
+                                response.match()
+                                        .bodyAsJSON(
+                                                json -> json.jsonPathAsInteger("$.id").isEqualTo(7),
+                                                json ->
+                                                        json.jsonPathAsJSON(
+                                                                "$.customer",
+                                                                customer -> customer.jsonPathAsString("$.name").isEqualTo("Ann"),
+                                                                customer -> customer.jsonPathAsBoolean("$.vip").isTrue()))
+                                        .bodyAsJSON(json -> json.jsonPathPresent("$.customer.name").isTrue())
+                                        .bodyAsString(body -> body.contains("\"id\": 7")));
+        restClientActor
+                .get("/api/v2/order.xml")
+                .expect(
+                        response ->
+                                response.match()
+                                        .bodyAsXML(
+                                                xml -> xml.valueByXPath("/order/id").isEqualTo("7"),
+                                                xml -> xml.valueByXPath("/order/status").isEqualTo("NEW"))
+                                        .bodyIs("<order><id>7</id><status>NEW</status></order>"));
+    }
+
+    @Test
+    public void jsonSchemaCacheTest() {
+        stubFor(
+                get(urlMatching(".*/api/v2/user"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", JSON_CONTENT_TYPE)
+                                        .withBody("{\"id\": 1, \"tags\": [\"a\", \"b\"], \"manager\": null}")));
+        final String schema =
+                "{\"type\": \"object\", \"required\": [\"id\", \"tags\"], \"properties\": {"
+                        + "\"id\": {\"type\": \"integer\"}, "
+                        + "\"tags\": {\"type\": \"array\", \"items\": {\"type\": \"string\"}}, "
+                        + "\"manager\": {\"type\": [\"object\", \"null\"]}}}";
+
+        final long hits = JsonSchemaCache.stats().hitCount();
+        for (int i = 0; i < 3; i++) {
+            restClientActor
+                    .get("/api/v2/user")
+                    .expect(response -> response.match().bodyAsJSON(json -> json.validateSchema(schema)));
+        }
+        assertEquals(2, JsonSchemaCache.stats().hitCount() - hits);
+
+        final Schema strict =
+                JsonSchemaCache.compile("{\"type\": \"object\", \"properties\": {\"id\": {\"type\": \"string\"}}}");
+        assertThrows(
+                AssertionError.class,
+                () ->
+                        restClientActor
+                                .get("/api/v2/user")
+                                .expect(response -> response.match().bodyAsJSON(json -> json.validateSchema(strict))));
+    }
+
+    @Test
+    public void htmlParallelNumbersTest() {
+        stubFor(
+                get(urlMatching(".*/api/v2/page"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "text/html")
+                                        .withBody(
+                                                "<html><body><span id='price'>1,234.56</span>"
+                                                        + "<span class='qty'>42</span><span class='qty'>7</span></body></html>")));
+
+        final long hits = CssSelectorCache.stats().hitCount();
+        // checkers run concurrently on the dispatcher threads
+        final List<CompletableFuture<Object>> pages =
+                IntStream.range(0, 20)
+                        .mapToObj(
+                                i ->
+                                        restClientActor
+                                                .get("/api/v2/page")
+                                                .expectAsync(
+                                                        response ->
+                                                                response.match()
+                                                                        .bodyAsHTML(
+                                                                                html -> html.cssSelectorAsDouble("#price").isEqualTo(1234.56),
+                                                                                html -> html.cssSelectorAsLong("span.qty").isEqualTo(42L),
+                                                                                html -> html.cssSelectorAsRaw("#price").transform(price -> price.replace(",", "")).asDouble().isEqualTo(1234.56))))
+                        .collect(Collectors.toList());
+        pages.forEach(CompletableFuture::join);
+        assertTrue(CssSelectorCache.stats().hitCount() - hits >= 50);
+    }
+
+    @Test
+    public void xmlNamespacesTest() throws XPathExpressionException {
+        stubFor(
+                get(urlMatching(".*/api/v2/quote"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", XML_CONTENT_TYPE)
+                                        .withBody(
+                                                "<s:Envelope xmlns:s='http://schemas.xmlsoap.org/soap/envelope/'>"
+                                                        + "<s:Body><m:Quote xmlns:m='urn:quotes'><m:Price>12.5</m:Price>"
+                                                        + "<m:Symbol>PAXO</m:Symbol></m:Quote></s:Body></s:Envelope>")));
+        final Map<String, String> namespaces =
+                ImmutableMap.of("s", "http://schemas.xmlsoap.org/soap/envelope/", "m", "urn:quotes");
+
+        final List<CompletableFuture<Object>> quotes =
+                IntStream.range(0, 10)
+                        .mapToObj(
+                                i ->
+                                        restClientActor
+                                                .get("/api/v2/quote")
+                                                .expectAsync(
+                                                        response ->
+                                                                response.match()
+                                                                        .bodyAsXML(
+                                                                                xml -> xml.withNamespaceContext(namespaces).valueByXPath("/s:Envelope/s:Body/m:Quote/m:Price").isEqualTo(12.5),
+                                                                                xml -> xml.withNamespaceContext(namespaces).valueByXPath("//m:Symbol").isEqualTo("PAXO"),
+                                                                                xml -> xml.valueByXPath("count(//*)").isEqualTo(5))))
+                        .collect(Collectors.toList());
+        quotes.forEach(CompletableFuture::join);
+
+        assertThrows(
+                AssertionError.class,
+                () ->
+                        restClientActor
+                                .get("/api/v2/quote")
+                                .expect(
+                                        response ->
+                                                response.match()
+                                                        .bodyAsXML(
+                                                                xml -> xml.withNamespaceContext(namespaces).valueByXPath("//m:Symbol").isEqualTo("OTHER"))));
+
+        // expressions depending on the resolver are evaluated by the plain XPath
+        final XPathFactory factory = XmlSupport.xPathFactory(namespaces);
+        factory.setXPathVariableResolver(name -> "PAXO");
+        final Document quote = XmlSupport.parse("<m:Symbol xmlns:m='urn:quotes'>PAXO</m:Symbol>");
+        assertEquals("true", factory.newXPath().evaluate("/m:Symbol = $symbol", quote));
+    }
+
+    @Test
+    public void xmlStreamTest() {
+        final String entries =
+                IntStream.range(0, 1000)
+                        .mapToObj(i -> "<a:entry id='e" + i + "'><a:title>Title <b>" + i + "</b></a:title></a:entry>")
+                        .collect(Collectors.joining());
+        stubFor(
+                get(urlMatching(".*/api/v2/feed"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", XML_CONTENT_TYPE)
+                                        .withBody("<a:feed xmlns:a='urn:atom'><a:total>1000</a:total>" + entries + "</a:feed>")));
+
+        final Integer count =
+                restClientActor
+                        .get("/api/v2/feed")
+                        .expect(
+                                response ->
+                                        response.match()
+                                                .accepted()
+                                                .bodyAsXMLStream(
+                                                        xml ->
+                                                                xml.extract()
+                                                                        .countByXPath("/f:feed/f:entry", entry -> entry.isEqualTo(1000))
+                                                                        .valueByXPath("/f:feed/f:total/text()", total -> total.isEqualTo("1000"))
+                                                                        .valueByXPath("/f:feed/f:entry[3]/@id", id -> id.isEqualTo("e2"))
+                                                                        .valueByXPath("/f:feed/*[2]/f:title", title -> title.isEqualTo("Title 0"))
+                                                                        .valuesByXPath("/f:feed/f:entry/@id", ids -> ids.hasSize(1000).startsWith("e0", "e1"))
+                                                                        .hasXPath("/f:feed/f:entry/f:title/b")
+                                                                        .doesNotHaveXPath("/f:feed/f:author")
+                                                                        .withNamespaceContext(ImmutableMap.of("f", "urn:atom"))));
+        assertEquals(1000, count);
+
+        final AssertJMultipleFailuresError error =
+                assertThrows(
+                        AssertJMultipleFailuresError.class,
+                        () ->
+                                restClientActor
+                                        .get("/api/v2/feed")
+                                        .expect(
+                                                response ->
+                                                        response.match()
+                                                                .bodyAsXMLStream(
+                                                                        xml ->
+                                                                                xml.valueByXPath("/feed/total", total -> total.isEqualTo("1000"))
+                                                                                        .countByXPath("/*/*", children -> children.isEqualTo(1)))));
+        assertEquals(2, error.getFailures().size());
+    }
+
+    @Test
+    public void replayableBodyTest() {
+        final String items =
+                IntStream.range(0, 100).mapToObj(i -> "{\"id\": " + i + "}").collect(Collectors.joining(","));
+        final String body = "{\"total\": 100, \"items\": [" + items + "]}";
+        stubFor(
+                get(urlMatching(".*/api/v2/export"))
+                        .willReturn(aResponse().withHeader("Content-Type", JSON_CONTENT_TYPE).withBody(body)));
+
+        // bodies over 16 bytes are spilled to the mapped temp file
+        final RestClientActor spillingActor =
+                RestClientActor.newBuilder()
+                        .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                        .withBodySpillThreshold(16)
+                        .build();
+        for (RestClientActor actor : Arrays.asList(restClientActor, spillingActor)) {
+            actor.get("/api/v2/export")
+                    .expect(
+                            response ->
+                                    response.match()
+                                            .bodyAsJSON(json -> json.jsonPathAsInteger("$.total").isEqualTo(100))
+                                            .bodyAsJSONStream(json -> json.jsonPathCount("$.items[*]", count -> count.isEqualTo(100)))
+                                            .bodyAsByteArray(bytes -> bytes.hasSize(body.length()))
+                                            .bodyAs(bytes -> new String(bytes, StandardCharsets.UTF_8), text -> text.isEqualTo(body))
+                                            .bodyAsJSONStream(json -> json.jsonPathAsInteger("$.items[99].id", id -> id.isEqualTo(99)))
+                                            .bodyIs(body));
+        }
+
+        // body streamed before being buffered is read straight from the network, only once
+        assertThrows(
+                PaxoRestException.class,
+                () ->
+                        restClientActor
+                                .get("/api/v2/export")
+                                .expect(
+                                        response ->
+                                                response.match()
+                                                        .bodyAsJSONStream(json -> json.jsonPathCount("$.items[*]", count -> count.isEqualTo(100)))
+                                                        .bodyIs(body)));
+
+        assertThrows(IllegalArgumentException.class, () -> RestClientActor.newBuilder().withBodySpillThreshold(-1));
+    }
+
+    @Test
+    public void eventStreamTest() {
+        stubFor(
+                get(urlMatching(".*/api/v2/events"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "text/event-stream")
+                                        .withBody(
+                                                ": keep-alive\n\n"
+                                                        + "id: 1\ndata: {\"seq\": 0}\n\n"
+                                                        + "event: tick\ndata: {\"seq\":\ndata: 1}\n\n"
+                                                        + "data: {\"seq\": 2}\n\n")));
+        final RestGetRequestBuilder events = restClientActor.get("/api/v2/events");
+        final EventStreamReport sse =
+                events.expectStream(
+                        stream ->
+                                stream.accepted()
+                                        .eachEvent(json -> json.jsonPathAsInteger("$.seq").isBetween(0, 2))
+                                        .event(1, json -> json.jsonPathAsInteger("$.seq").isEqualTo(1))
+                                        .eventCount(count -> count.isEqualTo(3)));
+        assertEquals(StreamFormat.SSE, sse.getFormat());
+        assertEquals(EventStreamReport.StopReason.END_OF_STREAM, sse.getStopReason());
+        assertNotNull(sse.getTimeToFirstEvent());
+        // the stream doesn't change the builder, so it still sends the regular request
+        events.expect(response -> response.match().accepted());
+        verify(2, getRequestedFor(urlMatching(".*/api/v2/events")));
+        verify(1, getRequestedFor(urlMatching(".*/api/v2/events")).withHeader("Accept-Encoding", equalTo("identity")));
+
+        // never-ending NDJSON stream is cut by the event limit or the deadline
+        final String lines =
+                IntStream.range(0, 20).mapToObj(i -> "{\"seq\": " + i + "}\n").collect(Collectors.joining());
+        stubFor(
+                get(urlMatching(".*/api/v2/feed"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/x-ndjson")
+                                        .withBody(lines)
+                                        .withChunkedDribbleDelay(20, 4000)));
+        final EventStreamReport limited =
+                restClientActor
+                        .get("/api/v2/feed")
+                        .expectStream(stream -> stream.limit(2).event(1, json -> json.jsonPathAsInteger("$.seq").isEqualTo(1)));
+        assertEquals(EventStreamReport.StopReason.EVENT_LIMIT, limited.getStopReason());
+        assertEquals(2, limited.getEventCount());
+        assertTrue(limited.getMaxGap().toMillis() > 0);
+
+        final EventStreamReport timed =
+                restClientActor
+                        .get("/api/v2/feed")
+                        .expectStream(stream -> stream.within(Duration.ofMillis(700)).eachEventData(data -> data.startsWith("{")));
+        assertEquals(EventStreamReport.StopReason.DEADLINE, timed.getStopReason());
+        assertTrue(timed.getEventCount() > 0 && timed.getEventCount() < 20, timed.toString());
+
+        final AssertJMultipleFailuresError error =
+                assertThrows(
+                        AssertJMultipleFailuresError.class,
+                        () ->
+                                restClientActor
+                                        .get("/api/v2/events")
+                                        .expectStream(
+                                                stream ->
+                                                        stream.eachEvent(json -> json.jsonPathAsInteger("$.seq").isZero())
+                                                                .event(5, json -> json.jsonPathPresent("$.seq").isTrue())));
+        assertEquals(3, error.getFailures().size());
+
+        // response checks are soft, so they're reported together with the missing format
+        stubFor(get(urlMatching(".*/api/v2/not-events")).willReturn(aResponse().withHeader("Content-Type", "text/plain")));
+        final AssertJMultipleFailuresError notStream =
+                assertThrows(
+                        AssertJMultipleFailuresError.class,
+                        () ->
+                                restClientActor
+                                        .get("/api/v2/not-events")
+                                        .expectStream(stream -> stream.statusCode(204).eventCount(count -> count.isPositive())));
+        assertEquals(2, notStream.getFailures().size());
+    }
+
+    @Test
+    public void downloadToTest(@TempDir Path downloadDir) throws IOException {
+        final byte[] artifact = new byte[DownloadAssert.TRANSFER_SIZE * 2 + 17];
+        new Random(42).nextBytes(artifact);
+        stubFor(
+                get(urlMatching(".*/api/v2/artifact"))
+                        .willReturn(aResponse().withHeader("Content-Type", "application/octet-stream").withBody(artifact)));
+        final String sha256 = Hashing.sha256().hashBytes(artifact).toString();
+        final String md5 = Hashing.md5().hashBytes(artifact).toString();
+        final Path file = downloadDir.resolve("artifact.bin");
+
+        final Path downloaded =
+                restClientActor
+                        .get("/api/v2/artifact")
+                        .withStreamingResponse()
+                        .expect(
+                                response ->
+                                        response.match()
+                                                .accepted()
+                                                .extract()
+                                                .downloadTo(
+                                                        file,
+                                                        download ->
+                                                                download.hasSize(artifact.length)
+                                                                        .hasSha256(sha256.toUpperCase())
+                                                                        .hasMd5(md5)
+                                                                        .digest("SHA-1", digest -> digest.hasSize(40))
+                                                                        .throughput(throughput -> throughput.isPositive()))
+                                                // other body assertions read the body back from the file
+                                                .bodyAsByteArray(bytes -> bytes.isEqualTo(artifact)));
+        assertEquals(file, downloaded);
+        assertEquals(artifact.length, file.toFile().length());
+
+        final AssertJMultipleFailuresError error =
+                assertThrows(
+                        AssertJMultipleFailuresError.class,
+                        () ->
+                                restClientActor
+                                        .get("/api/v2/artifact")
+                                        .expect(
+                                                response ->
+                                                        response.match()
+                                                                .downloadTo(
+                                                                        file,
+                                                                        download -> download.hasSize(artifact.length + 1).hasSha256(md5))));
+        assertEquals(2, error.getFailures().size());
+    }
 }
@@ -0,0 +1,114 @@
+package com.paxovision.rest.test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.paxovision.rest.test.WireMockSetupExtension.WIREMOCK_SERVER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.paxovision.rest.actor.RestClientActor;
+import com.paxovision.rest.transport.VirtualThreads;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *	Compares blocking {@code expect(...)} throughput on platform threads (one thread per user)
+ *	and on virtual threads. Not executed as part of the build, run it explicitly with
+ *	{@code mvn test -Dtest=VirtualThreadsBenchmark}
+ */
+@ExtendWith(WireMockSetupExtension.class)
+public class VirtualThreadsBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadsBenchmark.class);
+
+    private static final int USERS = 200;
+    private static final int REQUESTS_PER_USER = 5;
+    private static final int SERVER_DELAY_MS = 50;
+
+    @BeforeEach
+    public void reset() {
+        WIREMOCK_SERVER.resetAll();
+        stubFor(
+                get(urlMatching(".*/api/v2/.*"))
+                        .willReturn(
+                                aResponse()
+                                        .withFixedDelay(SERVER_DELAY_MS)
+                                        .withHeader("Content-Type", "application/json")
+                                        .withBody("{}")));
+    }
+
+    @Test
+    public void platformThreads() throws Exception {
+        final RestClientActor actor = newActorBuilder().build();
+        final ExecutorService executor = Executors.newFixedThreadPool(USERS);
+        try {
+            run("platform threads", actor, scenario -> CompletableFuture.runAsync(scenario, executor));
+        } finally {
+            executor.shutdown();
+            actor.getTransport().shutdown();
+        }
+    }
+
+    @Test
+    public void virtualThreads() throws Exception {
+        Assumptions.assumeTrue(VirtualThreads.isSupported(), "Virtual threads are not supported");
+        final RestClientActor actor = newActorBuilder().withVirtualThreads().build();
+        try {
+            run("virtual threads", actor, actor::runAsync);
+        } finally {
+            actor.getTransport().shutdown();
+        }
+    }
+
+    private RestClientActor.Builder newActorBuilder() {
+        return RestClientActor.newBuilder()
+                .withBaseURL("http://localhost:" + WIREMOCK_SERVER.port())
+                .withMaxIdleConnections(USERS)
+                .withReadTimeout(Duration.ofMinutes(1))
+                .disableLogging();
+    }
+
+    private void run(String mode, RestClientActor actor, Function<Runnable, CompletableFuture<Void>> runner)
+            throws Exception {
+        final AtomicInteger completed = new AtomicInteger();
+        final long start = System.nanoTime();
+        final List<CompletableFuture<Void>> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(
+                    runner.apply(
+                            () -> {
+                                for (int r = 0; r < REQUESTS_PER_USER; r++) {
+                                    actor.get("/api/v2/test").expect(response -> response.match().accepted());
+                                    completed.incrementAndGet();
+                                }
+                            }));
+        }
+        CompletableFuture.allOf(users.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.MINUTES);
+        final double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertEquals(USERS * REQUESTS_PER_USER, completed.get());
+        verify(USERS * REQUESTS_PER_USER, getRequestedFor(urlMatching(".*/api/v2/test")));
+        LOGGER.info(
+                "{}: {} requests in {} s ({} req/s)",
+                mode,
+                USERS * REQUESTS_PER_USER,
+                String.format("%.2f", seconds),
+                String.format("%.0f", USERS * REQUESTS_PER_USER / seconds));
+    }
+}